@@ -0,0 +1,88 @@
+package com.osoriano.spinnaker.plugin.igor.benchmark;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryRedisClientDelegate;
+import com.osoriano.spinnaker.plugin.igor.cache.RedisDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunCacheConfig;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures reading and writing the publish timestamps of every artifact through the cache */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DryRunCacheBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int artifacts;
+
+  @Param({"REDIS", "MEMORY"})
+  public DryRunCacheConfig.Backend backend;
+
+  // Only used by the Redis backend
+  @Param({"PER_ARTIFACT", "HASH"})
+  public DryRunCacheConfig.Layout layout;
+
+  private DryRunCache cache;
+  private List<String> artifactNames;
+  private Map<String, String> timestamps;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    if (backend == DryRunCacheConfig.Backend.MEMORY) {
+      cache = new InMemoryDryRunCache();
+    } else {
+      cache =
+          new RedisDryRunCache(
+              new InMemoryRedisClientDelegate(),
+              new IgorConfigurationProperties(),
+              new DefaultRegistry(),
+              DryRunCacheConfig.builder().layout(layout).hashShards(artifacts / 100).build());
+    }
+
+    artifactNames = new ArrayList<>(artifacts);
+    timestamps = new LinkedHashMap<>();
+    for (int i = 1; i <= artifacts; i++) {
+      String artifactName = "benchmark" + i;
+      artifactNames.add(artifactName);
+      timestamps.put(artifactName, String.valueOf(System.currentTimeMillis()));
+    }
+    cache.setCacheValues(timestamps);
+  }
+
+  @Benchmark
+  public Map<String, String> getCacheValues() {
+    return cache.getCacheValues(artifactNames);
+  }
+
+  @Benchmark
+  public void setCacheValues() {
+    cache.setCacheValues(timestamps);
+  }
+
+  @Benchmark
+  public int getCacheValueOneByOne() {
+    int found = 0;
+    for (String artifactName : artifactNames) {
+      if (!"0".equals(cache.getCacheValue(artifactName))) {
+        found++;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,89 @@
+package com.osoriano.spinnaker.plugin.igor.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.netflix.spinnaker.kork.artifacts.model.Artifact;
+import com.osoriano.spinnaker.plugin.igor.monitor.DryRunPollingMonitor;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunEventTemplate;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Builds and serializes one artifact event per operation, the way it is sent to Keel. The artifact
+ * encoding builds an Artifact and nested maps for every version, as events were built before
+ * templates. The gc profiler reports the bytes allocated per event as gc.alloc.rate.norm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DryRunEventBenchmark {
+
+  @Param({"artifact", "template"})
+  public String encoding;
+
+  @Param({"1", "100"})
+  public int versionsPerEvent;
+
+  private final ObjectWriter writer = new ObjectMapper().writer();
+  private DryRunEventTemplate eventTemplate;
+  private String[] artifactNames;
+  private long timestamp;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    eventTemplate = new DryRunEventTemplate(DryRunPollingMonitor.DRYRUN_ARTIFACT_TYPE);
+    artifactNames = new String[versionsPerEvent];
+    for (int i = 0; i < versionsPerEvent; i++) {
+      artifactNames[i] = String.format("benchmark%06d", i + 1);
+    }
+    timestamp = System.currentTimeMillis();
+  }
+
+  // Events are serialized to bytes, as Retrofit's Jackson converter does before sending them
+  @Benchmark
+  public byte[] event() throws IOException {
+    timestamp++;
+    return writer.writeValueAsBytes(
+        "template".equals(encoding) ? templateEvent() : artifactEvent());
+  }
+
+  private Map<String, Object> templateEvent() {
+    DryRunEventTemplate.Payload payload = eventTemplate.newPayload(artifactNames.length);
+    for (String artifactName : artifactNames) {
+      payload.add(artifactName, timestamp);
+    }
+    return DryRunEventTemplate.event(payload);
+  }
+
+  private Map<String, Object> artifactEvent() {
+    List<Artifact> artifacts = new ArrayList<>(artifactNames.length);
+    for (String artifactName : artifactNames) {
+      artifacts.add(
+          Artifact.builder()
+              .type(DryRunPollingMonitor.DRYRUN_ARTIFACT_TYPE)
+              .customKind(false)
+              .name(artifactName)
+              .version(String.valueOf(timestamp))
+              .reference(artifactName)
+              .metadata(Map.of("createdAt", timestamp))
+              .build());
+    }
+    return Map.of(
+        "payload",
+        Map.of("artifacts", artifacts, "details", Map.of()),
+        "eventName",
+        DryRunEventTemplate.EVENT_NAME);
+  }
+}
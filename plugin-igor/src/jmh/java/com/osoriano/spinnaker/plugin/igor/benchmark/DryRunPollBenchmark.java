@@ -0,0 +1,98 @@
+package com.osoriano.spinnaker.plugin.igor.benchmark;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryRedisClientDelegate;
+import com.osoriano.spinnaker.plugin.igor.cache.RedisDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunCacheConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig;
+import com.osoriano.spinnaker.plugin.igor.monitor.DryRunPollingMonitor;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+/**
+ * Measures a full poll cycle of the dry run monitor. When idle, every artifact was just published
+ * and the poll only checks timestamps. When due, every artifact is published on every poll
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DryRunPollBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int artifacts;
+
+  @Param({"idle", "due"})
+  public String load;
+
+  @Param({"true", "false"})
+  public boolean bulkPoll;
+
+  @Param({"0"})
+  public long keelLatencyMicros;
+
+  private InMemoryRedisClientDelegate redis;
+  private DryRunPollingMonitor monitor;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    redis = new InMemoryRedisClientDelegate();
+    DefaultRegistry registry = new DefaultRegistry();
+    DryRunCache cache =
+        new RedisDryRunCache(
+            redis,
+            new IgorConfigurationProperties(),
+            registry,
+            DryRunCacheConfig.builder().build());
+
+    DryRunPollingConfig config =
+        DryRunPollingConfig.builder()
+            .publishInterval("due".equals(load) ? Duration.ZERO : Duration.ofDays(1))
+            .numberOfUniqueArtifacts(artifacts)
+            .artifactPrefix("benchmark")
+            .indexPadLength(6)
+            .bulkPoll(bulkPoll)
+            .nearCacheMaxSize(artifacts)
+            .build();
+
+    monitor =
+        new DryRunPollingMonitor(
+            new IgorConfigurationProperties(),
+            registry,
+            DynamicConfigService.NOOP,
+            null,
+            Optional.empty(),
+            new ConcurrentTaskScheduler(),
+            cache,
+            new LatencyKeelService(keelLatencyMicros),
+            config);
+
+    // The first poll publishes every artifact, so idle polls start with every timestamp set
+    monitor.poll(true);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    monitor.stop();
+    redis.flushAll();
+  }
+
+  @Benchmark
+  public void poll() {
+    monitor.poll(true);
+  }
+}
@@ -0,0 +1,34 @@
+package com.osoriano.spinnaker.plugin.igor.benchmark;
+
+import com.netflix.spinnaker.igor.keel.KeelService;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import retrofit.client.Response;
+
+/** Keel stand-in that drops every event after waiting for the configured latency */
+public class LatencyKeelService implements KeelService {
+  private final long latencyMicros;
+  private final AtomicLong events = new AtomicLong();
+
+  public LatencyKeelService(long latencyMicros) {
+    this.latencyMicros = latencyMicros;
+  }
+
+  @Override
+  public Response sendArtifactEvent(Map<String, Object> event) {
+    events.incrementAndGet();
+    if (latencyMicros > 0) {
+      try {
+        TimeUnit.MICROSECONDS.sleep(latencyMicros);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return null;
+  }
+
+  public long getEvents() {
+    return events.get();
+  }
+}
@@ -0,0 +1,159 @@
+package com.osoriano.spinnaker.plugin.igor.builds;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.netflix.spinnaker.igor.build.BuildCache;
+import com.netflix.spinnaker.igor.build.model.GenericBuild;
+import com.netflix.spinnaker.igor.build.model.GenericProject;
+import com.netflix.spinnaker.igor.history.EchoService;
+import com.netflix.spinnaker.igor.history.model.GenericBuildContent;
+import com.netflix.spinnaker.igor.history.model.GenericBuildEvent;
+import com.netflix.spinnaker.igor.polling.CommonPollingMonitor;
+import com.netflix.spinnaker.igor.polling.LockService;
+import com.netflix.spinnaker.igor.polling.PollContext;
+import com.netflix.spinnaker.kork.discovery.DiscoveryStatusListener;
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
+import com.netflix.spinnaker.security.AuthenticatedRequest;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunBuildConfig;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunBuildDelta;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunBuildPollingDelta;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Polls the synthetic CI master the way Igor polls a Jenkins master. Each poll compares the last
+ * completed build of every job with the one in Igor's build cache, sends a build event to Echo for
+ * each build completed since, and moves the cached build forward. Jobs seen for the first time are
+ * only cached, without sending their past builds.
+ *
+ * <p>Igor's own build monitors can't poll the synthetic master: each one is bound to the client of
+ * its provider, e.g. the Jenkins monitor reads jobs through Jenkins' REST API. This monitor is
+ * built from the pieces they share instead, Igor's polling monitor, build cache and Echo events, so
+ * the load on them matches a Jenkins master with as many jobs
+ */
+@Service
+@ConditionalOnProperty(
+    "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor.builds.enabled")
+public class DryRunBuildMonitor
+    extends CommonPollingMonitor<DryRunBuildDelta, DryRunBuildPollingDelta> {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final DryRunBuildService buildService;
+  private final BuildCache buildCache;
+  private final Optional<EchoService> echoService;
+  private final int buildHistory;
+  private final int cacheTtlSeconds;
+  private final Registry registry;
+  private final Id eventsId;
+  private final Id eventFailuresId;
+
+  @Autowired
+  public DryRunBuildMonitor(
+      IgorConfigurationProperties properties,
+      Registry registry,
+      DynamicConfigService dynamicConfigService,
+      DiscoveryStatusListener discoveryStatusListener,
+      Optional<LockService> lockService,
+      TaskScheduler scheduler,
+      DryRunBuildService buildService,
+      BuildCache buildCache,
+      Optional<EchoService> echoService,
+      DryRunBuildConfig dryRunBuildConfig) {
+    super(
+        properties,
+        registry,
+        dynamicConfigService,
+        discoveryStatusListener,
+        lockService,
+        scheduler);
+    this.buildService = buildService;
+    this.buildCache = buildCache;
+    this.echoService = echoService;
+    this.buildHistory = dryRunBuildConfig.getBuildHistoryOrDefault();
+    this.cacheTtlSeconds = (int) dryRunBuildConfig.getCacheTtlOrDefault().toSeconds();
+    this.registry = registry;
+    this.eventsId = registry.createId("dryrun.builds.events");
+    this.eventFailuresId = registry.createId("dryrun.builds.events.failures");
+  }
+
+  // The whole master is a single partition, as Igor does for each Jenkins master
+  @Override
+  public void poll(boolean sendEvents) {
+    pollSingle(new PollContext(buildService.getName(), Map.of(), !sendEvents));
+  }
+
+  @Override
+  protected DryRunBuildPollingDelta generateDelta(PollContext ctx) {
+    String master = ctx.partitionName;
+    List<DryRunBuildDelta> items = new ArrayList<>();
+    for (String job : buildService.getJobNames()) {
+      int cachedBuild = Math.max(buildCache.getLastBuild(master, job, false), 0);
+      int lastBuild = buildService.getLastCompletedBuildNumber(job);
+      if (lastBuild > cachedBuild) {
+        items.add(new DryRunBuildDelta(job, cachedBuild, lastBuild));
+      }
+    }
+    return new DryRunBuildPollingDelta(master, items);
+  }
+
+  @Override
+  protected void commitDelta(DryRunBuildPollingDelta delta, boolean sendEvents) {
+    for (DryRunBuildDelta item : delta.getItems()) {
+      int committedBuild = item.getLastBuild();
+      if (sendEvents && item.getCachedBuild() > 0 && echoService.isPresent()) {
+        committedBuild = sendEvents(delta.getMaster(), item);
+      }
+      if (committedBuild > item.getCachedBuild()) {
+        buildCache.setLastBuild(
+            delta.getMaster(), item.getJob(), committedBuild, false, cacheTtlSeconds);
+      }
+    }
+  }
+
+  /**
+   * Sends an event for each build completed since the cached one, up to the build history, and
+   * returns the last build that was sent. Builds after a failed event are sent by the next poll
+   */
+  private int sendEvents(String master, DryRunBuildDelta item) {
+    int firstBuild = Math.max(item.getCachedBuild() + 1, item.getLastBuild() - buildHistory + 1);
+    int sentBuild = firstBuild - 1;
+    for (int number = firstBuild; number <= item.getLastBuild(); number++) {
+      GenericBuild build = buildService.getGenericBuild(item.getJob(), number);
+      try {
+        postEvent(master, build);
+      } catch (Exception e) {
+        registry.counter(eventFailuresId).increment();
+        logger.warn("Failed to send build {} of {} to Echo", number, item.getJob(), e);
+        return sentBuild;
+      }
+      registry.counter(eventsId.withTag("result", build.getResult().name())).increment();
+      sentBuild = number;
+    }
+    return sentBuild;
+  }
+
+  private void postEvent(String master, GenericBuild build) {
+    GenericBuildContent content = new GenericBuildContent();
+    content.setProject(new GenericProject(build.getName(), build));
+    content.setMaster(master);
+    content.setType("jenkins");
+    GenericBuildEvent event = new GenericBuildEvent();
+    event.setContent(content);
+    AuthenticatedRequest.allowAnonymous(() -> echoService.get().postEvent(event));
+  }
+
+  @Override
+  public String getName() {
+    return "dryrunBuildMonitor";
+  }
+}
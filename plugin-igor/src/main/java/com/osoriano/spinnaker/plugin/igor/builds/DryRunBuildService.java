@@ -0,0 +1,180 @@
+package com.osoriano.spinnaker.plugin.igor.builds;
+
+import com.netflix.spinnaker.fiat.model.resources.Permissions;
+import com.netflix.spinnaker.igor.build.model.GenericBuild;
+import com.netflix.spinnaker.igor.build.model.GenericGitRevision;
+import com.netflix.spinnaker.igor.build.model.Result;
+import com.netflix.spinnaker.igor.model.BuildServiceProvider;
+import com.netflix.spinnaker.igor.service.BuildOperations;
+import com.netflix.spinnaker.kork.web.exceptions.NotFoundException;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunBuildConfig;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Synthetic CI master with thousands of jobs, served entirely in-process. Builds are not stored: a
+ * job starts a build every build interval, at a phase offset derived from its name, and each build
+ * runs for the build duration. Whether a build failed is derived from the job name and build
+ * number, so every Igor replica sees the same builds without sharing any state.
+ *
+ * <p>The master is registered with Igor's build services as a Jenkins master, although it is not
+ * one. Spinnaker only offers Jenkins masters to Jenkins triggers and stages, which is what the
+ * synthetic master stands in for. Only the generic build operations are served: Igor endpoints that
+ * need an actual Jenkins client, such as job configs or queued items, don't find the master
+ */
+public class DryRunBuildService implements BuildOperations {
+
+  // Build numbers count the build intervals since this time, so they stay stable across restarts
+  private static final long SCHEDULE_EPOCH = Instant.parse("2021-01-01T00:00:00Z").toEpochMilli();
+
+  private final String master;
+  private final List<String> jobNames;
+  private final Map<String, Long> phaseByJob;
+  private final long intervalMillis;
+  private final long durationMillis;
+  private final double failureRate;
+  private final int buildHistory;
+  private final LongSupplier clock;
+
+  public DryRunBuildService(DryRunBuildConfig config) {
+    this(config, () -> Instant.now().toEpochMilli());
+  }
+
+  public DryRunBuildService(DryRunBuildConfig config, LongSupplier clock) {
+    this.master = config.getMasterOrDefault();
+    this.intervalMillis = Math.max(config.getBuildIntervalOrDefault().toMillis(), 1);
+    this.durationMillis = Math.max(config.getBuildDurationOrDefault().toMillis(), 0);
+    this.failureRate = config.getFailureRate();
+    this.buildHistory = config.getBuildHistoryOrDefault();
+    this.clock = clock;
+
+    int numberOfJobs = config.getNumberOfJobsOrDefault();
+    String zeros = "0".repeat(Math.max(config.getIndexPadLength(), 0));
+    this.jobNames = new ArrayList<>(numberOfJobs);
+    this.phaseByJob = new HashMap<>();
+    for (int index = 1; index <= numberOfJobs; index++) {
+      String suffix = String.valueOf(index);
+      String jobName =
+          config.getJobPrefixOrDefault()
+              + (suffix.length() < zeros.length() ? zeros.substring(suffix.length()) : "")
+              + suffix;
+      jobNames.add(jobName);
+      phaseByJob.put(jobName, Math.floorMod((long) jobName.hashCode(), intervalMillis));
+    }
+  }
+
+  @Override
+  public String getName() {
+    return master;
+  }
+
+  // Reported as Jenkins, the build service the synthetic master stands in for, see the class doc
+  @Override
+  public BuildServiceProvider getBuildServiceProvider() {
+    return BuildServiceProvider.JENKINS;
+  }
+
+  @Override
+  public Permissions getPermissions() {
+    return Permissions.EMPTY;
+  }
+
+  public List<String> getJobNames() {
+    return jobNames;
+  }
+
+  /**
+   * Returns the number of the last build the job started, or 0 if it did not start any yet. Igor's
+   * build numbers are ints, so with very short build intervals the number stops at the largest int
+   * instead of overflowing
+   */
+  public int getLastBuildNumber(String job) {
+    long sinceEpoch = clock.getAsLong() - SCHEDULE_EPOCH - phase(job);
+    if (sinceEpoch < 0) {
+      return 0;
+    }
+    return (int) Math.min(Math.floorDiv(sinceEpoch, intervalMillis) + 1, Integer.MAX_VALUE);
+  }
+
+  // Returns the number of the last build of the job that completed, or 0 if none did
+  public int getLastCompletedBuildNumber(String job) {
+    int lastBuild = getLastBuildNumber(job);
+    return lastBuild > 0 && isRunning(job, lastBuild) ? lastBuild - 1 : lastBuild;
+  }
+
+  @Override
+  public GenericBuild getGenericBuild(String job, int buildNumber) {
+    if (buildNumber < 1 || buildNumber > getLastBuildNumber(job)) {
+      throw new NotFoundException("Build " + buildNumber + " of job " + job + " not found");
+    }
+    return build(job, buildNumber);
+  }
+
+  // Returns the most recent builds of the job, newest first
+  @Override
+  public List<GenericBuild> getBuilds(String job) {
+    int lastBuild = getLastBuildNumber(job);
+    List<GenericBuild> builds = new ArrayList<>();
+    for (int number = lastBuild; number > 0 && number > lastBuild - buildHistory; number--) {
+      builds.add(build(job, number));
+    }
+    return builds;
+  }
+
+  @Override
+  public List<GenericGitRevision> getGenericGitRevisions(String job, GenericBuild build) {
+    return List.of();
+  }
+
+  // Synthetic jobs only build on their schedule, so a trigger starts nothing. Returns the number
+  // of the build the schedule starts next, which completes like any other build
+  @Override
+  public int triggerBuildWithParameters(String job, Map<String, String> queryParameters) {
+    int lastBuild = getLastBuildNumber(job);
+    return lastBuild == Integer.MAX_VALUE ? lastBuild : lastBuild + 1;
+  }
+
+  private GenericBuild build(String job, int number) {
+    boolean running = isRunning(job, number);
+    return GenericBuild.builder()
+        .name(job)
+        .number(number)
+        .id(String.valueOf(number))
+        .fullDisplayName(job + " #" + number)
+        .building(running)
+        .result(running ? Result.BUILDING : result(job, number))
+        .timestamp(String.valueOf(startedAt(job, number)))
+        .duration(running ? null : (int) durationMillis)
+        .url("https://" + master + "/job/" + job + "/" + number + "/")
+        .build();
+  }
+
+  private boolean isRunning(String job, int number) {
+    return clock.getAsLong() < startedAt(job, number) + durationMillis;
+  }
+
+  private long startedAt(String job, int number) {
+    return SCHEDULE_EPOCH + phase(job) + (number - 1) * intervalMillis;
+  }
+
+  private Result result(String job, int number) {
+    if (failureRate <= 0) {
+      return Result.SUCCESS;
+    }
+    long seed = job.hashCode() * 0x9E3779B97F4A7C15L + number;
+    return new SplittableRandom(seed).nextDouble() < failureRate ? Result.FAILURE : Result.SUCCESS;
+  }
+
+  private long phase(String job) {
+    Long phase = phaseByJob.get(job);
+    if (phase == null) {
+      throw new NotFoundException("Job " + job + " not found on " + master);
+    }
+    return phase;
+  }
+}
@@ -1,50 +1,85 @@
 package com.osoriano.spinnaker.plugin.igor.cache;
 
-import com.netflix.spinnaker.igor.IgorConfigurationProperties;
-import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-
-/** Cache used for Dry Run artifacts */
-@Service
-public class DryRunCache {
-
-  private final RedisClientDelegate redisClientDelegate;
-  private final IgorConfigurationProperties igorConfigurationProperties;
-
-  public static final String LAST_PUBLISH_TIMESTAMP = "lastPublishTimestamp";
-
-  @Autowired
-  public DryRunCache(
-      RedisClientDelegate redisClientDelegate,
-      IgorConfigurationProperties igorConfigurationProperties) {
-    this.redisClientDelegate = redisClientDelegate;
-    this.igorConfigurationProperties = igorConfigurationProperties;
-  }
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Storage used for Dry Run artifacts: the last publish timestamp of each artifact, the replicas
+ * sharing the artifacts, and the outbox of artifact versions waiting to be sent to Keel. The
+ * backend is selected with the artifact.igor.cache.backend setting
+ */
+public interface DryRunCache {
 
   // Sets the artifact's cache value to the timestamp
-  public void setCacheValue(String artifactName, String timestamp) {
-    String key = makeKey(artifactName);
-    redisClientDelegate.withCommandsClient(
-        c -> {
-          c.hset(key, LAST_PUBLISH_TIMESTAMP, timestamp);
-        });
-  }
+  void setCacheValue(String artifactName, String timestamp);
 
-  // Returns timestamp for the given artifact
-  public String getCacheValue(String artifactName) {
-    return redisClientDelegate.withCommandsClient(
-        c -> {
-          String ts = c.hget(makeKey(artifactName), LAST_PUBLISH_TIMESTAMP);
-          return ts == null ? "0" : ts;
-        });
-  }
+  // Returns timestamp for the given artifact, or "0" if it was never published
+  String getCacheValue(String artifactName);
 
-  private String makeKey(String artifactName) {
-    return String.join(":", prefix(), "dryrun", artifactName);
-  }
+  // Sets the cache value of every artifact in the map
+  void setCacheValues(Map<String, String> timestampByArtifactName);
+
+  // Returns timestamps for the given artifacts, with "0" for artifacts that were never published
+  Map<String, String> getCacheValues(Collection<String> artifactNames);
 
-  private String prefix() {
-    return igorConfigurationProperties.getSpinnaker().getJedis().getPrefix();
+  // Atomically sets the artifact's timestamp, only if it still is the expected timestamp, or "0"
+  // for an artifact that was never published. Returns false if another replica got there first
+  boolean claimPublish(String artifactName, String expectedTimestamp, String timestamp);
+
+  // Same as claimPublish for many artifacts, keyed by artifact name with their expected timestamp.
+  // Returns the claimed artifacts
+  Set<String> claimPublishes(Map<String, String> expectedTimestampByArtifactName, String timestamp);
+
+  // Returns false if claimPublish is not supported, e.g. by a Redis without Lua scripting
+  default boolean supportsClaims() {
+    return true;
   }
+
+  // Reserves the artifacts until the given time while their versions are being sent, without
+  // moving their timestamps, which are only recorded once the versions were sent
+  void reservePublishes(Collection<String> artifactNames, long reservedUntil);
+
+  // Drops the artifacts' reservations, once their versions were sent or could not be sent
+  void releasePublishes(Collection<String> artifactNames);
+
+  // Returns the artifacts among the given ones that are still reserved at the given time
+  Set<String> getReservedPublishes(Collection<String> artifactNames, long now);
+
+  // Removes the timestamps of artifacts that are no longer live, e.g. after the number of artifacts
+  // or the prefix changed. Returns the number of removed timestamps
+  long sweep(Predicate<String> isLive);
+
+  // Records that the replica is alive, and drops replicas whose last heartbeat is too old
+  void setReplicaHeartbeat(String replicaId, long timestamp, long expiredBefore);
+
+  // Removes the replica, so other replicas take over its artifacts on their next poll
+  void removeReplica(String replicaId);
+
+  // Returns the replicas with a heartbeat since the given timestamp, sorted by replica id
+  List<String> getReplicas(long heartbeatSince);
+
+  // Adds the entries to the outbox, and returns the number of old entries dropped to keep the
+  // outbox within its maximum depth. The outbox is not capped when maxDepth is 0
+  long pushOutbox(List<String> entries, long maxDepth);
+
+  // Moves up to count of the oldest outbox entries to the replica's in flight entries
+  List<String> claimOutbox(String replicaId, int count);
+
+  // Drops the replica's in flight entries once they were delivered
+  void ackOutbox(String replicaId);
+
+  // Moves the replica's in flight entries back to the outbox, so they are delivered again
+  long requeueOutbox(String replicaId);
+
+  // Returns the replicas holding outbox entries in flight, sorted by replica id
+  List<String> getOutboxInFlightReplicas();
+
+  // Returns the number of entries waiting in the outbox
+  long getOutboxDepth();
+
+  // Returns the oldest entry waiting in the outbox, or null if the outbox is empty
+  String getOldestOutboxEntry();
 }
@@ -0,0 +1,115 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process cache of publish timestamps in front of {@link DryRunCache}. Writes go through to
+ * Redis and are kept locally, and the least recently used entries are evicted once the cache is
+ * full.
+ *
+ * <p>Publish timestamps only move forward, even claims whose versions could not be sent, which are
+ * sent again under the same claim. A cached timestamp that shows an artifact is not due yet can be
+ * trusted, even if another replica has published since. Artifacts that look due are always read
+ * again from Redis before they are published.
+ */
+public class DryRunNearCache {
+
+  /** Decides if an artifact is due, given its last publish timestamp */
+  @FunctionalInterface
+  public interface DueCheck {
+    boolean isDue(String artifactName, long lastPublishTimestamp);
+  }
+
+  private final DryRunCache cache;
+  private final int maxSize;
+  private final Map<String, Long> timestamps;
+
+  public DryRunNearCache(DryRunCache cache, int maxSize) {
+    this.cache = cache;
+    this.maxSize = maxSize;
+    this.timestamps =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxSize;
+          }
+        };
+  }
+
+  // Returns the artifact's timestamp, only reading Redis if the artifact may be due
+  public String getCacheValue(String artifactName, DueCheck dueCheck) {
+    Long cached = getIfNotDue(artifactName, dueCheck);
+    if (cached != null) {
+      return String.valueOf(cached);
+    }
+
+    String timestamp = cache.getCacheValue(artifactName);
+    put(artifactName, timestamp);
+    return timestamp;
+  }
+
+  // Returns the artifacts' timestamps, only reading Redis for the artifacts that may be due
+  public Map<String, String> getCacheValues(Collection<String> artifactNames, DueCheck dueCheck) {
+    Map<String, String> result = new LinkedHashMap<>();
+    List<String> misses = new ArrayList<>();
+    for (String artifactName : artifactNames) {
+      Long cached = getIfNotDue(artifactName, dueCheck);
+      if (cached != null) {
+        result.put(artifactName, String.valueOf(cached));
+      } else {
+        misses.add(artifactName);
+      }
+    }
+
+    if (!misses.isEmpty()) {
+      Map<String, String> fetched = cache.getCacheValues(misses);
+      fetched.forEach(this::put);
+      result.putAll(fetched);
+    }
+    return result;
+  }
+
+  public void setCacheValue(String artifactName, String timestamp) {
+    cache.setCacheValue(artifactName, timestamp);
+    put(artifactName, timestamp);
+  }
+
+  public void setCacheValues(Map<String, String> timestampByArtifactName) {
+    cache.setCacheValues(timestampByArtifactName);
+    timestampByArtifactName.forEach(this::put);
+  }
+
+  // Keeps a timestamp that was already written to the cache, e.g. by a claim
+  public void remember(String artifactName, String timestamp) {
+    put(artifactName, timestamp);
+  }
+
+  // Drops every cached timestamp, e.g. after artifacts moved between replicas
+  public synchronized void invalidateAll() {
+    timestamps.clear();
+  }
+
+  synchronized int size() {
+    return timestamps.size();
+  }
+
+  private Long getIfNotDue(String artifactName, DueCheck dueCheck) {
+    Long cached;
+    synchronized (this) {
+      cached = timestamps.get(artifactName);
+    }
+    return cached != null && !dueCheck.isDue(artifactName, cached) ? cached : null;
+  }
+
+  private synchronized void put(String artifactName, String timestamp) {
+    if (maxSize > 0) {
+      timestamps.put(artifactName, Long.parseLong(timestamp));
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Dry run cache kept in the memory of a single Igor, for load tests that run one replica without
+ * Redis. It only uses lock-free collections, so polls and outbox drains never block each other.
+ * Timestamps are lost on restart, so every artifact is published again once
+ */
+public class InMemoryDryRunCache implements DryRunCache {
+
+  private final Map<String, String> timestamps = new ConcurrentHashMap<>();
+  private final Map<String, Long> reservations = new ConcurrentHashMap<>();
+  private final Map<String, Long> heartbeats = new ConcurrentHashMap<>();
+
+  // The outbox head holds the newest entry, and its tail the oldest one
+  private final ConcurrentLinkedDeque<String> outbox = new ConcurrentLinkedDeque<>();
+  private final AtomicLong outboxDepth = new AtomicLong();
+  private final Map<String, ConcurrentLinkedDeque<String>> inFlight = new ConcurrentHashMap<>();
+
+  @Override
+  public void setCacheValue(String artifactName, String timestamp) {
+    timestamps.put(artifactName, timestamp);
+  }
+
+  @Override
+  public String getCacheValue(String artifactName) {
+    return timestamps.getOrDefault(artifactName, "0");
+  }
+
+  @Override
+  public void setCacheValues(Map<String, String> timestampByArtifactName) {
+    timestamps.putAll(timestampByArtifactName);
+  }
+
+  @Override
+  public Map<String, String> getCacheValues(Collection<String> artifactNames) {
+    Map<String, String> result = new LinkedHashMap<>();
+    artifactNames.forEach(artifactName -> result.put(artifactName, getCacheValue(artifactName)));
+    return result;
+  }
+
+  @Override
+  public boolean claimPublish(String artifactName, String expectedTimestamp, String timestamp) {
+    if ("0".equals(expectedTimestamp)) {
+      return timestamps.putIfAbsent(artifactName, timestamp) == null
+          || timestamps.replace(artifactName, expectedTimestamp, timestamp);
+    }
+    return timestamps.replace(artifactName, expectedTimestamp, timestamp);
+  }
+
+  @Override
+  public Set<String> claimPublishes(
+      Map<String, String> expectedTimestampByArtifactName, String timestamp) {
+    Set<String> claimed = new LinkedHashSet<>();
+    expectedTimestampByArtifactName.forEach(
+        (artifactName, expectedTimestamp) -> {
+          if (claimPublish(artifactName, expectedTimestamp, timestamp)) {
+            claimed.add(artifactName);
+          }
+        });
+    return claimed;
+  }
+
+  @Override
+  public void reservePublishes(Collection<String> artifactNames, long reservedUntil) {
+    artifactNames.forEach(artifactName -> reservations.put(artifactName, reservedUntil));
+  }
+
+  @Override
+  public void releasePublishes(Collection<String> artifactNames) {
+    artifactNames.forEach(reservations::remove);
+  }
+
+  @Override
+  public Set<String> getReservedPublishes(Collection<String> artifactNames, long now) {
+    Set<String> reserved = new LinkedHashSet<>();
+    artifactNames.forEach(
+        artifactName -> {
+          if (reservations.getOrDefault(artifactName, 0L) > now) {
+            reserved.add(artifactName);
+          }
+        });
+    return reserved;
+  }
+
+  @Override
+  public long sweep(Predicate<String> isLive) {
+    long swept = 0;
+    for (Iterator<String> it = timestamps.keySet().iterator(); it.hasNext(); ) {
+      if (!isLive.test(it.next())) {
+        it.remove();
+        swept++;
+      }
+    }
+    return swept;
+  }
+
+  @Override
+  public void setReplicaHeartbeat(String replicaId, long timestamp, long expiredBefore) {
+    heartbeats.put(replicaId, timestamp);
+    heartbeats.values().removeIf(heartbeat -> heartbeat < expiredBefore);
+  }
+
+  @Override
+  public void removeReplica(String replicaId) {
+    heartbeats.remove(replicaId);
+  }
+
+  @Override
+  public List<String> getReplicas(long heartbeatSince) {
+    List<String> replicas = new ArrayList<>();
+    heartbeats.forEach(
+        (replicaId, heartbeat) -> {
+          if (heartbeat >= heartbeatSince) {
+            replicas.add(replicaId);
+          }
+        });
+    replicas.sort(null);
+    return replicas;
+  }
+
+  @Override
+  public long pushOutbox(List<String> entries, long maxDepth) {
+    entries.forEach(outbox::addFirst);
+    outboxDepth.addAndGet(entries.size());
+    if (maxDepth <= 0) {
+      return 0;
+    }
+
+    long dropped = 0;
+    while (outboxDepth.get() > maxDepth && outbox.pollLast() != null) {
+      outboxDepth.decrementAndGet();
+      dropped++;
+    }
+    return dropped;
+  }
+
+  @Override
+  public List<String> claimOutbox(String replicaId, int count) {
+    ConcurrentLinkedDeque<String> claimedEntries =
+        inFlight.computeIfAbsent(replicaId, id -> new ConcurrentLinkedDeque<>());
+    List<String> claimed = new ArrayList<>();
+    while (claimed.size() < count) {
+      String entry = outbox.pollLast();
+      if (entry == null) {
+        break;
+      }
+      outboxDepth.decrementAndGet();
+      claimedEntries.addFirst(entry);
+      claimed.add(entry);
+    }
+    return claimed;
+  }
+
+  @Override
+  public void ackOutbox(String replicaId) {
+    inFlight.remove(replicaId);
+  }
+
+  @Override
+  public long requeueOutbox(String replicaId) {
+    ConcurrentLinkedDeque<String> claimedEntries = inFlight.remove(replicaId);
+    if (claimedEntries == null) {
+      return 0;
+    }
+
+    // The newest claimed entry goes back first, so the oldest one ends up at the tail again
+    long requeued = 0;
+    for (String entry = claimedEntries.pollFirst();
+        entry != null;
+        entry = claimedEntries.pollFirst()) {
+      outbox.addLast(entry);
+      outboxDepth.incrementAndGet();
+      requeued++;
+    }
+    return requeued;
+  }
+
+  @Override
+  public List<String> getOutboxInFlightReplicas() {
+    List<String> replicas = new ArrayList<>();
+    inFlight.forEach(
+        (replicaId, claimedEntries) -> {
+          if (!claimedEntries.isEmpty()) {
+            replicas.add(replicaId);
+          }
+        });
+    replicas.sort(null);
+    return replicas;
+  }
+
+  @Override
+  public long getOutboxDepth() {
+    return outboxDepth.get();
+  }
+
+  @Override
+  public String getOldestOutboxEntry() {
+    return outbox.peekLast();
+  }
+}
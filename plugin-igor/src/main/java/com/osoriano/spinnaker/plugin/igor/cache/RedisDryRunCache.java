@@ -0,0 +1,747 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunCacheConfig;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.commands.JedisCommands;
+import redis.clients.jedis.commands.ScriptingCommands;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+/**
+ * Dry run cache backed by Redis, shared by every replica. Publish timestamps are either kept in one
+ * Redis hash per artifact, or as fields of a few shared hashes, which Redis stores much more
+ * compactly. The number of shared hashes is recorded in Redis, since an artifact's hash depends on
+ * it: a different number is only accepted on startup if the timestamps can be migrated
+ */
+public class RedisDryRunCache implements DryRunCache {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final RedisClientDelegate redisClientDelegate;
+  private final IgorConfigurationProperties igorConfigurationProperties;
+  private final Registry registry;
+  private final DryRunCacheConfig dryRunCacheConfig;
+  private final Id redisCallsId;
+  private final Id migratedId;
+
+  public static final String LAST_PUBLISH_TIMESTAMP = "lastPublishTimestamp";
+  private static final int SCAN_COUNT = 1000;
+  private static final String HASH_SHARDS_FIELD = "hashShards";
+
+  // Sets the timestamp field only if it holds the expected timestamp, where a missing field counts
+  // as "0". Returns 1 if the timestamp was set
+  static final String CLAIM_SCRIPT =
+      "local current = redis.call('HGET', KEYS[1], ARGV[1]) or '0'\n"
+          + "if current ~= ARGV[2] then\n"
+          + "  return 0\n"
+          + "end\n"
+          + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])\n"
+          + "return 1\n";
+
+  private final boolean scripting;
+  private volatile String claimScriptSha;
+
+  public RedisDryRunCache(
+      RedisClientDelegate redisClientDelegate,
+      IgorConfigurationProperties igorConfigurationProperties,
+      Registry registry,
+      DryRunCacheConfig dryRunCacheConfig) {
+    this.redisClientDelegate = redisClientDelegate;
+    this.igorConfigurationProperties = igorConfigurationProperties;
+    this.registry = registry;
+    this.dryRunCacheConfig = dryRunCacheConfig;
+    this.redisCallsId = registry.createId("dryrun.redis.calls");
+    this.migratedId = registry.createId("dryrun.redis.migrated");
+    this.scripting = redisClientDelegate.supportsScripting();
+    if (isHashLayout()) {
+      checkHashShards();
+    }
+  }
+
+  /**
+   * Records the number of shared hashes on first start, and compares it with the recorded one
+   * afterwards. When it changed, every timestamp would be looked up in another hash than the one
+   * holding it, so the timestamps are moved to their new hash if migrate is enabled, and startup
+   * fails otherwise
+   */
+  private void checkHashShards() {
+    String metaKey = makeHashMetaKey();
+    String hashShards = String.valueOf(hashShards());
+    String recorded =
+        redisClientDelegate.withCommandsClient(
+            c -> {
+              String previous = c.hget(metaKey, HASH_SHARDS_FIELD);
+              if (previous == null) {
+                c.hset(metaKey, HASH_SHARDS_FIELD, hashShards);
+              }
+              return previous;
+            });
+    if (recorded == null || recorded.equals(hashShards)) {
+      return;
+    }
+    if (!isMigrating()) {
+      throw new IllegalStateException(
+          "Dry run timestamps are stored in "
+              + recorded
+              + " hashes, but hash-shards is "
+              + hashShards
+              + ". Set hash-shards back to "
+              + recorded
+              + ", or enable migrate to move the timestamps");
+    }
+
+    logger.info("Moving the dry run timestamps from {} to {} hashes", recorded, hashShards);
+    String hashPrefix = makeHashKeyPrefix();
+    redisClientDelegate.withKeyScan(
+        hashPrefix + "*",
+        SCAN_COUNT,
+        page ->
+            page.getResults()
+                .forEach(
+                    key ->
+                        sweepHash(key, key.substring(hashPrefix.length()), artifactName -> true)));
+    redisClientDelegate.withCommandsClient(
+        c -> {
+          c.hset(metaKey, HASH_SHARDS_FIELD, hashShards);
+        });
+  }
+
+  // Sets the artifact's cache value to the timestamp
+  @Override
+  public void setCacheValue(String artifactName, String timestamp) {
+    String key = timestampKey(artifactName);
+    timedRun(
+        "setCacheValue",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  c.hset(key, timestampField(artifactName), timestamp);
+                }));
+  }
+
+  // Returns timestamp for the given artifact
+  @Override
+  public String getCacheValue(String artifactName) {
+    return timed(
+        "getCacheValue",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  String ts = c.hget(timestampKey(artifactName), timestampField(artifactName));
+                  if (ts == null && isMigrating()) {
+                    ts = migrateLegacyTimestamp(c, artifactName);
+                  }
+                  return ts == null ? "0" : ts;
+                }));
+  }
+
+  // Sets the cache value of every artifact in the map, using a single pipelined round trip
+  @Override
+  public void setCacheValues(Map<String, String> timestampByArtifactName) {
+    timedRun(
+        "setCacheValues",
+        () ->
+            redisClientDelegate.withPipeline(
+                p -> {
+                  timestampByArtifactName.forEach(
+                      (artifactName, timestamp) ->
+                          p.hset(
+                              timestampKey(artifactName), timestampField(artifactName), timestamp));
+                  redisClientDelegate.syncPipeline(p);
+                }));
+  }
+
+  // Returns timestamps for the given artifacts, read with a single pipelined round trip
+  @Override
+  public Map<String, String> getCacheValues(Collection<String> artifactNames) {
+    return timed(
+        "getCacheValues",
+        () -> {
+          Map<String, String> result =
+              redisClientDelegate.withPipeline(
+                  p -> {
+                    Map<String, Response<String>> responses = new LinkedHashMap<>();
+                    artifactNames.forEach(
+                        artifactName ->
+                            responses.put(
+                                artifactName,
+                                p.hget(timestampKey(artifactName), timestampField(artifactName))));
+                    redisClientDelegate.syncPipeline(p);
+
+                    // Misses are kept as null while migrating, to be looked up in legacy keys
+                    Map<String, String> timestamps = new LinkedHashMap<>();
+                    responses.forEach(
+                        (artifactName, response) -> {
+                          String ts = response.get();
+                          timestamps.put(artifactName, ts == null && !isMigrating() ? "0" : ts);
+                        });
+                    return timestamps;
+                  });
+
+          if (isMigrating()) {
+            List<String> misses = new ArrayList<>();
+            result.forEach(
+                (artifactName, ts) -> {
+                  if (ts == null) {
+                    misses.add(artifactName);
+                  }
+                });
+            if (!misses.isEmpty()) {
+              result.putAll(migrateLegacyTimestamps(misses));
+            }
+            result.replaceAll((artifactName, ts) -> ts == null ? "0" : ts);
+          }
+          return result;
+        });
+  }
+
+  // A single EVALSHA round trip, retried with a reloaded script if Redis lost it, e.g. on failover
+  @Override
+  public boolean claimPublish(String artifactName, String expectedTimestamp, String timestamp) {
+    requireScripting();
+    List<String> keys = List.of(timestampKey(artifactName));
+    List<String> args = List.of(timestampField(artifactName), expectedTimestamp, timestamp);
+    return timed(
+        "claimPublish",
+        () ->
+            redisClientDelegate.withScriptingClient(
+                c -> {
+                  try {
+                    return isClaimed(c.evalsha(claimScriptSha(c), keys, args));
+                  } catch (JedisNoScriptException e) {
+                    claimScriptSha = null;
+                    return isClaimed(c.evalsha(claimScriptSha(c), keys, args));
+                  }
+                }));
+  }
+
+  // The script is loaded first, so the pipelined EVALSHA calls find it
+  @Override
+  public Set<String> claimPublishes(
+      Map<String, String> expectedTimestampByArtifactName, String timestamp) {
+    requireScripting();
+    if (!redisClientDelegate.supportsMultiKeyPipelines()) {
+      Set<String> claimed = new LinkedHashSet<>();
+      expectedTimestampByArtifactName.forEach(
+          (artifactName, expectedTimestamp) -> {
+            if (claimPublish(artifactName, expectedTimestamp, timestamp)) {
+              claimed.add(artifactName);
+            }
+          });
+      return claimed;
+    }
+
+    return timed(
+        "claimPublishes",
+        () -> {
+          String sha =
+              redisClientDelegate.withScriptingClient(
+                  c -> {
+                    claimScriptSha = c.scriptLoad(CLAIM_SCRIPT);
+                    return claimScriptSha;
+                  });
+          return redisClientDelegate.withMultiKeyPipeline(
+              p -> {
+                Map<String, Response<Object>> responses = new LinkedHashMap<>();
+                expectedTimestampByArtifactName.forEach(
+                    (artifactName, expectedTimestamp) ->
+                        responses.put(
+                            artifactName,
+                            p.evalsha(
+                                sha,
+                                List.of(timestampKey(artifactName)),
+                                List.of(
+                                    timestampField(artifactName), expectedTimestamp, timestamp))));
+                p.sync();
+
+                Set<String> claimed = new LinkedHashSet<>();
+                responses.forEach(
+                    (artifactName, response) -> {
+                      if (isClaimed(response.get())) {
+                        claimed.add(artifactName);
+                      }
+                    });
+                return claimed;
+              });
+        });
+  }
+
+  @Override
+  public boolean supportsClaims() {
+    return scripting;
+  }
+
+  private void requireScripting() {
+    if (!scripting) {
+      throw new UnsupportedOperationException(
+          "Publish claims need a Redis that supports Lua scripting");
+    }
+  }
+
+  private String claimScriptSha(ScriptingCommands c) {
+    String sha = claimScriptSha;
+    if (sha == null) {
+      sha = c.scriptLoad(CLAIM_SCRIPT);
+      claimScriptSha = sha;
+    }
+    return sha;
+  }
+
+  private static boolean isClaimed(Object result) {
+    return Long.valueOf(1).equals(result);
+  }
+
+  // Keys of the layout that is not in use are removed too, unless they are being migrated. Migrated
+  // timestamps are counted by their own metric, not as swept
+  @Override
+  public long sweep(Predicate<String> isLive) {
+    return timed(
+        "sweep",
+        () -> {
+          long swept = sweepLegacyKeys(isLive);
+          String hashPrefix = makeHashKeyPrefix();
+          AtomicLong sweptFields = new AtomicLong();
+          redisClientDelegate.withKeyScan(
+              hashPrefix + "*",
+              SCAN_COUNT,
+              page ->
+                  page.getResults()
+                      .forEach(
+                          key ->
+                              sweptFields.addAndGet(
+                                  sweepHash(key, key.substring(hashPrefix.length()), isLive))));
+          return swept + sweptFields.get();
+        });
+  }
+
+  private long sweepLegacyKeys(Predicate<String> isLive) {
+    String legacyPrefix = makeKey("");
+    AtomicLong swept = new AtomicLong();
+    redisClientDelegate.withKeyScan(
+        legacyPrefix + "*",
+        SCAN_COUNT,
+        page ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  for (String key : page.getResults()) {
+                    String artifactName = key.substring(legacyPrefix.length());
+                    if (!isLive.test(artifactName) || (isHashLayout() && !isMigrating())) {
+                      c.del(key);
+                      swept.incrementAndGet();
+                    } else if (isMigrating()) {
+                      migrateLegacyTimestamp(c, artifactName);
+                      registry.counter(migratedId).increment();
+                    }
+                  }
+                }));
+    return swept.get();
+  }
+
+  // Removes the fields of artifacts that are not live, or the whole hash if it is not in use. Live
+  // artifacts stored in another hash than their own, e.g. by replicas still running with another
+  // number of hashes, are moved to their own hash when migrating, and removed otherwise. Returns
+  // the number of removed fields or keys
+  private long sweepHash(String key, String shard, Predicate<String> isLive) {
+    return redisClientDelegate.withCommandsClient(
+        c -> {
+          if (!isHashLayout()
+              || !shard.matches("\\d{1,9}")
+              || (Integer.parseInt(shard) >= hashShards() && !isMigrating())) {
+            return c.del(key);
+          }
+
+          List<String> stale = new ArrayList<>();
+          Map<String, String> misplaced = new LinkedHashMap<>();
+          String cursor = ScanParams.SCAN_POINTER_START;
+          do {
+            ScanResult<Map.Entry<String, String>> page = c.hscan(key, cursor);
+            for (Map.Entry<String, String> field : page.getResult()) {
+              String artifactName = field.getKey();
+              if (!isLive.test(artifactName)) {
+                stale.add(artifactName);
+              } else if (!key.equals(timestampKey(artifactName))) {
+                misplaced.put(artifactName, field.getValue());
+              }
+            }
+            cursor = page.getCursor();
+          } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+
+          if (isMigrating()) {
+            // A timestamp already in the artifact's own hash was written since, so it is kept
+            misplaced.forEach(
+                (artifactName, ts) ->
+                    c.hsetnx(timestampKey(artifactName), timestampField(artifactName), ts));
+            registry.counter(migratedId).increment(misplaced.size());
+            if (!misplaced.isEmpty()) {
+              c.hdel(key, misplaced.keySet().toArray(new String[0]));
+            }
+          } else {
+            stale.addAll(misplaced.keySet());
+          }
+          return stale.isEmpty() ? 0L : c.hdel(key, stale.toArray(new String[0]));
+        });
+  }
+
+  // Moves the artifact's timestamp from its own hash to the shared hash, unless the shared hash
+  // already has one, which is newer. Returns the timestamp of the artifact's own hash, or null
+  private String migrateLegacyTimestamp(JedisCommands c, String artifactName) {
+    String legacyKey = makeKey(artifactName);
+    String ts = c.hget(legacyKey, LAST_PUBLISH_TIMESTAMP);
+    if (ts != null) {
+      c.hsetnx(timestampKey(artifactName), timestampField(artifactName), ts);
+      c.del(legacyKey);
+    }
+    return ts;
+  }
+
+  // Same as migrateLegacyTimestamp, for many artifacts with two pipelined round trips
+  private Map<String, String> migrateLegacyTimestamps(List<String> artifactNames) {
+    Map<String, String> migrated =
+        redisClientDelegate.withPipeline(
+            p -> {
+              Map<String, Response<String>> responses = new LinkedHashMap<>();
+              artifactNames.forEach(
+                  artifactName ->
+                      responses.put(
+                          artifactName, p.hget(makeKey(artifactName), LAST_PUBLISH_TIMESTAMP)));
+              redisClientDelegate.syncPipeline(p);
+
+              Map<String, String> found = new LinkedHashMap<>();
+              responses.forEach(
+                  (artifactName, response) -> {
+                    if (response.get() != null) {
+                      found.put(artifactName, response.get());
+                    }
+                  });
+              return found;
+            });
+
+    if (!migrated.isEmpty()) {
+      redisClientDelegate.withPipeline(
+          p -> {
+            migrated.forEach(
+                (artifactName, ts) -> {
+                  p.hsetnx(timestampKey(artifactName), timestampField(artifactName), ts);
+                  p.del(makeKey(artifactName));
+                });
+            redisClientDelegate.syncPipeline(p);
+          });
+    }
+    return migrated;
+  }
+
+  // Reservations are fields of a single hash holding the time they expire, so a reservation left
+  // behind by a replica that stopped is ignored once it expired, and overwritten by the next one
+  @Override
+  public void reservePublishes(Collection<String> artifactNames, long reservedUntil) {
+    String key = makeReservationsKey();
+    String until = String.valueOf(reservedUntil);
+    timedRun(
+        "reservePublishes",
+        () ->
+            redisClientDelegate.withPipeline(
+                p -> {
+                  artifactNames.forEach(artifactName -> p.hset(key, artifactName, until));
+                  redisClientDelegate.syncPipeline(p);
+                }));
+  }
+
+  @Override
+  public void releasePublishes(Collection<String> artifactNames) {
+    if (artifactNames.isEmpty()) {
+      return;
+    }
+    timedRun(
+        "releasePublishes",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  c.hdel(makeReservationsKey(), artifactNames.toArray(new String[0]));
+                }));
+  }
+
+  @Override
+  public Set<String> getReservedPublishes(Collection<String> artifactNames, long now) {
+    String key = makeReservationsKey();
+    return timed(
+        "getReservedPublishes",
+        () ->
+            redisClientDelegate.withPipeline(
+                p -> {
+                  Map<String, Response<String>> responses = new LinkedHashMap<>();
+                  artifactNames.forEach(
+                      artifactName -> responses.put(artifactName, p.hget(key, artifactName)));
+                  redisClientDelegate.syncPipeline(p);
+
+                  Set<String> reserved = new LinkedHashSet<>();
+                  responses.forEach(
+                      (artifactName, response) -> {
+                        String until = response.get();
+                        if (until != null && Long.parseLong(until) > now) {
+                          reserved.add(artifactName);
+                        }
+                      });
+                  return reserved;
+                }));
+  }
+
+  // Records that the replica is alive, and drops replicas whose last heartbeat is too old
+  @Override
+  public void setReplicaHeartbeat(String replicaId, long timestamp, long expiredBefore) {
+    String key = makeReplicasKey();
+    timedRun(
+        "setReplicaHeartbeat",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  c.zadd(key, timestamp, replicaId);
+                  c.zremrangeByScore(key, Double.NEGATIVE_INFINITY, expiredBefore - 1);
+                }));
+  }
+
+  // Removes the replica, so other replicas take over its artifacts on their next poll
+  @Override
+  public void removeReplica(String replicaId) {
+    timedRun(
+        "removeReplica",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  c.zrem(makeReplicasKey(), replicaId);
+                }));
+  }
+
+  // Returns the replicas with a heartbeat since the given timestamp, sorted by replica id
+  @Override
+  public List<String> getReplicas(long heartbeatSince) {
+    return timed(
+        "getReplicas",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  List<String> replicas =
+                      new ArrayList<>(
+                          c.zrangeByScore(
+                              makeReplicasKey(), heartbeatSince, Double.POSITIVE_INFINITY));
+                  replicas.sort(null);
+                  return replicas;
+                }));
+  }
+
+  // Adds the entries to the head of the outbox, and returns the number of old entries dropped to
+  // keep the outbox within its maximum depth. The outbox is not capped when maxDepth is 0
+  @Override
+  public long pushOutbox(List<String> entries, long maxDepth) {
+    String key = makeOutboxKey();
+    return timed(
+        "pushOutbox",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  long depth = c.lpush(key, entries.toArray(new String[0]));
+                  if (maxDepth <= 0 || depth <= maxDepth) {
+                    return 0L;
+                  }
+                  c.ltrim(key, 0, maxDepth - 1);
+                  return depth - maxDepth;
+                }));
+  }
+
+  // Moves up to count of the oldest outbox entries to the head of the replica's in flight list, one
+  // entry at a time. Each move is atomic, so an entry is always either waiting or in flight
+  @Override
+  public List<String> claimOutbox(String replicaId, int count) {
+    String key = makeOutboxKey();
+    String inFlightKey = makeOutboxInFlightKey(replicaId);
+    return timed(
+        "claimOutbox",
+        () ->
+            redisClientDelegate.withMultiClient(
+                c -> {
+                  List<String> claimed = new ArrayList<>();
+                  while (claimed.size() < count) {
+                    String entry = c.rpoplpush(key, inFlightKey);
+                    if (entry == null) {
+                      break;
+                    }
+                    claimed.add(entry);
+                  }
+                  return claimed;
+                }));
+  }
+
+  // Drops the replica's in flight entries once they were delivered
+  @Override
+  public void ackOutbox(String replicaId) {
+    timedRun(
+        "ackOutbox",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  c.del(makeOutboxInFlightKey(replicaId));
+                }));
+  }
+
+  // Moves the replica's in flight entries back to the tail of the outbox, so they are claimed again
+  // before newer entries, in their original order. The in flight list holds the newest claimed
+  // entry first, so appending it as is leaves the oldest entry at the tail. The in flight list is
+  // only dropped once the entries were appended, so a failure in between delivers them twice rather
+  // than losing them
+  @Override
+  public long requeueOutbox(String replicaId) {
+    String key = makeOutboxKey();
+    String inFlightKey = makeOutboxInFlightKey(replicaId);
+    return timed(
+        "requeueOutbox",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  List<String> entries = c.lrange(inFlightKey, 0, -1);
+                  if (entries.isEmpty()) {
+                    return 0L;
+                  }
+                  c.rpush(key, entries.toArray(new String[0]));
+                  c.del(inFlightKey);
+                  return (long) entries.size();
+                }));
+  }
+
+  // Scans the in flight lists, which only exist while they hold entries
+  @Override
+  public List<String> getOutboxInFlightReplicas() {
+    String inFlightPrefix = makeOutboxInFlightKey("");
+    return timed(
+        "getOutboxInFlightReplicas",
+        () -> {
+          List<String> replicas = new ArrayList<>();
+          redisClientDelegate.withKeyScan(
+              inFlightPrefix + "*",
+              SCAN_COUNT,
+              page ->
+                  page.getResults()
+                      .forEach(key -> replicas.add(key.substring(inFlightPrefix.length()))));
+          replicas.sort(null);
+          return replicas;
+        });
+  }
+
+  // Returns the number of entries waiting in the outbox
+  @Override
+  public long getOutboxDepth() {
+    return timed(
+        "getOutboxDepth",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  return c.llen(makeOutboxKey());
+                }));
+  }
+
+  // Returns the oldest entry waiting in the outbox, or null if the outbox is empty
+  @Override
+  public String getOldestOutboxEntry() {
+    return timed(
+        "getOldestOutboxEntry",
+        () ->
+            redisClientDelegate.withCommandsClient(
+                c -> {
+                  return c.lindex(makeOutboxKey(), -1);
+                }));
+  }
+
+  // Runs the Redis call, timing it by operation and outcome
+  private <T> T timed(String operation, Supplier<T> call) {
+    long start = registry.clock().monotonicTime();
+    String outcome = "failure";
+    try {
+      T result = call.get();
+      outcome = "success";
+      return result;
+    } finally {
+      registry
+          .timer(redisCallsId.withTags("operation", operation, "outcome", outcome))
+          .record(registry.clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void timedRun(String operation, Runnable call) {
+    timed(
+        operation,
+        () -> {
+          call.run();
+          return null;
+        });
+  }
+
+  private String makeOutboxKey() {
+    return String.join(":", prefix(), "dryrun-outbox");
+  }
+
+  private String makeOutboxInFlightKey(String replicaId) {
+    return String.join(":", makeOutboxKey(), "in-flight", replicaId);
+  }
+
+  private String makeReservationsKey() {
+    return String.join(":", prefix(), "dryrun-reservations");
+  }
+
+  private String makeReplicasKey() {
+    return String.join(":", prefix(), "dryrun-replicas");
+  }
+
+  private boolean isHashLayout() {
+    return dryRunCacheConfig.getLayoutOrDefault() == DryRunCacheConfig.Layout.HASH;
+  }
+
+  private boolean isMigrating() {
+    return isHashLayout() && dryRunCacheConfig.isMigrate();
+  }
+
+  private int hashShards() {
+    return dryRunCacheConfig.getHashShardsOrDefault();
+  }
+
+  private String timestampKey(String artifactName) {
+    if (isHashLayout()) {
+      return makeHashKeyPrefix() + Math.floorMod(artifactName.hashCode(), hashShards());
+    }
+    return makeKey(artifactName);
+  }
+
+  private String timestampField(String artifactName) {
+    return isHashLayout() ? artifactName : LAST_PUBLISH_TIMESTAMP;
+  }
+
+  private String makeHashMetaKey() {
+    return String.join(":", prefix(), "dryrun-timestamps-meta");
+  }
+
+  private String makeHashKeyPrefix() {
+    return String.join(":", prefix(), "dryrun-timestamps", "");
+  }
+
+  private String makeKey(String artifactName) {
+    return String.join(":", prefix(), "dryrun", artifactName);
+  }
+
+  private String prefix() {
+    return igorConfigurationProperties.getSpinnaker().getJedis().getPrefix();
+  }
+}
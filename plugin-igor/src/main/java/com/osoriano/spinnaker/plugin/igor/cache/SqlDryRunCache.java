@@ -0,0 +1,638 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import javax.sql.DataSource;
+
+/**
+ * Dry run cache stored in the SQL database of Igor deployments that run on SQL, shared by every
+ * replica. Only portable SQL is used, so it works on MySQL, PostgreSQL and H2. The tables are
+ * created on startup if they do not exist yet
+ */
+public class SqlDryRunCache implements DryRunCache {
+
+  static final String TIMESTAMPS_TABLE = "dryrun_timestamps";
+  static final String RESERVATIONS_TABLE = "dryrun_reservations";
+  static final String REPLICAS_TABLE = "dryrun_replicas";
+  static final String OUTBOX_TABLE = "dryrun_outbox";
+
+  // Maximum number of parameters in a single IN clause
+  private static final int IN_CLAUSE_SIZE = 1000;
+
+  // Number of artifact names read at once by the sweep
+  private static final int SWEEP_PAGE_SIZE = 1000;
+
+  private final DataSource dataSource;
+
+  // Orders the outbox entries appended by this replica, and roughly across replicas
+  private final AtomicLong outboxPosition = new AtomicLong();
+
+  @FunctionalInterface
+  private interface SqlCall<T> {
+    T call(Connection connection) throws SQLException;
+  }
+
+  public SqlDryRunCache(DataSource dataSource) {
+    this.dataSource = dataSource;
+    createTables();
+  }
+
+  @Override
+  public void setCacheValue(String artifactName, String timestamp) {
+    setCacheValues(Map.of(artifactName, timestamp));
+  }
+
+  @Override
+  public String getCacheValue(String artifactName) {
+    return getCacheValues(List.of(artifactName)).get(artifactName);
+  }
+
+  // Updates the existing rows in one batch, then inserts the missing ones in another
+  @Override
+  public void setCacheValues(Map<String, String> timestampByArtifactName) {
+    if (timestampByArtifactName.isEmpty()) {
+      return;
+    }
+    run(
+        connection -> {
+          upsert(
+              connection,
+              TIMESTAMPS_TABLE,
+              "artifact_name",
+              "last_publish_timestamp",
+              timestampByArtifactName);
+          return null;
+        });
+  }
+
+  @Override
+  public Map<String, String> getCacheValues(Collection<String> artifactNames) {
+    Map<String, String> result = new LinkedHashMap<>();
+    artifactNames.forEach(artifactName -> result.put(artifactName, "0"));
+    List<String> names = new ArrayList<>(result.keySet());
+
+    return run(
+        connection -> {
+          for (int from = 0; from < names.size(); from += IN_CLAUSE_SIZE) {
+            List<String> chunk = names.subList(from, Math.min(from + IN_CLAUSE_SIZE, names.size()));
+            String sql =
+                "SELECT artifact_name, last_publish_timestamp FROM "
+                    + TIMESTAMPS_TABLE
+                    + " WHERE artifact_name IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?"))
+                    + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+              for (int i = 0; i < chunk.size(); i++) {
+                statement.setString(i + 1, chunk.get(i));
+              }
+              try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                  result.put(rs.getString(1), String.valueOf(rs.getLong(2)));
+                }
+              }
+            }
+          }
+          return result;
+        });
+  }
+
+  // Claims are a conditional update, or an insert that does nothing if another replica inserted
+  // first
+  @Override
+  public boolean claimPublish(String artifactName, String expectedTimestamp, String timestamp) {
+    return run(connection -> claimPublish(connection, artifactName, expectedTimestamp, timestamp));
+  }
+
+  @Override
+  public Set<String> claimPublishes(
+      Map<String, String> expectedTimestampByArtifactName, String timestamp) {
+    return run(
+        connection -> {
+          Set<String> claimed = new LinkedHashSet<>();
+          for (Map.Entry<String, String> entry : expectedTimestampByArtifactName.entrySet()) {
+            if (claimPublish(connection, entry.getKey(), entry.getValue(), timestamp)) {
+              claimed.add(entry.getKey());
+            }
+          }
+          return claimed;
+        });
+  }
+
+  private boolean claimPublish(
+      Connection connection, String artifactName, String expectedTimestamp, String timestamp)
+      throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "UPDATE "
+                + TIMESTAMPS_TABLE
+                + " SET last_publish_timestamp = ?"
+                + " WHERE artifact_name = ? AND last_publish_timestamp = ?")) {
+      statement.setLong(1, Long.parseLong(timestamp));
+      statement.setString(2, artifactName);
+      statement.setLong(3, Long.parseLong(expectedTimestamp));
+      if (statement.executeUpdate() == 1) {
+        return true;
+      }
+    }
+    if (!"0".equals(expectedTimestamp)) {
+      return false;
+    }
+
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            insertIfAbsentSql(TIMESTAMPS_TABLE, "artifact_name", "last_publish_timestamp"))) {
+      bindInsertIfAbsent(statement, Map.entry(artifactName, timestamp));
+      return statement.executeUpdate() == 1;
+    } catch (SQLException e) {
+      // Another replica inserted between the existence check and the insert
+      if (isDuplicateKey(e)) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  // Reads the artifact names a page at a time, in name order, and deletes the stale ones of a page
+  // before reading the next one
+  @Override
+  public long sweep(Predicate<String> isLive) {
+    return run(
+        connection -> {
+          long swept = 0;
+          String after = "";
+          while (true) {
+            List<String> stale = new ArrayList<>();
+            int read = 0;
+            try (PreparedStatement statement =
+                connection.prepareStatement(
+                    "SELECT artifact_name FROM "
+                        + TIMESTAMPS_TABLE
+                        + " WHERE artifact_name > ? ORDER BY artifact_name")) {
+              statement.setMaxRows(SWEEP_PAGE_SIZE);
+              statement.setString(1, after);
+              try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                  after = rs.getString(1);
+                  read++;
+                  if (!isLive.test(after)) {
+                    stale.add(after);
+                  }
+                }
+              }
+            }
+
+            if (!stale.isEmpty()) {
+              try (PreparedStatement statement =
+                  connection.prepareStatement(
+                      "DELETE FROM " + TIMESTAMPS_TABLE + " WHERE artifact_name = ?")) {
+                for (String artifactName : stale) {
+                  statement.setString(1, artifactName);
+                  statement.addBatch();
+                }
+                for (int count : statement.executeBatch()) {
+                  swept += Math.max(count, 0);
+                }
+              }
+            }
+            if (read < SWEEP_PAGE_SIZE) {
+              return swept;
+            }
+          }
+        });
+  }
+
+  @Override
+  public void reservePublishes(Collection<String> artifactNames, long reservedUntil) {
+    if (artifactNames.isEmpty()) {
+      return;
+    }
+    Map<String, String> reservations = new LinkedHashMap<>();
+    artifactNames.forEach(
+        artifactName -> reservations.put(artifactName, String.valueOf(reservedUntil)));
+    run(
+        connection -> {
+          upsert(connection, RESERVATIONS_TABLE, "artifact_name", "reserved_until", reservations);
+          return null;
+        });
+  }
+
+  @Override
+  public void releasePublishes(Collection<String> artifactNames) {
+    if (artifactNames.isEmpty()) {
+      return;
+    }
+    run(
+        connection -> {
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "DELETE FROM " + RESERVATIONS_TABLE + " WHERE artifact_name = ?")) {
+            for (String artifactName : artifactNames) {
+              statement.setString(1, artifactName);
+              statement.addBatch();
+            }
+            statement.executeBatch();
+          }
+          return null;
+        });
+  }
+
+  @Override
+  public Set<String> getReservedPublishes(Collection<String> artifactNames, long now) {
+    List<String> names = new ArrayList<>(new LinkedHashSet<>(artifactNames));
+    return run(
+        connection -> {
+          Set<String> reserved = new LinkedHashSet<>();
+          for (int from = 0; from < names.size(); from += IN_CLAUSE_SIZE) {
+            List<String> chunk = names.subList(from, Math.min(from + IN_CLAUSE_SIZE, names.size()));
+            String sql =
+                "SELECT artifact_name FROM "
+                    + RESERVATIONS_TABLE
+                    + " WHERE reserved_until > ? AND artifact_name IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?"))
+                    + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+              statement.setLong(1, now);
+              for (int i = 0; i < chunk.size(); i++) {
+                statement.setString(i + 2, chunk.get(i));
+              }
+              try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                  reserved.add(rs.getString(1));
+                }
+              }
+            }
+          }
+          return reserved;
+        });
+  }
+
+  @Override
+  public void setReplicaHeartbeat(String replicaId, long timestamp, long expiredBefore) {
+    run(
+        connection -> {
+          upsert(
+              connection,
+              REPLICAS_TABLE,
+              "replica_id",
+              "heartbeat",
+              Map.of(replicaId, String.valueOf(timestamp)));
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "DELETE FROM " + REPLICAS_TABLE + " WHERE heartbeat < ?")) {
+            statement.setLong(1, expiredBefore);
+            statement.executeUpdate();
+          }
+          return null;
+        });
+  }
+
+  @Override
+  public void removeReplica(String replicaId) {
+    update("DELETE FROM " + REPLICAS_TABLE + " WHERE replica_id = ?", replicaId);
+  }
+
+  @Override
+  public List<String> getReplicas(long heartbeatSince) {
+    return run(
+        connection -> {
+          List<String> replicas = new ArrayList<>();
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "SELECT replica_id FROM "
+                      + REPLICAS_TABLE
+                      + " WHERE heartbeat >= ? ORDER BY replica_id")) {
+            statement.setLong(1, heartbeatSince);
+            try (ResultSet rs = statement.executeQuery()) {
+              while (rs.next()) {
+                replicas.add(rs.getString(1));
+              }
+            }
+          }
+          return replicas;
+        });
+  }
+
+  @Override
+  public long pushOutbox(List<String> entries, long maxDepth) {
+    if (entries.isEmpty()) {
+      return 0;
+    }
+    return run(
+        connection -> {
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "INSERT INTO "
+                      + OUTBOX_TABLE
+                      + " (id, queue_position, entry) VALUES (?, ?, ?)")) {
+            for (String entry : entries) {
+              statement.setString(1, UUID.randomUUID().toString());
+              statement.setLong(2, nextOutboxPosition());
+              statement.setString(3, entry);
+              statement.addBatch();
+            }
+            statement.executeBatch();
+          }
+
+          long excess = maxDepth <= 0 ? 0 : getOutboxDepth(connection) - maxDepth;
+          if (excess <= 0) {
+            return 0L;
+          }
+          List<String> oldest = selectOldestOutboxIds(connection, (int) excess);
+          return deleteOutboxIds(connection, oldest);
+        });
+  }
+
+  // Claims entries by setting their owner, which only succeeds for entries no other replica claimed
+  // in the meantime
+  @Override
+  public List<String> claimOutbox(String replicaId, int count) {
+    return run(
+        connection -> {
+          Map<String, String> candidates = new LinkedHashMap<>();
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "SELECT id, entry FROM "
+                      + OUTBOX_TABLE
+                      + " WHERE claimed_by IS NULL ORDER BY queue_position")) {
+            statement.setMaxRows(count);
+            try (ResultSet rs = statement.executeQuery()) {
+              while (rs.next()) {
+                candidates.put(rs.getString(1), rs.getString(2));
+              }
+            }
+          }
+
+          List<String> claimed = new ArrayList<>();
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "UPDATE "
+                      + OUTBOX_TABLE
+                      + " SET claimed_by = ? WHERE id = ? AND claimed_by IS NULL")) {
+            for (Map.Entry<String, String> candidate : candidates.entrySet()) {
+              statement.setString(1, replicaId);
+              statement.setString(2, candidate.getKey());
+              if (statement.executeUpdate() == 1) {
+                claimed.add(candidate.getValue());
+              }
+            }
+          }
+          return claimed;
+        });
+  }
+
+  @Override
+  public void ackOutbox(String replicaId) {
+    update("DELETE FROM " + OUTBOX_TABLE + " WHERE claimed_by = ?", replicaId);
+  }
+
+  @Override
+  public long requeueOutbox(String replicaId) {
+    return update(
+        "UPDATE " + OUTBOX_TABLE + " SET claimed_by = NULL WHERE claimed_by = ?", replicaId);
+  }
+
+  @Override
+  public List<String> getOutboxInFlightReplicas() {
+    return run(
+        connection -> {
+          List<String> replicas = new ArrayList<>();
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "SELECT DISTINCT claimed_by FROM "
+                      + OUTBOX_TABLE
+                      + " WHERE claimed_by IS NOT NULL ORDER BY claimed_by")) {
+            try (ResultSet rs = statement.executeQuery()) {
+              while (rs.next()) {
+                replicas.add(rs.getString(1));
+              }
+            }
+          }
+          return replicas;
+        });
+  }
+
+  @Override
+  public long getOutboxDepth() {
+    return run(this::getOutboxDepth);
+  }
+
+  @Override
+  public String getOldestOutboxEntry() {
+    return run(
+        connection -> {
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "SELECT entry FROM "
+                      + OUTBOX_TABLE
+                      + " WHERE claimed_by IS NULL ORDER BY queue_position")) {
+            statement.setMaxRows(1);
+            try (ResultSet rs = statement.executeQuery()) {
+              return rs.next() ? rs.getString(1) : null;
+            }
+          }
+        });
+  }
+
+  private void createTables() {
+    run(
+        connection -> {
+          try (Statement statement = connection.createStatement()) {
+            statement.execute(
+                "CREATE TABLE IF NOT EXISTS "
+                    + TIMESTAMPS_TABLE
+                    + " (artifact_name VARCHAR(255) NOT NULL PRIMARY KEY,"
+                    + " last_publish_timestamp BIGINT NOT NULL)");
+            statement.execute(
+                "CREATE TABLE IF NOT EXISTS "
+                    + RESERVATIONS_TABLE
+                    + " (artifact_name VARCHAR(255) NOT NULL PRIMARY KEY,"
+                    + " reserved_until BIGINT NOT NULL)");
+            statement.execute(
+                "CREATE TABLE IF NOT EXISTS "
+                    + REPLICAS_TABLE
+                    + " (replica_id VARCHAR(255) NOT NULL PRIMARY KEY,"
+                    + " heartbeat BIGINT NOT NULL)");
+            statement.execute(
+                "CREATE TABLE IF NOT EXISTS "
+                    + OUTBOX_TABLE
+                    + " (id VARCHAR(36) NOT NULL PRIMARY KEY,"
+                    + " queue_position BIGINT NOT NULL,"
+                    + " entry VARCHAR(512) NOT NULL,"
+                    + " claimed_by VARCHAR(255))");
+          }
+          return null;
+        });
+  }
+
+  // Updates the rows of the keys in the map, and inserts the ones that are missing. A row inserted
+  // by another replica in the meantime is updated instead
+  private void upsert(
+      Connection connection,
+      String table,
+      String keyColumn,
+      String valueColumn,
+      Map<String, String> values)
+      throws SQLException {
+    String updateSql =
+        "UPDATE " + table + " SET " + valueColumn + " = ? WHERE " + keyColumn + " = ?";
+    List<Map.Entry<String, String>> entries = new ArrayList<>(values.entrySet());
+    List<Map.Entry<String, String>> missing = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+      for (Map.Entry<String, String> entry : entries) {
+        bindValueAndKey(statement, entry);
+        statement.addBatch();
+      }
+      int[] counts = statement.executeBatch();
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          missing.add(entries.get(i));
+        }
+      }
+    }
+
+    if (missing.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement insert =
+            connection.prepareStatement(insertIfAbsentSql(table, keyColumn, valueColumn));
+        PreparedStatement update = connection.prepareStatement(updateSql)) {
+      for (Map.Entry<String, String> entry : missing) {
+        bindInsertIfAbsent(insert, entry);
+        boolean inserted;
+        try {
+          inserted = insert.executeUpdate() == 1;
+        } catch (SQLException e) {
+          // Another replica inserted between the existence check and the insert
+          if (!isDuplicateKey(e)) {
+            throw e;
+          }
+          inserted = false;
+        }
+        if (!inserted) {
+          bindValueAndKey(update, entry);
+          update.executeUpdate();
+        }
+      }
+    }
+  }
+
+  /**
+   * Inserts a row only if its key is not in the table yet, so a row inserted by another replica is
+   * not a constraint violation, which would abort the transaction on PostgreSQL. Only replicas
+   * inserting at the very same time still hit the primary key, and since every statement commits on
+   * its own, that failure does not affect the statements after it. The statement takes the value
+   * first and the key second, like the update
+   */
+  private static String insertIfAbsentSql(String table, String keyColumn, String valueColumn) {
+    return "INSERT INTO "
+        + table
+        + " ("
+        + valueColumn
+        + ", "
+        + keyColumn
+        + ") SELECT ?, ? FROM (SELECT 1 AS one) single_row WHERE NOT EXISTS (SELECT 1 FROM "
+        + table
+        + " WHERE "
+        + keyColumn
+        + " = ?)";
+  }
+
+  private static void bindValueAndKey(PreparedStatement statement, Map.Entry<String, String> entry)
+      throws SQLException {
+    statement.setLong(1, Long.parseLong(entry.getValue()));
+    statement.setString(2, entry.getKey());
+  }
+
+  private static void bindInsertIfAbsent(
+      PreparedStatement statement, Map.Entry<String, String> entry) throws SQLException {
+    bindValueAndKey(statement, entry);
+    statement.setString(3, entry.getKey());
+  }
+
+  // Integrity constraint violations share the 23 SQL state class on every database
+  private static boolean isDuplicateKey(SQLException e) {
+    return e.getSQLState() != null && e.getSQLState().startsWith("23");
+  }
+
+  private long getOutboxDepth(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet rs =
+            statement.executeQuery(
+                "SELECT COUNT(*) FROM " + OUTBOX_TABLE + " WHERE claimed_by IS NULL")) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
+  private List<String> selectOldestOutboxIds(Connection connection, int count) throws SQLException {
+    List<String> ids = new ArrayList<>();
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "SELECT id FROM "
+                + OUTBOX_TABLE
+                + " WHERE claimed_by IS NULL ORDER BY queue_position")) {
+      statement.setMaxRows(count);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          ids.add(rs.getString(1));
+        }
+      }
+    }
+    return ids;
+  }
+
+  private long deleteOutboxIds(Connection connection, List<String> ids) throws SQLException {
+    long deleted = 0;
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "DELETE FROM " + OUTBOX_TABLE + " WHERE id = ? AND claimed_by IS NULL")) {
+      for (String id : ids) {
+        statement.setString(1, id);
+        deleted += statement.executeUpdate();
+      }
+    }
+    return deleted;
+  }
+
+  // Positions follow the wall clock, so entries appended by different replicas are roughly ordered
+  private long nextOutboxPosition() {
+    long now = System.currentTimeMillis() * 1000;
+    return outboxPosition.updateAndGet(previous -> Math.max(previous + 1, now));
+  }
+
+  private long update(String sql, String parameter) {
+    return run(
+        connection -> {
+          try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, parameter);
+            return (long) statement.executeUpdate();
+          }
+        });
+  }
+
+  // Every statement commits on its own, so a failed statement never rolls back the ones before it
+  private <T> T run(SqlCall<T> call) {
+    try (Connection connection = dataSource.getConnection()) {
+      if (!connection.getAutoCommit()) {
+        connection.setAutoCommit(true);
+      }
+      return call.call(connection);
+    } catch (SQLException e) {
+      throw new IllegalStateException("Dry run cache SQL call failed", e);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+/**
+ * Synthetic CI master whose jobs build on a fixed schedule, served in-process instead of by a real
+ * Jenkins, so Igor's build polling can be exercised at scale
+ */
+@ConstructorBinding
+@ConfigurationProperties(DryRunBuildConfig.PREFIX)
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunBuildConfig {
+  public static final String PREFIX = DryRunPollingConfig.PREFIX + ".builds";
+
+  /** Name the synthetic master is registered with in Igor. Defaults to "dryrun-ci" */
+  private final String master;
+
+  /** Number of synthetic jobs. Defaults to 1000 */
+  private final int numberOfJobs;
+
+  /** Prefix of the job names, followed by the job index. Defaults to "dryrun-job-" */
+  private final String jobPrefix;
+
+  /** Length the job index is padded to with zeros */
+  private final int indexPadLength;
+
+  /** Time between the starts of two builds of a job. Defaults to 5 minutes */
+  private final Duration buildInterval;
+
+  /**
+   * Time a build runs before it completes. Defaults to 1 minute, and is capped to the build
+   * interval so a job runs one build at a time
+   */
+  private final Duration buildDuration;
+
+  /** Share of the builds that fail, from 0 to 1. No build fails when not set */
+  private final double failureRate;
+
+  /**
+   * Number of recent builds listed for a job. Builds that completed between two polls are only sent
+   * to Echo up to this number. Defaults to 20
+   */
+  private final int buildHistory;
+
+  /** How long the last build numbers stay in Igor's build cache. Defaults to 1 day */
+  private final Duration cacheTtl;
+
+  public String getMasterOrDefault() {
+    return master != null ? master : "dryrun-ci";
+  }
+
+  public int getNumberOfJobsOrDefault() {
+    return numberOfJobs > 0 ? numberOfJobs : 1000;
+  }
+
+  public String getJobPrefixOrDefault() {
+    return jobPrefix != null ? jobPrefix : "dryrun-job-";
+  }
+
+  public Duration getBuildIntervalOrDefault() {
+    return buildInterval != null ? buildInterval : Duration.ofMinutes(5);
+  }
+
+  public Duration getBuildDurationOrDefault() {
+    Duration duration = buildDuration != null ? buildDuration : Duration.ofMinutes(1);
+    return duration.compareTo(getBuildIntervalOrDefault()) < 0
+        ? duration
+        : getBuildIntervalOrDefault();
+  }
+
+  public int getBuildHistoryOrDefault() {
+    return buildHistory > 0 ? buildHistory : 20;
+  }
+
+  public Duration getCacheTtlOrDefault() {
+    return cacheTtl != null ? cacheTtl : Duration.ofDays(1);
+  }
+}
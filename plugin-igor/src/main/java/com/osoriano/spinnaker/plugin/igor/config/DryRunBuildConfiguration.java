@@ -0,0 +1,28 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import com.netflix.spinnaker.igor.service.BuildServices;
+import com.osoriano.spinnaker.plugin.igor.builds.DryRunBuildService;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the synthetic CI master with Igor's build services, so it is listed and queried like
+ * the configured Jenkins masters
+ */
+@Configuration
+@ConditionalOnProperty(
+    "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor.builds.enabled")
+@EnableConfigurationProperties(DryRunBuildConfig.class)
+public class DryRunBuildConfiguration {
+
+  @Bean
+  public DryRunBuildService dryRunBuildService(
+      DryRunBuildConfig dryRunBuildConfig, BuildServices buildServices) {
+    DryRunBuildService buildService = new DryRunBuildService(dryRunBuildConfig);
+    buildServices.addServices(Map.of(buildService.getName(), buildService));
+    return buildService;
+  }
+}
@@ -0,0 +1,42 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.RedisDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.SqlDryRunCache;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Creates the dry run cache of the configured backend */
+@Configuration
+@EnableConfigurationProperties(DryRunCacheConfig.class)
+public class DryRunCacheBackendConfiguration {
+
+  @Bean
+  public DryRunCache dryRunCache(
+      DryRunCacheConfig dryRunCacheConfig,
+      IgorConfigurationProperties igorConfigurationProperties,
+      Registry registry,
+      ObjectProvider<RedisClientDelegate> redisClientDelegate,
+      ObjectProvider<DataSource> dataSource) {
+    switch (dryRunCacheConfig.getBackendOrDefault()) {
+      case MEMORY:
+        return new InMemoryDryRunCache();
+      case SQL:
+        // Igor's own data source, available when Igor runs on SQL
+        return new SqlDryRunCache(dataSource.getObject());
+      default:
+        return new RedisDryRunCache(
+            redisClientDelegate.getObject(),
+            igorConfigurationProperties,
+            registry,
+            dryRunCacheConfig);
+    }
+  }
+}
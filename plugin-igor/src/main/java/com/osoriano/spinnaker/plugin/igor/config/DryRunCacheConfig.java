@@ -0,0 +1,64 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+@ConstructorBinding
+@ConfigurationProperties(
+    "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor.cache")
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunCacheConfig {
+  public enum Backend {
+    /** Redis, shared by every replica */
+    REDIS,
+    /** The memory of a single Igor, for load tests that run one replica without Redis */
+    MEMORY,
+    /** The SQL database of Igor deployments that run on SQL, shared by every replica */
+    SQL
+  }
+
+  public enum Layout {
+    /** One Redis hash per artifact, holding its last publish timestamp */
+    PER_ARTIFACT,
+    /** Timestamps are fields of a few shared hashes, keyed by artifact name */
+    HASH
+  }
+
+  /** Where the dry run state is stored. Defaults to Redis */
+  private final Backend backend;
+
+  /** How publish timestamps are stored in Redis. Defaults to one hash per artifact */
+  private final Layout layout;
+
+  /**
+   * Number of hashes the timestamps are spread over in the hash layout. Hashes of up to about a
+   * hundred artifacts keep Redis' compact encoding, so numberOfUniqueArtifacts / 100 is a good
+   * value. The number in use is recorded in Redis, and changing it needs migrate, otherwise startup
+   * fails. Defaults to a single hash
+   */
+  private final int hashShards;
+
+  /**
+   * When enabled with the hash layout, timestamps still stored one hash per artifact are moved to
+   * the shared hashes, when they are read and when the stale keys are swept. Timestamps of another
+   * number of hashes are moved to their new hash on startup, and when the stale keys are swept
+   */
+  private final boolean migrate;
+
+  public Backend getBackendOrDefault() {
+    return backend == null ? Backend.REDIS : backend;
+  }
+
+  public Layout getLayoutOrDefault() {
+    return layout == null ? Layout.PER_ARTIFACT : layout;
+  }
+
+  public int getHashShardsOrDefault() {
+    return Math.max(hashShards, 1);
+  }
+}
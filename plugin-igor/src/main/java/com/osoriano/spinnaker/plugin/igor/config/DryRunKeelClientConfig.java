@@ -0,0 +1,55 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * HTTP client that sends artifact events to Keel asynchronously, over a pool of keep-alive
+ * connections, instead of through Igor's blocking KeelService
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunKeelClientConfig {
+
+  /** Keel's base URL, usually the same as services.keel.base-url */
+  private final String baseUrl;
+
+  /** Maximum number of requests in flight to Keel at once. Defaults to 64 */
+  private final int maxInFlight;
+
+  /**
+   * Maximum number of events waiting for Keel, in flight or queued. Artifacts of events over it are
+   * held back until a later poll. Defaults to 10000
+   */
+  private final int maxPending;
+
+  /** Maximum number of idle connections kept alive in the pool. Defaults to maxInFlight */
+  private final int maxIdleConnections;
+
+  /** How long an idle connection is kept alive. Defaults to 5 minutes */
+  private final Duration keepAlive;
+
+  /** Time limit for connecting to Keel. Defaults to 5 seconds */
+  private final Duration connectTimeout;
+
+  /**
+   * Time limit of a whole request, from connecting to reading Keel's response. Defaults to 30
+   * seconds
+   */
+  private final Duration requestTimeout;
+
+  public int getMaxInFlightOrDefault() {
+    return maxInFlight > 0 ? maxInFlight : 64;
+  }
+
+  public int getMaxPendingOrDefault() {
+    return maxPending > 0 ? maxPending : 10000;
+  }
+
+  public int getMaxIdleConnectionsOrDefault() {
+    return maxIdleConnections > 0 ? maxIdleConnections : getMaxInFlightOrDefault();
+  }
+}
@@ -0,0 +1,48 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Shape of the publish rate of a publisher group over time. Rates are multiples of the group's
+ * rate, i.e. a rate of 1 publishes each artifact once per publish interval
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunLoadProfileConfig {
+  public enum Type {
+    /** Publishes each artifact once per publish interval */
+    CONSTANT,
+    /** Ramps the rate linearly from the base rate to the peak rate over the period */
+    RAMP,
+    /** Publishes at the peak rate for the burst duration at the start of every period */
+    BURST,
+    /** Publishes with exponentially distributed gaps, averaging the publish interval */
+    POISSON,
+    /** Follows a day compressed into the period, from the base rate at night to the peak rate */
+    DIURNAL
+  }
+
+  private final Type type;
+
+  /**
+   * Length of the ramp, time between the start of two bursts, or length of a compressed day. Must
+   * be positive for those profiles
+   */
+  private final Duration period;
+
+  /** Length of each burst. Must be positive for bursts */
+  private final Duration burstDuration;
+
+  /** Rate at the start of a ramp, outside of bursts, or at night. Defaults to 0 */
+  private final Double baseRate;
+
+  /** Rate at the end of a ramp, during bursts, or at midday. Defaults to 1 */
+  private final Double peakRate;
+
+  /** Seed of the Poisson arrivals, so load tests can be repeated */
+  private final long seed;
+}
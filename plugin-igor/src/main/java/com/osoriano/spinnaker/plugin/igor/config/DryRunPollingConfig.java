@@ -1,19 +1,165 @@
 package com.osoriano.spinnaker.plugin.igor.config;
 
 import java.time.Duration;
+import java.util.Map;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
 
 @ConstructorBinding
-@ConfigurationProperties(
-    "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor")
+@ConfigurationProperties(DryRunPollingConfig.PREFIX)
 @Data
+@Builder
 @AllArgsConstructor
 public class DryRunPollingConfig {
+  public static final String PREFIX =
+      "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor";
+  public static final String DEFAULT_PUBLISHER_GROUP = "default";
+
   private final Duration publishInterval;
   private final int numberOfUniqueArtifacts;
   private final String artifactPrefix;
   private final int indexPadLength;
+
+  /**
+   * Named groups of artifacts, each with its own prefix, count, pad length and publish interval.
+   * When no group is configured, the top level settings are used as a single "default" group
+   */
+  private final Map<String, DryRunPublisherGroupConfig> publisherGroups;
+
+  /**
+   * When enabled, each poll reads every artifact's publish timestamp in a single pipelined pass and
+   * commits all due artifacts as one delta, instead of polling each artifact separately
+   */
+  private final boolean bulkPoll;
+
+  /**
+   * Maximum number of artifacts sent to Keel in a single artifact event. Batching is disabled when
+   * set to 1 or less, and each artifact is sent in its own event
+   */
+  private final int maxBatchSize;
+
+  /**
+   * Maximum time a partial batch waits for more artifacts before it is sent. Checked at the end of
+   * each poll. When not set, partial batches are sent at the end of every poll
+   */
+  private final Duration maxBatchLinger;
+
+  /**
+   * Number of artifact partitions polled in parallel. Partitions are polled one at a time on the
+   * scheduler thread when set to 1 or less. Does not apply to bulk polls
+   */
+  private final int pollConcurrency;
+
+  /**
+   * Maximum time a concurrent poll cycle may take. Partitions that have not been polled by then are
+   * cancelled and picked up by the next cycle. Defaults to the Igor poll interval
+   */
+  private final Duration pollCycleDeadline;
+
+  /**
+   * When enabled, the artifacts are split between the Igor replicas with consistent hashing, and
+   * each replica only polls its own share
+   */
+  private final boolean sharding;
+
+  /** Identifies this replica when sharding or draining the outbox. Defaults to the host name */
+  private final String replicaId;
+
+  /**
+   * Time after its last heartbeat when a replica is considered gone, its artifacts are taken over
+   * by the other replicas, and its outbox entries in flight are delivered by them. Defaults to
+   * three Igor poll intervals
+   */
+  private final Duration replicaTimeout;
+
+  /**
+   * Maximum number of publish timestamps kept in memory, so artifacts that are clearly not due are
+   * not read from Redis on every poll. The near cache is disabled when set to 0
+   */
+  private final int nearCacheMaxSize;
+
+  /**
+   * When enabled, artifacts are kept in a queue ordered by the time their next version is due, and
+   * each poll only checks the artifacts that are due. A wake up is scheduled when an artifact is
+   * due before the next regular poll
+   */
+  private final boolean dueTimeScheduling;
+
+  /**
+   * When enabled, due artifacts are appended to an outbox in Redis instead of being sent to Keel
+   * from the poll. A separate worker drains the outbox, in batches of up to maxBatchSize artifacts,
+   * and retries failed submissions
+   */
+  private final boolean outbox;
+
+  /**
+   * Maximum number of entries kept in the outbox. The oldest entries are dropped once it is full.
+   * The outbox is not capped when set to 0
+   */
+  private final int outboxMaxDepth;
+
+  /** Delay between two drains of the outbox. Defaults to 1 second */
+  private final Duration outboxDrainInterval;
+
+  /**
+   * Number of times a batch is submitted to Keel before it is put back in the outbox for a later
+   * drain. Defaults to 3
+   */
+  private final int outboxMaxAttempts;
+
+  /**
+   * Wait before the first retry of a batch, doubled on every retry. The batch is retried by the
+   * first drain after the wait. Defaults to 1 second
+   */
+  private final Duration outboxRetryBackoff;
+
+  /**
+   * When enabled, replicas poll without Igor's locks. Each due artifact is claimed with an atomic
+   * compare and set of its publish timestamp, a single Lua script call on Redis, and only the
+   * replica whose claim succeeds publishes the version. Claims of versions that are not sent are
+   * rolled back, so the artifact is due again
+   */
+  private final boolean leaderless;
+
+  /** Ceiling on the rate of artifacts sent to Keel. The rate is not limited when not set */
+  private final DryRunRateLimitConfig rateLimit;
+
+  /**
+   * Phase offsets, jitter and a catch-up limit that spread publishes over time. Every artifact is
+   * due exactly one publish interval after its last version when not set
+   */
+  private final DryRunStaggerConfig stagger;
+
+  /**
+   * Time between two sweeps of the timestamps of artifacts that are no longer configured, e.g.
+   * after the number of artifacts or a prefix changed. Stale timestamps are kept when not set
+   */
+  private final Duration staleKeySweepInterval;
+
+  /**
+   * Asynchronous client that sends artifact events to Keel over pooled keep-alive connections, so
+   * polls only queue events. Events are sent through Igor's KeelService, one at a time, when not
+   * set
+   */
+  private final DryRunKeelClientConfig keelClient;
+
+  public Map<String, DryRunPublisherGroupConfig> getPublisherGroupsOrDefault() {
+    if (publisherGroups != null && !publisherGroups.isEmpty()) {
+      return publisherGroups;
+    }
+    return Map.of(
+        DEFAULT_PUBLISHER_GROUP,
+        new DryRunPublisherGroupConfig(
+            publishInterval,
+            numberOfUniqueArtifacts,
+            artifactPrefix,
+            indexPadLength,
+            null,
+            null,
+            0,
+            null));
+  }
 }
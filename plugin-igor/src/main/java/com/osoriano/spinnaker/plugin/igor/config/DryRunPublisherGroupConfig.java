@@ -0,0 +1,67 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/** Artifacts published with the same prefix and schedule */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class DryRunPublisherGroupConfig {
+  public enum MissedIntervalPolicy {
+    /** A single version is published for all the missed intervals, and the others are counted */
+    COALESCE,
+    /** Every missed version is published, with the timestamp it was due at */
+    BACKFILL
+  }
+
+  public enum ArtifactKind {
+    /** Dry run artifacts, versioned by their publish timestamp */
+    DRY_RUN,
+    /** Docker images, tagged with the branch, build number and commit like images built by CI */
+    DOCKER,
+    /** Debian packages built by CI, versioned with the build number and commit */
+    DEBIAN
+  }
+
+  private final Duration publishInterval;
+  private final int numberOfUniqueArtifacts;
+  private final String artifactPrefix;
+  private final int indexPadLength;
+
+  /** Shape of the publish rate over time. Artifacts are published at a constant rate by default */
+  private final DryRunLoadProfileConfig loadProfile;
+
+  /**
+   * What happens to the versions that came due while the artifacts were not published, e.g. while
+   * Igor was down. Defaults to coalescing them
+   */
+  private final MissedIntervalPolicy missedIntervalPolicy;
+
+  /**
+   * Maximum number of missed versions of an artifact published by a single poll when backfilling.
+   * The rest are published by the next polls. Defaults to 100
+   */
+  private final int maxBackfillBatchSize;
+
+  /**
+   * Kind of artifacts the group publishes. Docker images and debian packages are published with the
+   * type, version format, build and git metadata of real artifacts, so Keel handles them like the
+   * real ones. Defaults to dry run artifacts
+   */
+  private final ArtifactKind artifactKind;
+
+  public MissedIntervalPolicy getMissedIntervalPolicyOrDefault() {
+    return missedIntervalPolicy == null ? MissedIntervalPolicy.COALESCE : missedIntervalPolicy;
+  }
+
+  public int getMaxBackfillBatchSizeOrDefault() {
+    return maxBackfillBatchSize > 0 ? maxBackfillBatchSize : 100;
+  }
+
+  public ArtifactKind getArtifactKindOrDefault() {
+    return artifactKind == null ? ArtifactKind.DRY_RUN : artifactKind;
+  }
+}
@@ -0,0 +1,41 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Limits on the rate of artifacts sent to Keel. Rates are in artifacts per second. When adaptive,
+ * the rate is halved whenever Keel is slow or failing, and raised again step by step while Keel is
+ * healthy, but never above the maximum rate
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunRateLimitConfig {
+
+  /** Hard ceiling on the publish rate */
+  private final double maxRate;
+
+  /** Number of artifacts that can be sent at once after an idle period. Defaults to maxRate */
+  private final int burst;
+
+  /** When enabled, the rate follows Keel's latency and error rate */
+  private final boolean adaptive;
+
+  /** Rate the adaptive controller never cuts below. Defaults to 1% of maxRate */
+  private final double minRate;
+
+  /** Keel calls slower than this on average cut the rate. Defaults to 1 second */
+  private final Duration latencyTarget;
+
+  /**
+   * Fraction of failed Keel calls above which the rate is cut. Any failure cuts the rate when set
+   * to 0
+   */
+  private final double maxErrorRate;
+
+  /** Time between two adjustments of the adaptive rate. Defaults to 5 seconds */
+  private final Duration adjustInterval;
+}
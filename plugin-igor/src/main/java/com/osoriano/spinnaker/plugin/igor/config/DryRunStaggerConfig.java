@@ -0,0 +1,32 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Spreads publishes over time, so Keel does not receive every artifact at once after a restart or
+ * when the plugin is first enabled
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunStaggerConfig {
+
+  /**
+   * When enabled, each artifact gets a fixed phase offset within its group's publish interval.
+   * Artifacts that were never published, or that were already due when Igor started, are first
+   * published at their offset after startup instead of all in the first poll
+   */
+  private final boolean phaseOffsets;
+
+  /** Maximum delay added to each artifact's due time. No jitter is added when not set */
+  private final Duration jitter;
+
+  /**
+   * Maximum number of catch-up publishes per poll cycle, i.e. artifacts that were never published
+   * or are a whole publish interval late. Catch-up publishes are not limited when set to 0
+   */
+  private final int maxCatchUpPerCycle;
+}
@@ -0,0 +1,55 @@
+package com.osoriano.spinnaker.plugin.igor.config;
+
+import java.time.Duration;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Dry run publisher that runs on its own, outside Igor, and sends the artifact events straight to
+ * Keel. Groups, batching, stagger and the Keel client are configured as for the Igor plugin
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class DryRunStandaloneConfig {
+
+  /** Named groups of artifacts, each with its own prefix, count, pad length and publish interval */
+  private final Map<String, DryRunPublisherGroupConfig> publisherGroups;
+
+  /** Client that sends the artifact events to Keel. Its base URL is required */
+  private final DryRunKeelClientConfig keelClient;
+
+  /**
+   * Maximum number of artifacts sent to Keel in a single artifact event. Each artifact is sent in
+   * its own event when set to 1 or less
+   */
+  private final int maxBatchSize;
+
+  /**
+   * Phase offsets and jitter that spread publishes over time. The catch-up limit does not apply,
+   * since the standalone publisher has no poll cycles
+   */
+  private final DryRunStaggerConfig stagger;
+
+  /**
+   * File the publish timestamps are kept in, so a restart carries on from the last versions instead
+   * of publishing every artifact again. Timestamps are only kept in memory when not set
+   */
+  private final String stateFile;
+
+  /** Time between two writes of the state file. Defaults to 10 seconds */
+  private final Duration stateFlushInterval;
+
+  /** Wait before an event Keel did not accept is sent again. Defaults to 1 second */
+  private final Duration retryDelay;
+
+  public Duration getStateFlushIntervalOrDefault() {
+    return stateFlushInterval != null ? stateFlushInterval : Duration.ofSeconds(10);
+  }
+
+  public Duration getRetryDelayOrDefault() {
+    return retryDelay != null ? retryDelay : Duration.ofSeconds(1);
+  }
+}
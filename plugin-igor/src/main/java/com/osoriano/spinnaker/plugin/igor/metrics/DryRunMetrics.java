@@ -0,0 +1,103 @@
+package com.osoriano.spinnaker.plugin.igor.metrics;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import com.netflix.spectator.api.histogram.PercentileTimer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spectator meters of the dry run publisher. Meters tagged by publisher group are created once per
+ * group and reused, so recording them on every artifact does not look them up in the registry
+ */
+public class DryRunMetrics {
+  private final Registry registry;
+  private final Id publishLagId;
+  private final Id dueId;
+  private final Id skippedId;
+  private final Id coalescedId;
+  private final Id backfilledId;
+  private final Id onDemandId;
+  private final Timer keelSuccess;
+  private final Timer keelFailure;
+  private final Timer pollCycle;
+
+  private final Map<String, Timer> publishLagByGroup = new ConcurrentHashMap<>();
+  private final Map<String, Counter> dueByGroup = new ConcurrentHashMap<>();
+  private final Map<String, Counter> skippedByGroup = new ConcurrentHashMap<>();
+  private final Map<String, Counter> coalescedByGroup = new ConcurrentHashMap<>();
+  private final Map<String, Counter> backfilledByGroup = new ConcurrentHashMap<>();
+  private final Map<String, Counter> onDemandByGroup = new ConcurrentHashMap<>();
+
+  public DryRunMetrics(Registry registry) {
+    this.registry = registry;
+    this.publishLagId = registry.createId("dryrun.publish.lag");
+    this.dueId = registry.createId("dryrun.artifacts.due");
+    this.skippedId = registry.createId("dryrun.artifacts.skipped");
+    this.coalescedId = registry.createId("dryrun.versions.coalesced");
+    this.backfilledId = registry.createId("dryrun.versions.backfilled");
+    this.onDemandId = registry.createId("dryrun.versions.ondemand");
+
+    Id keelCallsId = registry.createId("dryrun.keel.calls");
+    this.keelSuccess = registry.timer(keelCallsId.withTag("outcome", "success"));
+    this.keelFailure = registry.timer(keelCallsId.withTag("outcome", "failure"));
+    this.pollCycle = registry.timer("dryrun.poll.duration");
+  }
+
+  // Records how long after its due time a version of an artifact in the group was published
+  public void recordPublishLag(String group, long lagMillis) {
+    publishLagByGroup
+        .computeIfAbsent(
+            group, name -> PercentileTimer.get(registry, publishLagId.withTag("group", name)))
+        .record(Math.max(lagMillis, 0), TimeUnit.MILLISECONDS);
+  }
+
+  public void recordDue(String group) {
+    dueByGroup
+        .computeIfAbsent(group, name -> registry.counter(dueId.withTag("group", name)))
+        .increment();
+  }
+
+  public void recordSkipped(String group) {
+    skippedByGroup
+        .computeIfAbsent(group, name -> registry.counter(skippedId.withTag("group", name)))
+        .increment();
+  }
+
+  // Records missed versions of an artifact in the group that were folded into a single version
+  public void recordCoalesced(String group, long versions) {
+    coalescedByGroup
+        .computeIfAbsent(group, name -> registry.counter(coalescedId.withTag("group", name)))
+        .increment(versions);
+  }
+
+  // Records missed versions of an artifact in the group that were published with their due time
+  public void recordBackfilled(String group, long versions) {
+    backfilledByGroup
+        .computeIfAbsent(group, name -> registry.counter(backfilledId.withTag("group", name)))
+        .increment(versions);
+  }
+
+  // Records versions of artifacts in the group that were published on demand, outside the schedule
+  public void recordOnDemand(String group, long versions) {
+    onDemandByGroup
+        .computeIfAbsent(group, name -> registry.counter(onDemandId.withTag("group", name)))
+        .increment(versions);
+  }
+
+  public void recordKeelCall(long durationNanos, boolean success) {
+    (success ? keelSuccess : keelFailure).record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordPollCycle(long durationNanos) {
+    pollCycle.record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  // Returns the current time for measuring durations, in nanoseconds
+  public long monotonicTime() {
+    return registry.clock().monotonicTime();
+  }
+}
@@ -0,0 +1,17 @@
+package com.osoriano.spinnaker.plugin.igor.model;
+
+import com.netflix.spinnaker.igor.polling.DeltaItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DryRunBuildDelta implements DeltaItem {
+  String job;
+
+  /** Last completed build found in the build cache, or 0 if the job was never polled */
+  int cachedBuild;
+
+  /** Last completed build of the job */
+  int lastBuild;
+}
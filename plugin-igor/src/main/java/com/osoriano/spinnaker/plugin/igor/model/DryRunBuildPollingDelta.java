@@ -0,0 +1,13 @@
+package com.osoriano.spinnaker.plugin.igor.model;
+
+import com.netflix.spinnaker.igor.polling.PollingDelta;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DryRunBuildPollingDelta implements PollingDelta<DryRunBuildDelta> {
+  String master;
+  List<DryRunBuildDelta> items;
+}
@@ -0,0 +1,31 @@
+package com.osoriano.spinnaker.plugin.igor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** Progress of an on demand publish of versions of a publisher group's artifacts */
+@Data
+@AllArgsConstructor
+public class DryRunBulkPublishProgress {
+  public enum Status {
+    RUNNING,
+    /** Every requested version was published */
+    COMPLETED,
+    /** No version could be published for a while, e.g. because Keel kept failing or throttling */
+    STALLED,
+    /** The publish was interrupted before every requested version was published */
+    INTERRUPTED
+  }
+
+  String group;
+
+  /** Number of versions requested */
+  int requested;
+
+  /** Number of versions published so far */
+  int published;
+
+  long elapsedMillis;
+
+  Status status;
+}
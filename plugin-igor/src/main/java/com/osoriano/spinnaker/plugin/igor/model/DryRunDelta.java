@@ -1,6 +1,7 @@
 package com.osoriano.spinnaker.plugin.igor.model;
 
 import com.netflix.spinnaker.igor.polling.DeltaItem;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -8,4 +9,35 @@ import lombok.Data;
 @AllArgsConstructor
 public class DryRunDelta implements DeltaItem {
   String artifactName;
+
+  /**
+   * Time when the new version became due, or 0 if the artifact was never published or the versions
+   * are published on demand
+   */
+  long dueAt;
+
+  /** Publish timestamp the artifact was found due with, or 0 if it was never published */
+  long lastPublishTimestamp;
+
+  /**
+   * Timestamps the missed versions were due at, oldest first, when the artifact's group backfills
+   * missed intervals, or timestamps of the versions published on demand. Empty to publish a single
+   * version stamped with the publish time
+   */
+  List<Long> backfillTimestamps;
+
+  /** Number of missed versions folded into the published version, when coalescing */
+  long coalescedVersions;
+
+  // Returns the timestamps of the versions to publish, oldest first
+  public List<Long> versionTimestamps(long now) {
+    return backfillTimestamps.isEmpty() ? List.of(now) : backfillTimestamps;
+  }
+
+  // Returns the timestamp the artifact's last publish is recorded with, once its versions are sent
+  public long publishTimestamp(long now) {
+    return backfillTimestamps.isEmpty()
+        ? now
+        : backfillTimestamps.get(backfillTimestamps.size() - 1);
+  }
 }
@@ -1,36 +1,84 @@
 package com.osoriano.spinnaker.plugin.igor.monitor;
 
+import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spinnaker.igor.IgorConfigurationProperties;
 import com.netflix.spinnaker.igor.keel.KeelService;
 import com.netflix.spinnaker.igor.polling.CommonPollingMonitor;
 import com.netflix.spinnaker.igor.polling.LockService;
 import com.netflix.spinnaker.igor.polling.PollContext;
-import com.netflix.spinnaker.kork.artifacts.model.Artifact;
 import com.netflix.spinnaker.kork.discovery.DiscoveryStatusChangeEvent;
 import com.netflix.spinnaker.kork.discovery.DiscoveryStatusListener;
 import com.netflix.spinnaker.kork.discovery.InstanceStatus;
 import com.netflix.spinnaker.kork.discovery.RemoteStatusChangedEvent;
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
-import com.netflix.spinnaker.security.AuthenticatedRequest;
 import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunNearCache;
 import com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.MissedIntervalPolicy;
+import com.osoriano.spinnaker.plugin.igor.metrics.DryRunMetrics;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunBulkPublishProgress;
 import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
 import com.osoriano.spinnaker.plugin.igor.model.DryRunPollingDelta;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunArtifactNamespace;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunDynamicGroupConfigs;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunPublisherGroup;
+import com.osoriano.spinnaker.plugin.igor.publish.BatchingPublishPipeline;
+import com.osoriano.spinnaker.plugin.igor.publish.DirectPublishPipeline;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunClaimStrategy;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunEventTemplate;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunKeelClient;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunKeelSender;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunPublishPipeline;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunPublishRecorder;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunRateController;
+import com.osoriano.spinnaker.plugin.igor.publish.LeaderlessClaimStrategy;
+import com.osoriano.spinnaker.plugin.igor.publish.LockClaimStrategy;
+import com.osoriano.spinnaker.plugin.igor.publish.OutboxPublishPipeline;
+import com.osoriano.spinnaker.plugin.igor.publish.ReservingClaimStrategy;
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunSchedule;
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunScheduleSource;
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunStagger;
+import com.osoriano.spinnaker.plugin.igor.schedule.DueQueueScheduleSource;
+import com.osoriano.spinnaker.plugin.igor.schedule.FullScanScheduleSource;
+import com.osoriano.spinnaker.plugin.igor.sharding.DryRunShardCoordinator;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * Publishes new versions of the dry run artifacts from Igor's polling cycle. Each mode is left to a
+ * collaborator: the schedule source picks the artifacts a cycle checks, the claim strategy decides
+ * which replica publishes a due version, and the publish pipeline takes the versions to Keel
+ */
 @Service
 @ConditionalOnProperty(
     "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor.enabled")
@@ -38,11 +86,36 @@ import org.springframework.stereotype.Service;
 public class DryRunPollingMonitor extends CommonPollingMonitor<DryRunDelta, DryRunPollingDelta> {
 
   private final Logger logger = LoggerFactory.getLogger(getClass());
-  public static final String DRYRUN_ARTIFACT_TYPE = "osoriano/dry-run-artifact@v1";
+  public static final String DRYRUN_ARTIFACT_TYPE = DryRunEventTemplate.DRYRUN_ARTIFACT_TYPE;
+
+  // On demand publishes stop once no version could be sent for this long
+  private static final Duration BULK_PUBLISH_STALL_TIMEOUT = Duration.ofSeconds(30);
 
   private final DryRunPollingConfig dryRunPollingConfig;
   private final DryRunCache cache;
-  private final KeelService keelService;
+  private final DryRunNearCache nearCache;
+  private final Optional<LockService> lockService;
+  private final DryRunDynamicGroupConfigs dynamicGroupConfigs;
+  private volatile DryRunArtifactNamespace artifactNamespace;
+  private final DryRunEventTemplate eventTemplate =
+      new DryRunEventTemplate(
+          DRYRUN_ARTIFACT_TYPE, artifactName -> artifactNamespace.getGroup(artifactName));
+  private final ExecutorService pollExecutor;
+  private final DryRunShardCoordinator shardCoordinator;
+  private final DryRunStagger stagger;
+  private final DryRunSchedule schedule;
+  private final TaskScheduler scheduler;
+  private final Registry registry;
+  private final DryRunMetrics metrics;
+  private final DryRunPublishRecorder recorder;
+  private final DryRunKeelSender sender;
+  private final DryRunClaimStrategy claimStrategy;
+  private final DryRunPublishPipeline publishPipeline;
+  private final DryRunScheduleSource scheduleSource;
+  private final Id deferredId;
+  private final Id reconfigurationsId;
+
+  private ScheduledFuture<?> staleKeySweep;
 
   @Autowired
   public DryRunPollingMonitor(
@@ -63,8 +136,137 @@ public class DryRunPollingMonitor extends CommonPollingMonitor<DryRunDelta, DryR
         lockService,
         scheduler);
     this.cache = cache;
-    this.keelService = keelService;
+    this.nearCache = new DryRunNearCache(cache, dryRunPollingConfig.getNearCacheMaxSize());
     this.dryRunPollingConfig = dryRunPollingConfig;
+    this.lockService = lockService;
+    this.artifactNamespace =
+        new DryRunArtifactNamespace(
+            dryRunPollingConfig.getPublisherGroupsOrDefault(), Instant.now().toEpochMilli());
+    this.dynamicGroupConfigs =
+        dynamicConfigService == null
+            ? null
+            : new DryRunDynamicGroupConfigs(dynamicConfigService, dryRunPollingConfig);
+    this.scheduler = scheduler;
+    this.registry = registry;
+    this.metrics = new DryRunMetrics(registry);
+    this.recorder =
+        new DryRunPublishRecorder(
+            metrics, artifactName -> artifactNamespace.getGroup(artifactName));
+    DryRunRateController rateController = createRateController(dryRunPollingConfig);
+    this.sender =
+        new DryRunKeelSender(
+            eventTemplate,
+            keelService,
+            dryRunPollingConfig.getKeelClient() == null
+                ? null
+                : new DryRunKeelClient(dryRunPollingConfig.getKeelClient()),
+            rateController,
+            metrics,
+            registry);
+    this.claimStrategy = createClaimStrategy(dryRunPollingConfig);
+    this.publishPipeline = createPublishPipeline(dryRunPollingConfig, rateController);
+    this.pollExecutor = createPollExecutor(dryRunPollingConfig.getPollConcurrency());
+    this.shardCoordinator = createShardCoordinator(dryRunPollingConfig);
+    this.stagger =
+        dryRunPollingConfig.getStagger() == null
+            ? null
+            : new DryRunStagger(dryRunPollingConfig.getStagger(), Instant.now().toEpochMilli());
+    this.schedule = new DryRunSchedule(() -> artifactNamespace, stagger);
+    this.scheduleSource =
+        dryRunPollingConfig.isDueTimeScheduling()
+            ? new DueQueueScheduleSource(
+                schedule,
+                nearCache,
+                () -> artifactNamespace,
+                () -> Duration.ofSeconds(getPollInterval()).toMillis(),
+                scheduler,
+                registry)
+            : new FullScanScheduleSource();
+    this.deferredId = registry.createId("dryrun.publish.deferred");
+    this.reconfigurationsId = registry.createId("dryrun.reconfigurations");
+  }
+
+  private DryRunShardCoordinator createShardCoordinator(DryRunPollingConfig config) {
+    if (!config.isSharding()) {
+      return null;
+    }
+    return new DryRunShardCoordinator(
+        cache, replicaId(config), replicaTimeout(config), nearCache::invalidateAll);
+  }
+
+  private Duration replicaTimeout(DryRunPollingConfig config) {
+    return Optional.ofNullable(config.getReplicaTimeout())
+        .orElseGet(() -> Duration.ofSeconds(getPollInterval() * 3L));
+  }
+
+  /**
+   * Versions handed to the batcher or to the asynchronous Keel client are sent after the poll let
+   * go of Igor's lock, so their artifacts are reserved while it is held, for as long as a replica
+   * is considered alive. The outbox records them when they are appended, under the lock
+   */
+  private DryRunClaimStrategy createClaimStrategy(DryRunPollingConfig config) {
+    if (config.isLeaderless()) {
+      return new LeaderlessClaimStrategy(cache, nearCache, registry);
+    }
+    if (!config.isOutbox() && (config.getMaxBatchSize() > 1 || config.getKeelClient() != null)) {
+      return new ReservingClaimStrategy(cache, nearCache, replicaTimeout(config), registry);
+    }
+    return new LockClaimStrategy(nearCache);
+  }
+
+  /**
+   * The outbox takes precedence over batching, and batching over sending each artifact's versions
+   * on their own
+   */
+  private DryRunPublishPipeline createPublishPipeline(
+      DryRunPollingConfig config, DryRunRateController rateController) {
+    if (config.isOutbox()) {
+      return new OutboxPublishPipeline(
+          config,
+          replicaId(config),
+          replicaTimeout(config),
+          cache,
+          sender,
+          rateController,
+          claimStrategy,
+          recorder,
+          registry,
+          scheduler,
+          this::isInService);
+    }
+    if (config.getMaxBatchSize() > 1) {
+      return new BatchingPublishPipeline(
+          config.getMaxBatchSize(), config.getMaxBatchLinger(), sender, claimStrategy, recorder);
+    }
+    return new DirectPublishPipeline(sender, claimStrategy, recorder);
+  }
+
+  private static DryRunRateController createRateController(DryRunPollingConfig config) {
+    if (config.getRateLimit() == null || config.getRateLimit().getMaxRate() <= 0) {
+      return null;
+    }
+    return new DryRunRateController(config.getRateLimit(), Instant.now().toEpochMilli());
+  }
+
+  private static String replicaId(DryRunPollingConfig config) {
+    return Optional.ofNullable(config.getReplicaId()).orElseGet(DryRunPollingMonitor::hostName);
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return UUID.randomUUID().toString();
+    }
+  }
+
+  private static ExecutorService createPollExecutor(int pollConcurrency) {
+    if (pollConcurrency <= 1) {
+      return null;
+    }
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dryrun-poll-");
+    threadFactory.setDaemon(true);
+    return Executors.newFixedThreadPool(pollConcurrency, threadFactory);
   }
 
   @PostConstruct
@@ -72,107 +274,474 @@ public class DryRunPollingMonitor extends CommonPollingMonitor<DryRunDelta, DryR
     onApplicationEvent(
         new RemoteStatusChangedEvent(
             new DiscoveryStatusChangeEvent(InstanceStatus.UP, InstanceStatus.UP)));
+
+    publishPipeline.start();
+
+    if (dryRunPollingConfig.getStaleKeySweepInterval() != null) {
+      staleKeySweep =
+          scheduler.scheduleWithFixedDelay(
+              this::sweepStaleKeys, dryRunPollingConfig.getStaleKeySweepInterval());
+    }
+  }
+
+  // Removes the timestamps of artifacts that are not part of any publisher group anymore
+  void sweepStaleKeys() {
+    if (!isInService()) {
+      return;
+    }
+    long swept = cache.sweep(artifactNamespace::contains);
+    if (swept > 0) {
+      logger.info("Swept {} stale dry run artifact timestamps", swept);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    scheduleSource.stop();
+    publishPipeline.stop();
+    if (staleKeySweep != null) {
+      staleKeySweep.cancel(false);
+    }
+    if (pollExecutor != null) {
+      pollExecutor.shutdownNow();
+    }
+    if (shardCoordinator != null) {
+      shardCoordinator.leave();
+    }
+    sender.shutdown();
+  }
+
+  @Override
+  public void onApplicationEvent(RemoteStatusChangedEvent event) {
+    super.onApplicationEvent(event);
+
+    // Hand this replica's artifacts over to the other replicas as soon as it goes down
+    if (shardCoordinator != null && !event.getSource().isUp()) {
+      shardCoordinator.leave();
+    }
   }
 
   @Override
   protected DryRunPollingDelta generateDelta(PollContext ctx) {
     String artifactName = ctx.partitionName;
-    long publishIntervalSeconds = dryRunPollingConfig.getPublishInterval().toMillis();
 
     logger.debug("Checking dry run artifact: {}", artifactName);
-    long lastPublishTimestamp = Long.parseLong(cache.getCacheValue(artifactName));
     long now = Instant.now().toEpochMilli();
+    long lastPublishTimestamp =
+        Long.parseLong(
+            nearCache.getCacheValue(
+                artifactName, (name, timestamp) -> schedule.isDue(name, timestamp, now)));
 
-    if (now - lastPublishTimestamp < publishIntervalSeconds) {
-      logger.debug("Not yet time to publish dry run artifact: {}", artifactName);
+    if (!isTimeToPublish(artifactName, lastPublishTimestamp, now)) {
       return new DryRunPollingDelta(List.of());
     }
 
-    logger.info("Time to publish new dry run artifact version for {}", artifactName);
-    DryRunDelta delta = new DryRunDelta(artifactName);
+    return new DryRunPollingDelta(List.of(newDelta(artifactName, lastPublishTimestamp, now)));
+  }
+
+  /** Computes every due artifact in memory from a single pipelined read of the timestamps */
+  private DryRunPollingDelta generateBulkDelta(List<String> artifactNames) {
+    logger.debug("Checking {} dry run artifacts", artifactNames.size());
+    long now = Instant.now().toEpochMilli();
+    Map<String, String> lastPublishTimestamps =
+        nearCache.getCacheValues(
+            artifactNames, (name, timestamp) -> schedule.isDue(name, timestamp, now));
+
+    List<DryRunDelta> items = new ArrayList<>();
+    lastPublishTimestamps.forEach(
+        (artifactName, lastPublishTimestamp) -> {
+          long timestamp = Long.parseLong(lastPublishTimestamp);
+          if (isTimeToPublish(artifactName, timestamp, now)) {
+            items.add(newDelta(artifactName, timestamp, now));
+          }
+        });
+
+    return new DryRunPollingDelta(items);
+  }
+
+  // Creates the delta of a due artifact, with the versions it missed since its last publish
+  private DryRunDelta newDelta(String artifactName, long lastPublishTimestamp, long now) {
+    long dueAt = schedule.dueAt(artifactName, lastPublishTimestamp, now);
+    if (lastPublishTimestamp == 0) {
+      return new DryRunDelta(artifactName, dueAt, lastPublishTimestamp, List.of(), 0);
+    }
+
+    DryRunPublisherGroupConfig groupConfig = artifactNamespace.getGroup(artifactName).getConfig();
+    if (groupConfig.getMissedIntervalPolicyOrDefault() == MissedIntervalPolicy.BACKFILL) {
+      List<Long> backfillTimestamps =
+          schedule.missedVersionTimestamps(
+              artifactName,
+              lastPublishTimestamp,
+              now,
+              groupConfig.getMaxBackfillBatchSizeOrDefault());
+      return new DryRunDelta(artifactName, dueAt, lastPublishTimestamp, backfillTimestamps, 0);
+    }
+
+    return new DryRunDelta(
+        artifactName,
+        dueAt,
+        lastPublishTimestamp,
+        List.of(),
+        schedule.coalescedVersions(artifactName, dueAt, now));
+  }
+
+  private boolean isTimeToPublish(String artifactName, long lastPublishTimestamp, long now) {
+    String group = artifactNamespace.getGroup(artifactName).getName();
+    if (publishPipeline.isPending(artifactName)) {
+      logger.debug("Dry run artifact is waiting to be sent to Keel: {}", artifactName);
+      metrics.recordSkipped(group);
+      return false;
+    }
+
+    if (!schedule.isDue(artifactName, lastPublishTimestamp, now)) {
+      logger.debug("Not yet time to publish dry run artifact: {}", artifactName);
+      metrics.recordSkipped(group);
+      return false;
+    }
 
-    return new DryRunPollingDelta(List.of(delta));
+    // Catch-up publishes over this cycle's budget stay due, and go out in a later cycle
+    if (stagger != null && schedule.isCatchUp(artifactName, lastPublishTimestamp, now)) {
+      if (!stagger.tryCatchUp()) {
+        logger.debug("Catch-up limit reached, deferring dry run artifact: {}", artifactName);
+        registry.counter(deferredId).increment();
+        metrics.recordSkipped(group);
+        return false;
+      }
+    }
+
+    metrics.recordDue(group);
+    logger.info("Time to publish new dry run artifact version for {}", artifactName);
+    return true;
   }
 
   @Override
   protected void commitDelta(DryRunPollingDelta delta, boolean sendEvents) {
+    publish(delta.getItems());
+  }
+
+  /**
+   * Publishes the versions of the items this replica claims, the way the publish pipeline sends
+   * them to Keel. Returns the number of versions that were appended to the outbox, sent, or queued
+   * to be sent
+   */
+  private int publish(List<DryRunDelta> deltaItems) {
+    long now = Instant.now().toEpochMilli();
+    List<DryRunDelta> items = claimStrategy.claim(deltaItems, now);
+    items.forEach(recorder::recordCoalesced);
+    return publishPipeline.publish(items, now);
+  }
+
+  /**
+   * Publishes the requested number of new versions of the group's artifacts right away, taking the
+   * artifacts in turn and pacing the versions at the given rate per second. Versions take the same
+   * path to Keel as polled ones, and each artifact's publish timestamp moves to its last version,
+   * so the regular schedule carries on from there instead of publishing them again. Progress is
+   * reported to the listener after every chunk of versions, and once more when the publish ends
+   */
+  public DryRunBulkPublishProgress bulkPublish(
+      String groupName,
+      int count,
+      double ratePerSecond,
+      Consumer<DryRunBulkPublishProgress> listener) {
+    DryRunPublisherGroup group = bulkPublishGroup(groupName, count, ratePerSecond);
+
+    // Chunks hold a tenth of a second worth of versions
+    int chunkSize = (int) Math.max(1, Math.min(Math.ceil(ratePerSecond / 10), count));
+    long start = metrics.monotonicTime();
+    long lastPublishedAt = start;
+    int published = 0;
+    long attempted = 0;
+    int cursor = 0;
+    DryRunBulkPublishProgress.Status status = DryRunBulkPublishProgress.Status.COMPLETED;
+    logger.info(
+        "Publishing {} dry run versions of group {} at {} versions per second",
+        count,
+        groupName,
+        ratePerSecond);
+
+    while (published < count) {
+      int versions = Math.min(chunkSize, count - published);
+      int sent = publishChunk(group, cursor, versions);
+      cursor = (cursor + versions) % group.size();
+      attempted += versions;
+      published += sent;
+      metrics.recordOnDemand(groupName, sent);
+
+      // Versions held back by the rate limit or lost claims are retried by the next chunks
+      long now = metrics.monotonicTime();
+      if (sent > 0) {
+        lastPublishedAt = now;
+      } else if (now - lastPublishedAt > BULK_PUBLISH_STALL_TIMEOUT.toNanos()) {
+        status = DryRunBulkPublishProgress.Status.STALLED;
+        break;
+      }
+      listener.accept(
+          bulkPublishProgress(
+              groupName, count, published, start, DryRunBulkPublishProgress.Status.RUNNING));
+
+      try {
+        long paceNanos = (long) (attempted / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+        TimeUnit.NANOSECONDS.sleep(start + paceNanos - metrics.monotonicTime());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        status = DryRunBulkPublishProgress.Status.INTERRUPTED;
+        break;
+      }
+    }
+
+    DryRunBulkPublishProgress progress =
+        bulkPublishProgress(groupName, count, published, start, status);
+    logger.info("Published {} dry run versions on demand: {}", published, progress);
+    listener.accept(progress);
+    return progress;
+  }
+
+  // Throws IllegalArgumentException if the versions cannot be published on demand
+  public void validateBulkPublish(String groupName, int count, double ratePerSecond) {
+    bulkPublishGroup(groupName, count, ratePerSecond);
+  }
+
+  private DryRunPublisherGroup bulkPublishGroup(String groupName, int count, double ratePerSecond) {
+    DryRunPublisherGroup group =
+        artifactNamespace.getGroups().stream()
+            .filter(candidate -> candidate.getName().equals(groupName))
+            .findFirst()
+            .orElseThrow(
+                () ->
+                    new IllegalArgumentException("Unknown dry run publisher group: " + groupName));
+    if (group.size() == 0) {
+      throw new IllegalArgumentException("Dry run publisher group has no artifacts: " + groupName);
+    }
+    if (count <= 0 || !(ratePerSecond > 0)) {
+      throw new IllegalArgumentException("The count and the rate must be positive");
+    }
+    return group;
+  }
+
+  /**
+   * Publishes the given number of versions of the group's artifacts, starting from the artifact at
+   * the cursor. Returns the number of versions sent. Other replicas are kept off the artifacts the
+   * way their polls are: by claiming the versions when leaderless, and by holding the locks their
+   * polls take otherwise. Locks are not waited for, so a chunk whose artifacts are being polled
+   * sends nothing, and its versions are retried by the next chunks
+   */
+  private int publishChunk(DryRunPublisherGroup group, int cursor, int versions) {
+    Map<String, Integer> versionsByArtifactName = new LinkedHashMap<>();
+    for (int i = 0; i < versions; i++) {
+      versionsByArtifactName.merge(
+          group.artifactName((cursor + i) % group.size() + 1), 1, Integer::sum);
+    }
+    if (!lockService.isPresent() || !claimStrategy.isLocked()) {
+      return publishVersions(versionsByArtifactName);
+    }
+
+    List<String> lockNames =
+        dryRunPollingConfig.isBulkPoll()
+            ? List.of(getName() + ".bulk")
+            : versionsByArtifactName.keySet().stream()
+                .map(artifactName -> getName() + "." + artifactName)
+                .collect(Collectors.toList());
+    AtomicInteger sent = new AtomicInteger();
+    withLocks(
+        lockNames,
+        Duration.ofSeconds(getPollInterval()),
+        () -> sent.set(publishVersions(versionsByArtifactName)));
+    return sent.get();
+  }
+
+  // Runs the action only if every lock could be acquired
+  private void withLocks(List<String> lockNames, Duration lockDuration, Runnable action) {
+    if (lockNames.isEmpty()) {
+      action.run();
+      return;
+    }
+    lockService
+        .get()
+        .acquire(
+            lockNames.get(0),
+            lockDuration,
+            () -> withLocks(lockNames.subList(1, lockNames.size()), lockDuration, action));
+  }
+
+  /**
+   * Publishes the versions of each artifact. Polls of this replica wait meanwhile, so the
+   * timestamps read here are still the artifacts' latest ones when the versions are published
+   */
+  private synchronized int publishVersions(Map<String, Integer> versionsByArtifactName) {
     long now = Instant.now().toEpochMilli();
+    Map<String, String> lastPublishTimestamps =
+        cache.getCacheValues(new ArrayList<>(versionsByArtifactName.keySet()));
+    List<DryRunDelta> items = new ArrayList<>();
+    versionsByArtifactName.forEach(
+        (artifactName, artifactVersions) -> {
+          long lastPublishTimestamp =
+              Long.parseLong(lastPublishTimestamps.getOrDefault(artifactName, "0"));
+          // Versions are timestamps, so they must follow the artifact's latest version
+          long first = Math.max(now, lastPublishTimestamp + 1);
+          List<Long> timestamps =
+              LongStream.range(first, first + artifactVersions)
+                  .boxed()
+                  .collect(Collectors.toList());
+          items.add(new DryRunDelta(artifactName, 0, lastPublishTimestamp, timestamps, 0));
+        });
+    return publish(items);
+  }
 
-    // There should only be 1 item in the delta but iterate through all just in case
-    delta
-        .getItems()
-        .forEach(
-            item -> {
-              String artifactName = item.getArtifactName();
-              submitKeelEvent(artifactName, now);
-              cache.setCacheValue(artifactName, String.valueOf(now));
-            });
-  }
-
-  private void submitKeelEvent(String artifactName, long timestamp) {
-    Map<String, Object> metadata = Map.of("createdAt", timestamp);
-
-    Artifact artifact =
-        Artifact.builder()
-            .type(DRYRUN_ARTIFACT_TYPE)
-            .customKind(false)
-            .name(artifactName)
-            .version(String.valueOf(timestamp))
-            .reference(artifactName)
-            .metadata(metadata)
-            .build();
-
-    Map<String, Object> artifactEvent =
-        Map.of(
-            "payload",
-            Map.of(
-                "artifacts", List.of(artifact),
-                "details", Map.of()),
-            "eventName",
-            "spinnaker_artifacts_dryrun");
-
-    // TODO: look into submitting the event to Echo instead of Keel
-    logger.info("Sending artifact event to Keel: {}", artifactEvent);
-    AuthenticatedRequest.allowAnonymous(() -> keelService.sendArtifactEvent(artifactEvent));
+  private DryRunBulkPublishProgress bulkPublishProgress(
+      String groupName,
+      int count,
+      int published,
+      long startNanos,
+      DryRunBulkPublishProgress.Status status) {
+    return new DryRunBulkPublishProgress(
+        groupName,
+        count,
+        published,
+        TimeUnit.NANOSECONDS.toMillis(metrics.monotonicTime() - startNanos),
+        status);
   }
 
   @Override
   public void poll(boolean sendEvents) {
-    buildArtifactNameList(dryRunPollingConfig)
-        .forEach(artifact -> pollSingle(new PollContext(artifact, Map.of(), !sendEvents)));
+    long start = metrics.monotonicTime();
+    try {
+      pollOwnedArtifacts(sendEvents);
+    } finally {
+      metrics.recordPollCycle(metrics.monotonicTime() - start);
+    }
   }
 
-  @Override
-  public String getName() {
-    return "dryrunPollingMonitor";
+  /**
+   * Polls the artifacts this replica owns, that the schedule source picks. Polls are serialized,
+   * since a wake up can overlap the regular poll when scheduling by due time, and the namespace and
+   * the stagger's cycle only change between two polls
+   */
+  private synchronized void pollOwnedArtifacts(boolean sendEvents) {
+    if (stagger != null) {
+      stagger.startCycle();
+    }
+    reconfigure();
+    List<String> artifactNames = artifactNamespace;
+
+    if (shardCoordinator != null) {
+      shardCoordinator.refresh(Instant.now().toEpochMilli());
+      artifactNames = shardCoordinator.filterOwned(artifactNames);
+    }
+
+    scheduleSource.poll(
+        artifactNames,
+        dueArtifactNames -> pollArtifacts(dueArtifactNames, sendEvents),
+        () -> {
+          if (isInService()) {
+            poll(sendEvents);
+          }
+        });
+
+    // Versions that were claimed but not sent go out even when no artifact is due
+    if (claimStrategy.hasUnsent()) {
+      publish(List.of());
+    }
+    publishPipeline.afterPoll(Instant.now().toEpochMilli());
   }
 
-  private List<String> buildArtifactNameList(DryRunPollingConfig config) {
-    List<String> result = new ArrayList<>();
-    int numberOfArtifacts = config.getNumberOfUniqueArtifacts();
+  /**
+   * Applies changes of the publisher groups read through the dynamic config. Only the groups that
+   * changed are rebuilt, artifacts that keep their name keep their state, and the due queue only
+   * schedules the added artifacts and drops the retired ones. Timestamps of retired artifacts are
+   * left to the stale key sweep
+   */
+  private void reconfigure() {
+    if (dynamicGroupConfigs == null) {
+      return;
+    }
+    Map<String, DryRunPublisherGroupConfig> groupConfigs = dynamicGroupConfigs.getGroupConfigs();
+    DryRunArtifactNamespace previous = artifactNamespace;
+    if (groupConfigs.equals(previous.getGroupConfigs())) {
+      return;
+    }
 
-    for (int i = 1; i <= numberOfArtifacts; i++) {
-      String suffix;
-      if (numberOfArtifacts == 1) {
-        suffix = "";
-      } else {
-        suffix = padStart(config.getIndexPadLength(), "0", String.valueOf(i));
-      }
-      result.add(config.getArtifactPrefix() + suffix);
+    artifactNamespace = previous.reconfigure(groupConfigs, Instant.now().toEpochMilli());
+    eventTemplate.reconfigure(artifactNamespace.getGroups());
+    registry.counter(reconfigurationsId).increment();
+    logger.info(
+        "Reconfigured dry run publisher groups, from {} to {} artifacts",
+        previous.size(),
+        artifactNamespace.size());
+  }
+
+  private void pollArtifacts(List<String> artifactNames, boolean sendEvents) {
+    if (dryRunPollingConfig.isBulkPoll()) {
+      bulkPoll(artifactNames, sendEvents);
+    } else if (pollExecutor != null) {
+      pollConcurrently(artifactNames, sendEvents);
+    } else {
+      artifactNames.forEach(
+          artifact -> pollPartition(new PollContext(artifact, Map.of(), !sendEvents), sendEvents));
     }
+  }
 
-    return result;
+  // Claims take the place of Igor's per partition lock when leaderless
+  private void pollPartition(PollContext ctx, boolean sendEvents) {
+    if (!claimStrategy.isLocked()) {
+      commitDelta(generateDelta(ctx), sendEvents);
+    } else {
+      pollSingle(ctx);
+    }
   }
 
-  private String padStart(int length, String padChar, String str) {
-    if (str.length() >= length) {
-      return str;
+  /**
+   * Polls all artifacts in a single pass. A single lock guards the whole cycle, instead of one lock
+   * per artifact partition
+   */
+  private void bulkPoll(List<String> artifactNames, boolean sendEvents) {
+    Runnable cycle = () -> commitDelta(generateBulkDelta(artifactNames), sendEvents);
+
+    if (lockService.isPresent() && claimStrategy.isLocked()) {
+      Duration lockDuration = Duration.ofSeconds(getPollInterval());
+      lockService.get().acquire(getName() + ".bulk", lockDuration, cycle);
+    } else {
+      cycle.run();
     }
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < length - str.length(); i++) {
-      sb.append(padChar);
+  }
+
+  /**
+   * Polls the artifact partitions in parallel, so a slow Keel call only holds up its own partition.
+   * Partitions still waiting when the cycle deadline passes are cancelled
+   */
+  private void pollConcurrently(List<String> artifactNames, boolean sendEvents) {
+    List<Callable<Void>> tasks =
+        artifactNames.stream()
+            .map(
+                artifact ->
+                    (Callable<Void>)
+                        () -> {
+                          pollPartition(
+                              new PollContext(artifact, Map.of(), !sendEvents), sendEvents);
+                          return null;
+                        })
+            .collect(Collectors.toList());
+
+    Duration deadline =
+        Optional.ofNullable(dryRunPollingConfig.getPollCycleDeadline())
+            .orElse(Duration.ofSeconds(getPollInterval()));
+
+    try {
+      List<Future<Void>> results =
+          pollExecutor.invokeAll(tasks, deadline.toMillis(), TimeUnit.MILLISECONDS);
+      long cancelled = results.stream().filter(Future::isCancelled).count();
+      if (cancelled > 0) {
+        logger.warn(
+            "Dry run poll cycle exceeded its {} deadline, {} artifacts are left for next cycle",
+            deadline,
+            cancelled);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
-    sb.append(str);
-    return sb.toString();
+  }
+
+  @Override
+  public String getName() {
+    return "dryrunPollingMonitor";
   }
 }
@@ -0,0 +1,150 @@
+package com.osoriano.spinnaker.plugin.igor.partition;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * Names of every dry run artifact across the publisher groups. The names are computed from their
+ * index when they are read, so polls can iterate through the artifacts without building a list of
+ * names every cycle. Load profiles of the groups are timed from the given start time. A
+ * reconfigured namespace is built from the groups, not from their artifacts, so resizing a group
+ * costs the same whatever its size
+ */
+public class DryRunArtifactNamespace extends AbstractList<String> implements RandomAccess {
+  private final List<DryRunPublisherGroup> groups;
+  private final TreeMap<String, DryRunPublisherGroup> groupsByPrefix;
+  private final Map<String, DryRunPublisherGroupConfig> groupConfigs;
+  private final long startedAt;
+  private final int[] offsets;
+  private final int size;
+
+  public DryRunArtifactNamespace(
+      Map<String, DryRunPublisherGroupConfig> groupConfigs, long startedAt) {
+    this(
+        groupConfigs,
+        startedAt,
+        (name, config) -> new DryRunPublisherGroup(name, config, startedAt));
+  }
+
+  private DryRunArtifactNamespace(
+      Map<String, DryRunPublisherGroupConfig> groupConfigs,
+      long startedAt,
+      BiFunction<String, DryRunPublisherGroupConfig, DryRunPublisherGroup> groupFactory) {
+    this.groupConfigs = new LinkedHashMap<>(groupConfigs);
+    this.startedAt = startedAt;
+    this.groups = new ArrayList<>();
+    this.groupsByPrefix = new TreeMap<>();
+    groupConfigs.forEach(
+        (name, config) -> {
+          if (config.getArtifactPrefix() == null) {
+            throw new IllegalArgumentException(
+                "Dry run publisher group " + name + " needs an artifact prefix");
+          }
+          DryRunPublisherGroup group = groupFactory.apply(name, config);
+          if (groupsByPrefix.put(config.getArtifactPrefix(), group) != null) {
+            throw new IllegalArgumentException(
+                "Dry run publisher groups must use distinct prefixes: "
+                    + config.getArtifactPrefix());
+          }
+          groups.add(group);
+        });
+
+    // No prefix may start with another one, so an artifact name starts with at most one prefix,
+    // which is the greatest prefix up to the name. Sorted prefixes only need their neighbor checked
+    String previous = null;
+    for (String prefix : groupsByPrefix.keySet()) {
+      if (previous != null && prefix.startsWith(previous)) {
+        throw new IllegalArgumentException(
+            "Dry run publisher group prefixes must not start with another prefix: "
+                + prefix
+                + " starts with "
+                + previous);
+      }
+      previous = prefix;
+    }
+
+    offsets = new int[groups.size()];
+    int total = 0;
+    for (int i = 0; i < groups.size(); i++) {
+      offsets[i] = total;
+      total += groups.get(i).size();
+    }
+    size = total;
+  }
+
+  public List<DryRunPublisherGroup> getGroups() {
+    return groups;
+  }
+
+  public Map<String, DryRunPublisherGroupConfig> getGroupConfigs() {
+    return groupConfigs;
+  }
+
+  /**
+   * Returns the namespace with the new group configs. Groups that are still configured keep the
+   * artifacts whose names did not change, and new groups are added as of now
+   */
+  public DryRunArtifactNamespace reconfigure(
+      Map<String, DryRunPublisherGroupConfig> newGroupConfigs, long now) {
+    Map<String, DryRunPublisherGroup> groupsByName = new HashMap<>();
+    groups.forEach(group -> groupsByName.put(group.getName(), group));
+    return new DryRunArtifactNamespace(
+        newGroupConfigs,
+        startedAt,
+        (name, config) -> {
+          DryRunPublisherGroup group = groupsByName.get(name);
+          if (group == null) {
+            return new DryRunPublisherGroup(name, config, startedAt, now);
+          }
+          return config.equals(group.getConfig()) ? group : group.reconfigure(config, now);
+        });
+  }
+
+  @Override
+  public String get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int groupIndex = groups.size() - 1;
+    while (offsets[groupIndex] > index) {
+      groupIndex--;
+    }
+    return groups.get(groupIndex).artifactName(index - offsets[groupIndex] + 1);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  // Returns the group of the artifact, or null if the artifact is not part of any group
+  public DryRunPublisherGroup getGroup(String artifactName) {
+    Map.Entry<String, DryRunPublisherGroup> entry = groupsByPrefix.floorEntry(artifactName);
+    if (entry == null || !entry.getValue().contains(artifactName)) {
+      return null;
+    }
+    return entry.getValue();
+  }
+
+  /**
+   * Returns when the artifact was added by a reconfiguration, or 0 if it was configured at startup
+   * or is not part of any group
+   */
+  public long addedAt(String artifactName) {
+    DryRunPublisherGroup group = getGroup(artifactName);
+    return group == null ? 0 : group.addedAt(artifactName);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof String && getGroup((String) o) != null;
+  }
+}
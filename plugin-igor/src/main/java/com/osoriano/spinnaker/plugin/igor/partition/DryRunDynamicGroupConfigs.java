@@ -0,0 +1,61 @@
+package com.osoriano.spinnaker.plugin.igor.partition;
+
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the artifact count and publish interval of the publisher groups through the dynamic config,
+ * under the same keys the groups were bound from at startup, so they can change without restarting
+ * Igor. The groups themselves and their other settings stay as bound at startup
+ */
+public class DryRunDynamicGroupConfigs {
+  private final DynamicConfigService dynamicConfigService;
+  private final Map<String, DryRunPublisherGroupConfig> boundGroupConfigs;
+  private final Map<String, String> keyPrefixes = new LinkedHashMap<>();
+
+  public DryRunDynamicGroupConfigs(
+      DynamicConfigService dynamicConfigService, DryRunPollingConfig config) {
+    this.dynamicConfigService = dynamicConfigService;
+    this.boundGroupConfigs = config.getPublisherGroupsOrDefault();
+
+    // The default group is bound from the top level settings
+    boolean topLevel = config.getPublisherGroups() == null || config.getPublisherGroups().isEmpty();
+    boundGroupConfigs
+        .keySet()
+        .forEach(
+            name ->
+                keyPrefixes.put(
+                    name,
+                    topLevel
+                        ? DryRunPollingConfig.PREFIX + "."
+                        : DryRunPollingConfig.PREFIX + ".publisher-groups." + name + "."));
+  }
+
+  // Returns the group configs with their current artifact count and publish interval
+  public Map<String, DryRunPublisherGroupConfig> getGroupConfigs() {
+    Map<String, DryRunPublisherGroupConfig> groupConfigs = new LinkedHashMap<>();
+    boundGroupConfigs.forEach(
+        (name, config) -> {
+          String keyPrefix = keyPrefixes.get(name);
+          Integer numberOfUniqueArtifacts =
+              dynamicConfigService.getConfig(
+                  Integer.class,
+                  keyPrefix + "number-of-unique-artifacts",
+                  config.getNumberOfUniqueArtifacts());
+          Duration publishInterval =
+              dynamicConfigService.getConfig(
+                  Duration.class, keyPrefix + "publish-interval", config.getPublishInterval());
+          groupConfigs.put(
+              name,
+              config.toBuilder()
+                  .numberOfUniqueArtifacts(Math.max(numberOfUniqueArtifacts, 0))
+                  .publishInterval(publishInterval)
+                  .build());
+        });
+    return groupConfigs;
+  }
+}
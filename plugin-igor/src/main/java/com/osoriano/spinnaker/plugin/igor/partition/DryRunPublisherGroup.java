@@ -0,0 +1,157 @@
+package com.osoriano.spinnaker.plugin.igor.partition;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.profile.DryRunLoadProfile;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A named group of dry run artifacts. Artifact names are the group prefix followed by the artifact
+ * index, starting at 1 and padded with zeros. A group with a single artifact uses the prefix as is.
+ * Groups remember which of their artifacts were added by a reconfiguration, and when
+ */
+public class DryRunPublisherGroup {
+  private final String name;
+  private final DryRunPublisherGroupConfig config;
+  private final String zeros;
+  private final DryRunLoadProfile loadProfile;
+  private final long startedAt;
+
+  // When the artifacts from each index on were added, or 0 for artifacts configured at startup
+  private final NavigableMap<Integer, Long> addedAtByFirstIndex;
+
+  public DryRunPublisherGroup(String name, DryRunPublisherGroupConfig config, long startedAt) {
+    this(name, config, startedAt, 0);
+  }
+
+  // Creates a group whose artifacts were all added at the given time, by a reconfiguration
+  public DryRunPublisherGroup(
+      String name, DryRunPublisherGroupConfig config, long startedAt, long addedAt) {
+    this(
+        name,
+        config,
+        DryRunLoadProfile.create(
+            name, config.getLoadProfile(), config.getPublishInterval(), startedAt),
+        startedAt,
+        new TreeMap<>(Map.of(1, addedAt)));
+  }
+
+  private DryRunPublisherGroup(
+      String name,
+      DryRunPublisherGroupConfig config,
+      DryRunLoadProfile loadProfile,
+      long startedAt,
+      NavigableMap<Integer, Long> addedAtByFirstIndex) {
+    this.name = name;
+    this.config = config;
+    this.zeros = "0".repeat(Math.max(config.getIndexPadLength(), 0));
+    this.loadProfile = loadProfile;
+    this.startedAt = startedAt;
+    this.addedAtByFirstIndex = addedAtByFirstIndex;
+  }
+
+  /**
+   * Returns the group with the new config. Artifacts that keep their name keep when they were
+   * added, and the others count as added now. The load profile keeps its timeline
+   */
+  public DryRunPublisherGroup reconfigure(DryRunPublisherGroupConfig newConfig, long now) {
+    NavigableMap<Integer, Long> addedAt = new TreeMap<>();
+    if (keepsNames(newConfig)) {
+      int newSize = newConfig.getNumberOfUniqueArtifacts();
+      addedAt.putAll(addedAtByFirstIndex.headMap(Math.max(newSize, 1), true));
+      if (newSize > size()) {
+        addedAt.put(size() + 1, now);
+      }
+    } else {
+      addedAt.put(1, now);
+    }
+
+    boolean sameSchedule =
+        Objects.equals(newConfig.getPublishInterval(), config.getPublishInterval())
+            && Objects.equals(newConfig.getLoadProfile(), config.getLoadProfile());
+    DryRunLoadProfile newLoadProfile =
+        sameSchedule
+            ? loadProfile
+            : DryRunLoadProfile.create(
+                name, newConfig.getLoadProfile(), newConfig.getPublishInterval(), startedAt);
+    return new DryRunPublisherGroup(name, newConfig, newLoadProfile, startedAt, addedAt);
+  }
+
+  // Artifacts keep their names unless the prefix or padding changes, or the group grows from or
+  // shrinks to a single artifact, which is named after the prefix alone
+  private boolean keepsNames(DryRunPublisherGroupConfig newConfig) {
+    int newSize = newConfig.getNumberOfUniqueArtifacts();
+    return newConfig.getArtifactPrefix().equals(config.getArtifactPrefix())
+        && newConfig.getIndexPadLength() == config.getIndexPadLength()
+        && ((size() == 1 && newSize == 1) || (size() > 1 && newSize > 1));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public DryRunPublisherGroupConfig getConfig() {
+    return config;
+  }
+
+  public Duration getPublishInterval() {
+    return config.getPublishInterval();
+  }
+
+  public DryRunLoadProfile getLoadProfile() {
+    return loadProfile;
+  }
+
+  public int size() {
+    return config.getNumberOfUniqueArtifacts();
+  }
+
+  // Returns the name of the artifact at the given index, starting at 1
+  public String artifactName(int index) {
+    if (size() == 1) {
+      return config.getArtifactPrefix();
+    }
+    String suffix = String.valueOf(index);
+    if (suffix.length() < zeros.length()) {
+      return config.getArtifactPrefix() + zeros.substring(suffix.length()) + suffix;
+    }
+    return config.getArtifactPrefix() + suffix;
+  }
+
+  // Returns true if the artifact name belongs to this group
+  public boolean contains(String artifactName) {
+    return index(artifactName) > 0;
+  }
+
+  /**
+   * Returns when the artifact was added to the group by a reconfiguration, or 0 if it was
+   * configured at startup or does not belong to the group
+   */
+  public long addedAt(String artifactName) {
+    int index = index(artifactName);
+    return index > 0 ? addedAtByFirstIndex.floorEntry(index).getValue() : 0;
+  }
+
+  // Returns the index of the artifact, starting at 1, or 0 if it does not belong to this group
+  private int index(String artifactName) {
+    String prefix = config.getArtifactPrefix();
+    if (!artifactName.startsWith(prefix)) {
+      return 0;
+    }
+    if (size() == 1) {
+      return artifactName.length() == prefix.length() ? 1 : 0;
+    }
+
+    String suffix = artifactName.substring(prefix.length());
+    if (suffix.isEmpty() || suffix.length() > 10 || !suffix.chars().allMatch(Character::isDigit)) {
+      return 0;
+    }
+    long index = Long.parseLong(suffix);
+    return index >= 1 && index <= size() && artifactName((int) index).equals(artifactName)
+        ? (int) index
+        : 0;
+  }
+}
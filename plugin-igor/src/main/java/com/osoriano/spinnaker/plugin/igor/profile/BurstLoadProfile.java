@@ -0,0 +1,30 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+import java.time.Duration;
+
+/** Publishes at the peak rate at the start of every period, and at the base rate otherwise */
+public class BurstLoadProfile extends RateShapedLoadProfile {
+  private final long periodMillis;
+  private final long burstMillis;
+  private final double baseRate;
+  private final double peakRate;
+
+  public BurstLoadProfile(
+      long publishIntervalMillis,
+      long startedAt,
+      Duration period,
+      Duration burstDuration,
+      double baseRate,
+      double peakRate) {
+    super(publishIntervalMillis, startedAt);
+    this.periodMillis = period.toMillis();
+    this.burstMillis = burstDuration.toMillis();
+    this.baseRate = baseRate;
+    this.peakRate = peakRate;
+  }
+
+  @Override
+  protected double rate(long elapsedMillis) {
+    return elapsedMillis % periodMillis < burstMillis ? peakRate : baseRate;
+  }
+}
@@ -0,0 +1,15 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+/** Publishes each artifact once per publish interval */
+public class ConstantLoadProfile implements DryRunLoadProfile {
+  private final long publishIntervalMillis;
+
+  public ConstantLoadProfile(long publishIntervalMillis) {
+    this.publishIntervalMillis = publishIntervalMillis;
+  }
+
+  @Override
+  public long publishIntervalMillis(String artifactName, long lastPublishTimestamp, long now) {
+    return publishIntervalMillis;
+  }
+}
@@ -0,0 +1,31 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+import java.time.Duration;
+
+/**
+ * Follows a day compressed into the period. The rate starts at the base rate at midnight, rises
+ * smoothly to the peak rate at midday and falls back to the base rate
+ */
+public class DiurnalLoadProfile extends RateShapedLoadProfile {
+  private final long dayMillis;
+  private final double baseRate;
+  private final double peakRate;
+
+  public DiurnalLoadProfile(
+      long publishIntervalMillis,
+      long startedAt,
+      Duration dayLength,
+      double baseRate,
+      double peakRate) {
+    super(publishIntervalMillis, startedAt);
+    this.dayMillis = dayLength.toMillis();
+    this.baseRate = baseRate;
+    this.peakRate = peakRate;
+  }
+
+  @Override
+  protected double rate(long elapsedMillis) {
+    double timeOfDay = (double) (elapsedMillis % dayMillis) / dayMillis;
+    return baseRate + (peakRate - baseRate) * (1 - Math.cos(2 * Math.PI * timeOfDay)) / 2;
+  }
+}
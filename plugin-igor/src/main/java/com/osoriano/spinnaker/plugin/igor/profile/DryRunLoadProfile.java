@@ -0,0 +1,66 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunLoadProfileConfig;
+import java.time.Duration;
+import java.util.Optional;
+
+/** Decides how long an artifact waits between two published versions */
+public interface DryRunLoadProfile {
+
+  /**
+   * Returns the time to wait after the artifact's last publish before its next version is due, or
+   * {@link Long#MAX_VALUE} if the artifact should not be published at the moment
+   */
+  long publishIntervalMillis(String artifactName, long lastPublishTimestamp, long now);
+
+  /**
+   * Creates the load profile of the named publisher group. Throws IllegalArgumentException if the
+   * profile's type needs a period or a burst duration that is missing or not positive
+   */
+  static DryRunLoadProfile create(
+      String groupName, DryRunLoadProfileConfig config, Duration publishInterval, long startedAt) {
+    long publishIntervalMillis = publishInterval.toMillis();
+    if (config == null || config.getType() == null) {
+      return new ConstantLoadProfile(publishIntervalMillis);
+    }
+
+    double baseRate = Optional.ofNullable(config.getBaseRate()).orElse(0.0);
+    double peakRate = Optional.ofNullable(config.getPeakRate()).orElse(1.0);
+    switch (config.getType()) {
+      case RAMP:
+        return new RampLoadProfile(
+            publishIntervalMillis,
+            startedAt,
+            positive(groupName, "period", config.getPeriod()),
+            baseRate,
+            peakRate);
+      case BURST:
+        return new BurstLoadProfile(
+            publishIntervalMillis,
+            startedAt,
+            positive(groupName, "period", config.getPeriod()),
+            positive(groupName, "burst-duration", config.getBurstDuration()),
+            baseRate,
+            peakRate);
+      case POISSON:
+        return new PoissonLoadProfile(publishIntervalMillis, config.getSeed());
+      case DIURNAL:
+        return new DiurnalLoadProfile(
+            publishIntervalMillis,
+            startedAt,
+            positive(groupName, "period", config.getPeriod()),
+            baseRate,
+            peakRate);
+      default:
+        return new ConstantLoadProfile(publishIntervalMillis);
+    }
+  }
+
+  private static Duration positive(String groupName, String field, Duration duration) {
+    if (duration == null || duration.isNegative() || duration.toMillis() == 0) {
+      throw new IllegalArgumentException(
+          "Dry run publisher group " + groupName + " needs a positive load-profile." + field);
+    }
+    return duration;
+  }
+}
@@ -0,0 +1,25 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+import java.util.SplittableRandom;
+
+/**
+ * Publishes each artifact as a Poisson process, with exponentially distributed gaps that average
+ * the publish interval. Each gap is drawn from the seed, the artifact and its last publish, so a
+ * load test with the same seed publishes the same sequence
+ */
+public class PoissonLoadProfile implements DryRunLoadProfile {
+  private final long publishIntervalMillis;
+  private final long seed;
+
+  public PoissonLoadProfile(long publishIntervalMillis, long seed) {
+    this.publishIntervalMillis = publishIntervalMillis;
+    this.seed = seed;
+  }
+
+  @Override
+  public long publishIntervalMillis(String artifactName, long lastPublishTimestamp, long now) {
+    SplittableRandom random =
+        new SplittableRandom(seed ^ (31L * artifactName.hashCode()) ^ lastPublishTimestamp);
+    return (long) (-Math.log(1 - random.nextDouble()) * publishIntervalMillis);
+  }
+}
@@ -0,0 +1,30 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+import java.time.Duration;
+
+/** Ramps the rate linearly from the base rate to the peak rate, then holds the peak rate */
+public class RampLoadProfile extends RateShapedLoadProfile {
+  private final long rampMillis;
+  private final double baseRate;
+  private final double peakRate;
+
+  public RampLoadProfile(
+      long publishIntervalMillis,
+      long startedAt,
+      Duration rampDuration,
+      double baseRate,
+      double peakRate) {
+    super(publishIntervalMillis, startedAt);
+    this.rampMillis = rampDuration.toMillis();
+    this.baseRate = baseRate;
+    this.peakRate = peakRate;
+  }
+
+  @Override
+  protected double rate(long elapsedMillis) {
+    if (elapsedMillis >= rampMillis) {
+      return peakRate;
+    }
+    return baseRate + (peakRate - baseRate) * elapsedMillis / rampMillis;
+  }
+}
@@ -0,0 +1,27 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+/**
+ * Scales the publish interval by a rate that changes with the time since the profile started. A
+ * rate of 2 halves the interval, and a rate of 0 stops publishing
+ */
+public abstract class RateShapedLoadProfile implements DryRunLoadProfile {
+  private final long publishIntervalMillis;
+  private final long startedAt;
+
+  protected RateShapedLoadProfile(long publishIntervalMillis, long startedAt) {
+    this.publishIntervalMillis = publishIntervalMillis;
+    this.startedAt = startedAt;
+  }
+
+  /** Returns the rate, as a multiple of the constant rate, at the given time since start */
+  protected abstract double rate(long elapsedMillis);
+
+  @Override
+  public long publishIntervalMillis(String artifactName, long lastPublishTimestamp, long now) {
+    double rate = rate(Math.max(now - startedAt, 0));
+    if (rate <= 0) {
+      return Long.MAX_VALUE;
+    }
+    return (long) (publishIntervalMillis / rate);
+  }
+}
@@ -0,0 +1,95 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers the versions of due artifacts, so many of them go to Keel in a single artifact event. The
+ * claim strategy records the timestamps once Keel accepted a batch, and is handed back the batches
+ * it does not accept. Backfilled and retried versions of an artifact already make up a batch, so
+ * they are sent right away
+ */
+public class BatchingPublishPipeline implements DryRunPublishPipeline {
+  private final DryRunKeelSender sender;
+  private final DryRunClaimStrategy claimStrategy;
+  private final DryRunPublishRecorder recorder;
+  private final DirectPublishPipeline direct;
+  private final DryRunEventBatcher batcher;
+
+  public BatchingPublishPipeline(
+      int maxBatchSize,
+      Duration maxBatchLinger,
+      DryRunKeelSender sender,
+      DryRunClaimStrategy claimStrategy,
+      DryRunPublishRecorder recorder) {
+    this.sender = sender;
+    this.claimStrategy = claimStrategy;
+    this.recorder = recorder;
+    this.direct = new DirectPublishPipeline(sender, claimStrategy, recorder);
+    this.batcher = new DryRunEventBatcher(maxBatchSize, maxBatchLinger, this::sendBatch);
+  }
+
+  @Override
+  public int publish(List<DryRunDelta> items, long now) {
+    List<DryRunDelta> backfilled = new ArrayList<>();
+    items.forEach(
+        item -> {
+          if (!item.getBackfillTimestamps().isEmpty()) {
+            backfilled.add(item);
+            return;
+          }
+          batcher.add(item.getArtifactName(), now, now);
+          recorder.recordPublishLag(item, now);
+        });
+    if (backfilled.isEmpty()) {
+      return items.size();
+    }
+    return items.size() - backfilled.size() + direct.publish(backfilled, now);
+  }
+
+  @Override
+  public boolean isPending(String artifactName) {
+    return batcher.isPending(artifactName) || direct.isPending(artifactName);
+  }
+
+  @Override
+  public void afterPoll(long now) {
+    batcher.flushIfLingering(now);
+  }
+
+  // Batched versions are stamped with the time they were added, which is their publish time
+  private void sendBatch(Map<String, Long> batch) {
+    DryRunEventTemplate.Payload payload = sender.newPayload(batch.size());
+    Map<String, String> published = new LinkedHashMap<>();
+    List<DryRunDelta> items = new ArrayList<>(batch.size());
+    batch.forEach(
+        (artifactName, timestamp) -> {
+          payload.add(artifactName, timestamp);
+          published.put(artifactName, String.valueOf(timestamp));
+          items.add(new DryRunDelta(artifactName, 0, 0, List.of(timestamp), 0));
+        });
+
+    // A throttled batch is handed back to the claim strategy, like a batch Keel did not accept
+    if (!sender.acquirePermits(batch.size())) {
+      claimStrategy.recordUnsent(items, 0);
+      return;
+    }
+
+    if (sender.isAsync()) {
+      direct.sendAsync(payload, items, 0, () -> {});
+      return;
+    }
+
+    try {
+      sender.submit(payload);
+    } catch (RuntimeException e) {
+      claimStrategy.recordUnsent(items, 0);
+      throw e;
+    }
+    claimStrategy.recordPublished(published);
+  }
+}
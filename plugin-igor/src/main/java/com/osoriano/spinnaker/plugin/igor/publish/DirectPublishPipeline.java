@@ -0,0 +1,124 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends each artifact's versions to Keel in an event of their own, as soon as they are published.
+ * Events queued on the asynchronous Keel client are not waited for: their artifacts are held back
+ * from polls until Keel answers
+ */
+public class DirectPublishPipeline implements DryRunPublishPipeline {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final DryRunKeelSender sender;
+  private final DryRunClaimStrategy claimStrategy;
+  private final DryRunPublishRecorder recorder;
+
+  // Artifacts whose events were queued for Keel, and are not answered yet
+  private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+  public DirectPublishPipeline(
+      DryRunKeelSender sender, DryRunClaimStrategy claimStrategy, DryRunPublishRecorder recorder) {
+    this.sender = sender;
+    this.claimStrategy = claimStrategy;
+    this.recorder = recorder;
+  }
+
+  /**
+   * Only records the artifacts that were accepted by Keel, even if a later submission fails.
+   * Artifacts sent asynchronously are recorded once Keel accepts them
+   */
+  @Override
+  public int publish(List<DryRunDelta> items, long now) {
+    Map<String, String> published = new LinkedHashMap<>();
+    Set<String> submitted = new HashSet<>();
+    int versionsSent = 0;
+    try {
+      for (DryRunDelta item : items) {
+        // Throttled artifacts are handed back to the claim strategy, like failed ones
+        List<Long> versions = item.versionTimestamps(now);
+        if (!sender.acquirePermits(versions.size())) {
+          break;
+        }
+        String artifactName = item.getArtifactName();
+        DryRunEventTemplate.Payload payload = sender.newPayload(versions.size());
+        versions.forEach(version -> payload.add(artifactName, version));
+        String timestamp = String.valueOf(item.publishTimestamp(now));
+        if (sender.isAsync()) {
+          submitted.add(artifactName);
+          versionsSent += versions.size();
+          sendAsync(
+              payload,
+              List.of(item),
+              now,
+              () -> {
+                recorder.recordPublishLag(item, now);
+                recorder.recordBackfilled(item);
+              });
+          continue;
+        }
+        sender.submit(payload);
+        published.put(artifactName, timestamp);
+        versionsSent += versions.size();
+        recorder.recordPublishLag(item, now);
+        recorder.recordBackfilled(item);
+      }
+    } finally {
+      claimStrategy.recordPublished(published);
+      if (published.size() + submitted.size() < items.size()) {
+        claimStrategy.recordUnsent(
+            items.stream()
+                .filter(
+                    item ->
+                        !published.containsKey(item.getArtifactName())
+                            && !submitted.contains(item.getArtifactName()))
+                .collect(Collectors.toList()),
+            now);
+      }
+    }
+    return versionsSent;
+  }
+
+  @Override
+  public boolean isPending(String artifactName) {
+    return inFlight.contains(artifactName);
+  }
+
+  /**
+   * Queues the event for Keel without waiting for it. Its artifacts are recorded as published once
+   * Keel accepts the event, and handed back to the claim strategy if it does not
+   */
+  public void sendAsync(
+      DryRunEventTemplate.Payload payload, List<DryRunDelta> items, long now, Runnable onAccepted) {
+    Map<String, String> published = new LinkedHashMap<>();
+    items.forEach(
+        item -> published.put(item.getArtifactName(), String.valueOf(item.publishTimestamp(now))));
+    inFlight.addAll(published.keySet());
+    sender
+        .submitAsync(payload)
+        .whenComplete(
+            (ignored, error) -> {
+              try {
+                if (error == null) {
+                  claimStrategy.recordPublished(published);
+                  onAccepted.run();
+                } else {
+                  claimStrategy.recordUnsent(items, now);
+                }
+              } catch (RuntimeException e) {
+                logger.error("Failed to record dry run artifacts {}", published.keySet(), e);
+              } finally {
+                inFlight.removeAll(published.keySet());
+              }
+            });
+  }
+}
@@ -0,0 +1,29 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which replica publishes each due version, so replicas sharing the artifacts do not
+ * publish the same version twice, and records the publish timestamps once versions are sent
+ */
+public interface DryRunClaimStrategy {
+
+  // Returns true if polls must hold Igor's lock, since nothing else keeps replicas apart
+  boolean isLocked();
+
+  // Returns the due items this replica publishes
+  List<DryRunDelta> claim(List<DryRunDelta> items, long now);
+
+  // Records the artifacts whose versions were sent, keyed by artifact name with their timestamp
+  void recordPublished(Map<String, String> published);
+
+  // Takes back the claimed items whose versions were not sent, published at the given time
+  void recordUnsent(List<DryRunDelta> unsent, long now);
+
+  // Returns true if items taken back are waiting to be sent again by the next claim
+  default boolean hasUnsent() {
+    return false;
+  }
+}
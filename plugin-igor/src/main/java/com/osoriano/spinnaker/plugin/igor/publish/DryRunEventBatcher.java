@@ -0,0 +1,84 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Buffers due dry run artifacts, so many of them can be sent to Keel in a single artifact event. A
+ * batch is sent once it is full, or once its oldest artifact has waited longer than the linger time
+ */
+public class DryRunEventBatcher {
+
+  /** Sends a batch of artifacts, keyed by artifact name, with the timestamp of each version */
+  @FunctionalInterface
+  public interface BatchSender {
+    void send(Map<String, Long> batch);
+  }
+
+  private final int maxBatchSize;
+  private final Duration maxLinger;
+  private final BatchSender sender;
+
+  private Map<String, Long> pending = new LinkedHashMap<>();
+  private long oldestPendingTimestamp;
+
+  public DryRunEventBatcher(int maxBatchSize, Duration maxLinger, BatchSender sender) {
+    this.maxBatchSize = maxBatchSize;
+    this.maxLinger = maxLinger == null ? Duration.ZERO : maxLinger;
+    this.sender = sender;
+  }
+
+  // Adds the artifact version to the current batch and sends the batch if it is full
+  public void add(String artifactName, long timestamp, long now) {
+    Map<String, Long> batch = null;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        oldestPendingTimestamp = now;
+      }
+      pending.put(artifactName, timestamp);
+      if (pending.size() >= maxBatchSize) {
+        batch = drain();
+      }
+    }
+
+    if (batch != null) {
+      sender.send(batch);
+    }
+  }
+
+  // Returns true if the artifact is waiting in a batch that has not been sent yet
+  public synchronized boolean isPending(String artifactName) {
+    return pending.containsKey(artifactName);
+  }
+
+  // Sends the pending batch if its oldest artifact has waited for at least the linger time
+  public void flushIfLingering(long now) {
+    Map<String, Long> batch;
+    synchronized (this) {
+      if (pending.isEmpty() || now - oldestPendingTimestamp < maxLinger.toMillis()) {
+        return;
+      }
+      batch = drain();
+    }
+    sender.send(batch);
+  }
+
+  // Sends the pending batch, regardless of its age
+  public void flush() {
+    Map<String, Long> batch;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      batch = drain();
+    }
+    sender.send(batch);
+  }
+
+  private Map<String, Long> drain() {
+    Map<String, Long> batch = pending;
+    pending = new LinkedHashMap<>();
+    return batch;
+  }
+}
@@ -0,0 +1,383 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.ArtifactKind;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunPublisherGroup;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Writes dry run artifact events straight to JSON, instead of building an Artifact and nested maps
+ * for every version. Field names and the parts of a publisher group's artifacts that never change
+ * are encoded once per group and kind, and only the name, the version and its timestamp are written
+ * for each event. Docker images and debian packages also get a tag or package version, a build
+ * number and a commit derived from the timestamp, in the format CI publishes them with
+ */
+public class DryRunEventTemplate {
+  public static final String EVENT_NAME = "spinnaker_artifacts_dryrun";
+  public static final String DRYRUN_ARTIFACT_TYPE = "osoriano/dry-run-artifact@v1";
+  public static final String DOCKER_TYPE = "DOCKER";
+  public static final String DEBIAN_TYPE = "DEB";
+  public static final String DOCKER_REGISTRY = "docker.dryrun.local";
+  public static final String BRANCH = "master";
+
+  // Build numbers count the seconds since this time, so later versions have higher numbers
+  private static final long BUILD_NUMBER_EPOCH =
+      Instant.parse("2021-01-01T00:00:00Z").toEpochMilli();
+
+  private static final SerializedString ARTIFACTS = new SerializedString("artifacts");
+  private static final SerializedString DETAILS = new SerializedString("details");
+  private static final SerializedString TYPE = new SerializedString("type");
+  private static final SerializedString CUSTOM_KIND = new SerializedString("customKind");
+  private static final SerializedString NAME = new SerializedString("name");
+  private static final SerializedString VERSION = new SerializedString("version");
+  private static final SerializedString REFERENCE = new SerializedString("reference");
+  private static final SerializedString METADATA = new SerializedString("metadata");
+  private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+  private static final SerializedString REGISTRY = new SerializedString("registry");
+  private static final SerializedString FULLNAME = new SerializedString("fullname");
+  private static final SerializedString TAG = new SerializedString("tag");
+  private static final SerializedString DATE = new SerializedString("date");
+  private static final SerializedString RELEASE_STATUS = new SerializedString("releaseStatus");
+  private static final SerializedString BUILD_NUMBER = new SerializedString("buildNumber");
+  private static final SerializedString COMMIT_ID = new SerializedString("commitId");
+  private static final SerializedString BRANCH_FIELD = new SerializedString("branch");
+  private static final SerializedString DOCKER = new SerializedString(DOCKER_TYPE);
+  private static final SerializedString DEBIAN = new SerializedString(DEBIAN_TYPE);
+  private static final SerializedString DOCKER_REGISTRY_VALUE =
+      new SerializedString(DOCKER_REGISTRY);
+  private static final SerializedString BRANCH_VALUE = new SerializedString(BRANCH);
+  private static final SerializedString FINAL = new SerializedString("FINAL");
+
+  // Fixed parts of image tags and references, and of package versions and file names
+  private static final char[] DOCKER_REFERENCE_PREFIX = (DOCKER_REGISTRY + "/").toCharArray();
+  private static final char[] DOCKER_TAG_PREFIX = (BRANCH + "-h").toCharArray();
+  private static final char[] DEBIAN_VERSION_PREFIX = "1.0.".toCharArray();
+  private static final char[] DEBIAN_BUILD_PREFIX = "-h".toCharArray();
+  private static final char[] DEBIAN_FILE_SUFFIX = "_all.deb".toCharArray();
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final int COMMIT_ID_LENGTH = 7;
+
+  private final SerializedString type;
+  private final Function<String, DryRunPublisherGroup> groupOf;
+  private final GroupTemplate defaultTemplate;
+
+  // Templates of the current publisher groups, keyed by group name
+  private volatile Map<String, GroupTemplate> groups = new ConcurrentHashMap<>();
+
+  public DryRunEventTemplate(String type) {
+    this(type, artifactName -> null);
+  }
+
+  // Artifacts that are not part of any group, e.g. still in the outbox, are dry run artifacts
+  public DryRunEventTemplate(String type, Function<String, DryRunPublisherGroup> groupOf) {
+    this.type = new SerializedString(type);
+    this.groupOf = groupOf;
+    this.defaultTemplate = new GroupTemplate(ArtifactKind.DRY_RUN);
+  }
+
+  // Rebuilds the templates for the publisher groups, e.g. after they were reconfigured
+  public void reconfigure(Collection<DryRunPublisherGroup> publisherGroups) {
+    Map<String, GroupTemplate> templates = new ConcurrentHashMap<>();
+    publisherGroups.forEach(
+        group ->
+            templates.put(
+                group.getName(), new GroupTemplate(group.getConfig().getArtifactKindOrDefault())));
+    groups = templates;
+  }
+
+  // Returns the artifact event holding the payload's versions, ready to be sent to Keel
+  public static Map<String, Object> event(Payload payload) {
+    return Map.of("payload", payload, "eventName", EVENT_NAME);
+  }
+
+  // Returns an empty payload with room for the given number of versions
+  public Payload newPayload(int size) {
+    return new Payload(size);
+  }
+
+  // A group whose kind changed since its template was built gets a new one
+  private GroupTemplate template(String artifactName) {
+    DryRunPublisherGroup group = groupOf.apply(artifactName);
+    if (group == null) {
+      return defaultTemplate;
+    }
+    ArtifactKind kind = group.getConfig().getArtifactKindOrDefault();
+    GroupTemplate template = groups.get(group.getName());
+    if (template == null || template.kind != kind) {
+      template = new GroupTemplate(kind);
+      groups.put(group.getName(), template);
+    }
+    return template;
+  }
+
+  // Parts of a group's artifacts that never change
+  private class GroupTemplate {
+    private final ArtifactKind kind;
+    private final SerializedString type;
+
+    private GroupTemplate(ArtifactKind kind) {
+      this.kind = kind == null ? ArtifactKind.DRY_RUN : kind;
+      this.type =
+          this.kind == ArtifactKind.DOCKER
+              ? DOCKER
+              : this.kind == ArtifactKind.DEBIAN ? DEBIAN : DryRunEventTemplate.this.type;
+    }
+  }
+
+  /** Payload of an artifact event, serialized as its artifacts and empty details */
+  public class Payload implements JsonSerializable {
+    private final GroupTemplate[] templates;
+    private final String[] artifactNames;
+    private final long[] timestamps;
+    private final char[] version = new char[20];
+    private char[] chars = new char[128];
+    private int size;
+
+    private Payload(int size) {
+      this.templates = new GroupTemplate[size];
+      this.artifactNames = new String[size];
+      this.timestamps = new long[size];
+    }
+
+    // Adds a version of the artifact, stamped with the timestamp
+    public void add(String artifactName, long timestamp) {
+      templates[size] = template(artifactName);
+      artifactNames[size] = artifactName;
+      timestamps[size] = timestamp;
+      size++;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+      gen.writeStartObject();
+      gen.writeFieldName(ARTIFACTS);
+      gen.writeStartArray();
+      for (int i = 0; i < size; i++) {
+        writeArtifact(gen, templates[i], artifactNames[i], timestamps[i]);
+      }
+      gen.writeEndArray();
+      gen.writeFieldName(DETAILS);
+      gen.writeStartObject();
+      gen.writeEndObject();
+      gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(
+        JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+        throws IOException {
+      serialize(gen, serializers);
+    }
+
+    private void writeArtifact(
+        JsonGenerator gen, GroupTemplate template, String artifactName, long timestamp)
+        throws IOException {
+      gen.writeStartObject();
+      gen.writeFieldName(TYPE);
+      gen.writeString(template.type);
+      gen.writeFieldName(CUSTOM_KIND);
+      gen.writeBoolean(false);
+      gen.writeFieldName(NAME);
+      gen.writeString(artifactName);
+      switch (template.kind) {
+        case DOCKER:
+          writeDockerImage(gen, artifactName, timestamp);
+          break;
+        case DEBIAN:
+          writeDebianPackage(gen, artifactName, timestamp);
+          break;
+        default:
+          writeDryRunArtifact(gen, artifactName, timestamp);
+      }
+      gen.writeEndObject();
+      gen.writeEndObject();
+    }
+
+    private void writeDryRunArtifact(JsonGenerator gen, String artifactName, long timestamp)
+        throws IOException {
+      gen.writeFieldName(VERSION);
+      writeVersion(gen, timestamp);
+      gen.writeFieldName(REFERENCE);
+      gen.writeString(artifactName);
+      writeMetadataStart(gen, timestamp);
+    }
+
+    /**
+     * Images are tagged like CI tags them, e.g. master-h12345678.0a1b2c3. The reference is written
+     * once, and the tag, build number and commit are written from their part of it
+     */
+    private void writeDockerImage(JsonGenerator gen, String artifactName, long timestamp)
+        throws IOException {
+      int length = append(0, DOCKER_REFERENCE_PREFIX);
+      length = append(length, artifactName);
+      chars[length++] = ':';
+      int tagStart = length;
+      length = append(length, DOCKER_TAG_PREFIX);
+      int buildNumberStart = length;
+      length = appendBuildNumber(length, timestamp);
+      int buildNumberLength = length - buildNumberStart;
+      chars[length++] = '.';
+      int commitIdStart = length;
+      length = appendCommitId(length, artifactName, timestamp);
+
+      gen.writeFieldName(VERSION);
+      gen.writeString(chars, tagStart, length - tagStart);
+      gen.writeFieldName(REFERENCE);
+      gen.writeString(chars, 0, length);
+      writeMetadataStart(gen, timestamp);
+      gen.writeFieldName(REGISTRY);
+      gen.writeString(DOCKER_REGISTRY_VALUE);
+      gen.writeFieldName(FULLNAME);
+      gen.writeString(chars, 0, length);
+      gen.writeFieldName(TAG);
+      gen.writeString(chars, tagStart, length - tagStart);
+      gen.writeFieldName(DATE);
+      writeVersion(gen, timestamp);
+      writeBuildMetadata(gen, buildNumberStart, buildNumberLength, commitIdStart);
+    }
+
+    /**
+     * Packages are versioned like CI versions them, e.g. name-1.0.12345678-h12345678.0a1b2c3. The
+     * version is written once, and the file name is copied from it
+     */
+    private void writeDebianPackage(JsonGenerator gen, String artifactName, long timestamp)
+        throws IOException {
+      int length = append(0, artifactName);
+      chars[length++] = '-';
+      int packageVersionStart = length;
+      length = append(length, DEBIAN_VERSION_PREFIX);
+      int buildNumberStart = length;
+      length = appendBuildNumber(length, timestamp);
+      int buildNumberLength = length - buildNumberStart;
+      length = append(length, DEBIAN_BUILD_PREFIX);
+      length = appendBuildNumber(length, timestamp);
+      chars[length++] = '.';
+      int commitIdStart = length;
+      length = appendCommitId(length, artifactName, timestamp);
+      int versionLength = length;
+
+      length = append(length, artifactName);
+      chars[length++] = '_';
+      ensureCapacity(length + versionLength - packageVersionStart + DEBIAN_FILE_SUFFIX.length);
+      System.arraycopy(
+          chars, packageVersionStart, chars, length, versionLength - packageVersionStart);
+      length += versionLength - packageVersionStart;
+      length = append(length, DEBIAN_FILE_SUFFIX);
+
+      gen.writeFieldName(VERSION);
+      gen.writeString(chars, 0, versionLength);
+      gen.writeFieldName(REFERENCE);
+      gen.writeString(chars, versionLength, length - versionLength);
+      writeMetadataStart(gen, timestamp);
+      gen.writeFieldName(RELEASE_STATUS);
+      gen.writeString(FINAL);
+      writeBuildMetadata(gen, buildNumberStart, buildNumberLength, commitIdStart);
+    }
+
+    // Starts the metadata with the creation time, leaving it open for the rest of the metadata
+    private void writeMetadataStart(JsonGenerator gen, long timestamp) throws IOException {
+      gen.writeFieldName(METADATA);
+      gen.writeStartObject();
+      gen.writeFieldName(CREATED_AT);
+      gen.writeNumber(timestamp);
+    }
+
+    // The build number and commit are written from where they were appended
+    private void writeBuildMetadata(
+        JsonGenerator gen, int buildNumberStart, int buildNumberLength, int commitIdStart)
+        throws IOException {
+      gen.writeFieldName(BUILD_NUMBER);
+      gen.writeString(chars, buildNumberStart, buildNumberLength);
+      gen.writeFieldName(COMMIT_ID);
+      gen.writeString(chars, commitIdStart, COMMIT_ID_LENGTH);
+      gen.writeFieldName(BRANCH_FIELD);
+      gen.writeString(BRANCH_VALUE);
+    }
+
+    // Versions are the timestamp as a string, written from the digits without creating a string
+    private void writeVersion(JsonGenerator gen, long timestamp) throws IOException {
+      if (timestamp < 0) {
+        gen.writeString(String.valueOf(timestamp));
+        return;
+      }
+      int start = version.length;
+      do {
+        version[--start] = (char) ('0' + timestamp % 10);
+        timestamp /= 10;
+      } while (timestamp > 0);
+      gen.writeString(version, start, version.length - start);
+    }
+
+    private int append(int length, char[] part) {
+      ensureCapacity(length + part.length);
+      System.arraycopy(part, 0, chars, length, part.length);
+      return length + part.length;
+    }
+
+    private int append(int length, String part) {
+      ensureCapacity(length + part.length());
+      part.getChars(0, part.length(), chars, length);
+      return length + part.length();
+    }
+
+    // Appends the number of seconds since the build number epoch, at least 1
+    private int appendBuildNumber(int length, long timestamp) {
+      long buildNumber = Math.max((timestamp - BUILD_NUMBER_EPOCH) / 1000, 1);
+      int digits = 1;
+      for (long rest = buildNumber / 10; rest > 0; rest /= 10) {
+        digits++;
+      }
+      ensureCapacity(length + digits);
+      for (int i = length + digits - 1; i >= length; i--) {
+        chars[i] = (char) ('0' + buildNumber % 10);
+        buildNumber /= 10;
+      }
+      return length + digits;
+    }
+
+    // Appends a short commit hash that is the same for every replica publishing the version
+    private int appendCommitId(int length, String artifactName, long timestamp) {
+      long hash = artifactName.hashCode() * 0x9E3779B97F4A7C15L + timestamp;
+      hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 33;
+      ensureCapacity(length + COMMIT_ID_LENGTH);
+      for (int i = length + COMMIT_ID_LENGTH - 1; i >= length; i--) {
+        chars[i] = HEX_DIGITS[(int) (hash & 0xF)];
+        hash >>>= 4;
+      }
+      return length + COMMIT_ID_LENGTH;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+      }
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("artifacts=[");
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append(artifactNames[i]).append('@').append(timestamps[i]);
+      }
+      return sb.append(']').toString();
+    }
+  }
+}
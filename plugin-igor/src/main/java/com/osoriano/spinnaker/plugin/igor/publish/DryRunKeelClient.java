@@ -0,0 +1,132 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunKeelClientConfig;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+/**
+ * Sends artifact events to Keel without blocking the caller. Events are queued in OkHttp's
+ * dispatcher, which keeps up to maxInFlight requests in flight over a pool of keep-alive
+ * connections. Events are serialized by the dispatcher threads, while they are written to the
+ * connection
+ */
+public class DryRunKeelClient {
+  private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+  private final OkHttpClient httpClient;
+  private final HttpUrl eventsUrl;
+  private final int maxPending;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final ObjectMapper objectMapper =
+      new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  public DryRunKeelClient(DryRunKeelClientConfig config) {
+    HttpUrl baseUrl = HttpUrl.get(config.getBaseUrl());
+    this.eventsUrl = baseUrl.newBuilder().addPathSegments("artifacts/events").build();
+    this.maxPending = config.getMaxPendingOrDefault();
+
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(config.getMaxInFlightOrDefault());
+    dispatcher.setMaxRequestsPerHost(config.getMaxInFlightOrDefault());
+    Duration keepAlive = Optional.ofNullable(config.getKeepAlive()).orElse(Duration.ofMinutes(5));
+    this.httpClient =
+        new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(
+                new ConnectionPool(
+                    config.getMaxIdleConnectionsOrDefault(),
+                    keepAlive.toMillis(),
+                    TimeUnit.MILLISECONDS))
+            .connectTimeout(
+                Optional.ofNullable(config.getConnectTimeout()).orElse(Duration.ofSeconds(5)))
+            .callTimeout(
+                Optional.ofNullable(config.getRequestTimeout()).orElse(Duration.ofSeconds(30)))
+            .build();
+  }
+
+  /**
+   * Queues the event for Keel. The returned future completes once Keel accepted the event, or
+   * completes exceptionally if Keel rejected it, the request failed or timed out, or too many
+   * events are already pending
+   */
+  public CompletableFuture<Void> submit(Map<String, Object> event) {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      result.completeExceptionally(
+          new RejectedExecutionException(maxPending + " events are already pending for Keel"));
+      return result;
+    }
+
+    Request request = new Request.Builder().url(eventsUrl).post(body(event)).build();
+    httpClient
+        .newCall(request)
+        .enqueue(
+            new Callback() {
+              @Override
+              public void onFailure(Call call, IOException e) {
+                pending.decrementAndGet();
+                result.completeExceptionally(e);
+              }
+
+              @Override
+              public void onResponse(Call call, Response response) {
+                pending.decrementAndGet();
+                try (response) {
+                  if (response.isSuccessful()) {
+                    result.complete(null);
+                  } else {
+                    result.completeExceptionally(
+                        new IllegalStateException(
+                            "Keel rejected the artifact event with status " + response.code()));
+                  }
+                }
+              }
+            });
+    return result;
+  }
+
+  // Returns the number of events in flight or queued
+  public int getPending() {
+    return pending.get();
+  }
+
+  // Stops the dispatcher threads once the queued events are sent, and closes idle connections
+  public void shutdown() {
+    httpClient.dispatcher().executorService().shutdown();
+    httpClient.connectionPool().evictAll();
+  }
+
+  private RequestBody body(Map<String, Object> event) {
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return JSON;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        objectMapper.writeValue(sink.outputStream(), event);
+      }
+    };
+  }
+}
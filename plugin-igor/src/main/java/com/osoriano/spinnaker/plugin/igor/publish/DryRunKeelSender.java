@@ -0,0 +1,140 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.igor.keel.KeelService;
+import com.netflix.spinnaker.security.AuthenticatedRequest;
+import com.osoriano.spinnaker.plugin.igor.metrics.DryRunMetrics;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends dry run artifact events to Keel, either through Igor's KeelService, or queued on the
+ * asynchronous Keel client when one is configured. Every call feeds the publish rate controller,
+ * which the publish pipelines ask for permits before sending
+ */
+public class DryRunKeelSender {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final DryRunEventTemplate eventTemplate;
+  private final KeelService keelService;
+  private final DryRunKeelClient keelClient;
+  private final DryRunRateController rateController;
+  private final DryRunMetrics metrics;
+  private final Registry registry;
+  private final Id publishRateId;
+  private final Id throttledId;
+  private final Id keelPendingId;
+
+  public DryRunKeelSender(
+      DryRunEventTemplate eventTemplate,
+      KeelService keelService,
+      DryRunKeelClient keelClient,
+      DryRunRateController rateController,
+      DryRunMetrics metrics,
+      Registry registry) {
+    this.eventTemplate = eventTemplate;
+    this.keelService = keelService;
+    this.keelClient = keelClient;
+    this.rateController = rateController;
+    this.metrics = metrics;
+    this.registry = registry;
+    this.publishRateId = registry.createId("dryrun.publish.rate");
+    this.throttledId = registry.createId("dryrun.publish.throttled");
+    this.keelPendingId = registry.createId("dryrun.keel.pending");
+  }
+
+  // Returns an empty payload with room for the given number of versions
+  public DryRunEventTemplate.Payload newPayload(int size) {
+    return eventTemplate.newPayload(size);
+  }
+
+  // Returns true if events are queued on the asynchronous Keel client
+  public boolean isAsync() {
+    return keelClient != null;
+  }
+
+  // Returns false if the artifacts would exceed the publish rate, and should not be sent yet
+  public boolean acquirePermits(int permits) {
+    if (rateController == null
+        || rateController.tryAcquire(permits, Instant.now().toEpochMilli())) {
+      return true;
+    }
+    logger.debug("Dry run publish rate reached, holding back {} artifacts", permits);
+    registry.counter(throttledId).increment(permits);
+    return false;
+  }
+
+  // Sends the event and waits for Keel to accept it, throwing if it did not
+  public void send(DryRunEventTemplate.Payload payload) {
+    if (keelClient != null) {
+      submitAsync(payload).join();
+      return;
+    }
+    submit(payload);
+  }
+
+  public void submit(DryRunEventTemplate.Payload payload) {
+    Map<String, Object> artifactEvent = DryRunEventTemplate.event(payload);
+
+    // TODO: look into submitting the event to Echo instead of Keel
+    logger.info("Sending artifact event with {} artifacts to Keel", payload.size());
+    logger.debug("Artifact event: {}", artifactEvent);
+    long start = metrics.monotonicTime();
+    boolean success = false;
+    try {
+      AuthenticatedRequest.allowAnonymous(() -> keelService.sendArtifactEvent(artifactEvent));
+      success = true;
+    } finally {
+      recordKeelCall(metrics.monotonicTime() - start, success);
+    }
+  }
+
+  // Events sent by the asynchronous client carry no user, as anonymous KeelService calls
+  public CompletableFuture<Void> submitAsync(DryRunEventTemplate.Payload payload) {
+    Map<String, Object> artifactEvent = DryRunEventTemplate.event(payload);
+    logger.info("Queueing artifact event with {} artifacts for Keel", payload.size());
+    logger.debug("Artifact event: {}", artifactEvent);
+    long start = metrics.monotonicTime();
+    CompletableFuture<Void> result =
+        keelClient
+            .submit(artifactEvent)
+            .whenComplete(
+                (ignored, error) -> {
+                  registry.gauge(keelPendingId).set(keelClient.getPending());
+                  if (error instanceof RejectedExecutionException) {
+                    logger.debug(
+                        "Too many events pending for Keel, holding back {} artifacts",
+                        payload.size());
+                    registry.counter(throttledId).increment(payload.size());
+                    return;
+                  }
+                  if (error != null) {
+                    logger.error("Failed to send artifact event to Keel", error);
+                  }
+                  recordKeelCall(metrics.monotonicTime() - start, error == null);
+                });
+    registry.gauge(keelPendingId).set(keelClient.getPending());
+    return result;
+  }
+
+  public void shutdown() {
+    if (keelClient != null) {
+      keelClient.shutdown();
+    }
+  }
+
+  private void recordKeelCall(long durationNanos, boolean success) {
+    metrics.recordKeelCall(durationNanos, success);
+    if (rateController != null) {
+      rateController.record(
+          TimeUnit.NANOSECONDS.toMillis(durationNanos), success, Instant.now().toEpochMilli());
+      registry.gauge(publishRateId).set(rateController.getRate());
+    }
+  }
+}
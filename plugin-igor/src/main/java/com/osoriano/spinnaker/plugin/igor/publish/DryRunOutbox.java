@@ -0,0 +1,245 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durable queue of dry run artifact versions waiting to be sent to Keel, kept as a capped list in
+ * Redis. Polls append due artifacts to the outbox and move on, and a drain worker sends them to
+ * Keel in batches. Each replica claims a batch by moving it to its own in flight list, which is
+ * only dropped once Keel accepted the batch. A batch that still fails after its last retry, or that
+ * was in flight when the replica stopped, is put back in the outbox and delivered again later.
+ * Draining replicas send heartbeats, and the in flight batches of replicas whose heartbeat expired
+ * are put back too, since a replica may never come back under the same id, e.g. after a scale down
+ */
+public class DryRunOutbox {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /** A dry run artifact version waiting in the outbox */
+  @Data
+  @AllArgsConstructor
+  public static class Entry {
+    private final String artifactName;
+    private final long timestamp;
+  }
+
+  /** Sends a batch of outbox entries to Keel, throwing if the batch was not accepted */
+  @FunctionalInterface
+  public interface EntrySender {
+    void send(List<Entry> entries);
+  }
+
+  private final DryRunCache cache;
+  private final String replicaId;
+  private final Duration replicaTimeout;
+  private final int maxDepth;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration retryBackoff;
+  private final EntrySender sender;
+  private final DryRunRateController rateController;
+  private final Registry registry;
+  private final Id depthId;
+  private final Id ageId;
+  private final Id droppedId;
+  private final Id deliveredId;
+  private final Id retriesId;
+  private final Id reclaimedId;
+
+  private boolean recovered;
+  private long nextHeartbeatAt;
+
+  // The claimed batch that Keel did not accept yet, with its failed attempts and next retry time
+  private List<Entry> inFlight;
+  private int attempts;
+  private long retryAt;
+
+  public DryRunOutbox(
+      DryRunCache cache,
+      String replicaId,
+      Duration replicaTimeout,
+      int maxDepth,
+      int batchSize,
+      int maxAttempts,
+      Duration retryBackoff,
+      EntrySender sender,
+      DryRunRateController rateController,
+      Registry registry) {
+    this.cache = cache;
+    this.replicaId = replicaId;
+    this.replicaTimeout = replicaTimeout;
+    this.maxDepth = maxDepth;
+    this.batchSize = Math.max(batchSize, 1);
+    this.maxAttempts = Math.max(maxAttempts, 1);
+    this.retryBackoff = retryBackoff;
+    this.sender = sender;
+    this.rateController = rateController;
+    this.registry = registry;
+    this.depthId = registry.createId("dryrun.outbox.depth");
+    this.ageId = registry.createId("dryrun.outbox.ageMillis");
+    this.droppedId = registry.createId("dryrun.outbox.dropped");
+    this.deliveredId = registry.createId("dryrun.outbox.delivered");
+    this.retriesId = registry.createId("dryrun.outbox.retries");
+    this.reclaimedId = registry.createId("dryrun.outbox.reclaimed");
+  }
+
+  // Appends the artifact versions to the outbox, in order
+  public void append(List<Entry> versions) {
+    if (versions.isEmpty()) {
+      return;
+    }
+
+    List<String> entries = new ArrayList<>(versions.size());
+    versions.forEach(version -> entries.add(encode(version)));
+
+    long dropped = cache.pushOutbox(entries, maxDepth);
+    if (dropped > 0) {
+      logger.warn("Dry run outbox is full, dropped its {} oldest entries", dropped);
+      registry.counter(droppedId).increment(dropped);
+    }
+  }
+
+  /**
+   * Sends the outbox to Keel until it is empty, the rate limit is reached, or a batch fails. A
+   * failed batch stays in flight, and is sent again by the first drain after its backoff, so drains
+   * never wait on the scheduler thread. Once the batch failed all of its attempts, it is put back
+   * in the outbox for a later drain
+   */
+  public synchronized void drain() {
+    try {
+      if (!recovered) {
+        long requeued = cache.requeueOutbox(replicaId);
+        if (requeued > 0) {
+          logger.info("Requeued {} dry run outbox entries left in flight", requeued);
+        }
+        recovered = true;
+      }
+
+      while (true) {
+        long now = System.currentTimeMillis();
+        if (now >= nextHeartbeatAt) {
+          reclaimExpired(now);
+        }
+        if (inFlight == null) {
+          inFlight = claim(now);
+          if (inFlight == null) {
+            return;
+          }
+          attempts = 0;
+        } else if (now < retryAt) {
+          return;
+        }
+
+        if (!deliver(inFlight, now)) {
+          return;
+        }
+        cache.ackOutbox(replicaId);
+        registry.counter(deliveredId).increment(inFlight.size());
+        inFlight = null;
+      }
+    } finally {
+      recordBacklog(System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Sends a heartbeat for this replica, and puts back in the outbox the entries left in flight by
+   * replicas whose heartbeat expired. Runs twice per replica timeout, so the heartbeat of a replica
+   * that keeps draining never expires
+   */
+  private void reclaimExpired(long now) {
+    long expiredBefore = now - replicaTimeout.toMillis();
+    cache.setReplicaHeartbeat(replicaId, now, expiredBefore);
+    nextHeartbeatAt = now + replicaTimeout.toMillis() / 2;
+
+    List<String> live = cache.getReplicas(expiredBefore);
+    for (String owner : cache.getOutboxInFlightReplicas()) {
+      if (owner.equals(replicaId) || live.contains(owner)) {
+        continue;
+      }
+      long requeued = cache.requeueOutbox(owner);
+      if (requeued > 0) {
+        logger.info(
+            "Requeued {} dry run outbox entries left in flight by expired replica {}",
+            requeued,
+            owner);
+        registry.counter(reclaimedId).increment(requeued);
+      }
+    }
+  }
+
+  // Claims the next batch, within the rate limit. Returns null if there is nothing to send yet
+  private List<Entry> claim(long now) {
+    int count = batchSize;
+    if (rateController != null) {
+      // Entries over the rate limit stay in the outbox until the next drain
+      count = Math.min(count, rateController.availablePermits(now));
+      if (count == 0) {
+        return null;
+      }
+    }
+
+    List<String> claimed = cache.claimOutbox(replicaId, count);
+    if (claimed.isEmpty()) {
+      return null;
+    }
+    if (rateController != null && !rateController.tryAcquire(claimed.size(), now)) {
+      // The permits were taken by other Keel calls since they were counted
+      cache.requeueOutbox(replicaId);
+      return null;
+    }
+
+    List<Entry> entries = new ArrayList<>(claimed.size());
+    claimed.forEach(entry -> entries.add(decode(entry)));
+    return entries;
+  }
+
+  // Sends the batch once. A failed batch is retried after an exponential backoff, or requeued once
+  // it failed its last attempt. Returns false if the batch was not accepted
+  private boolean deliver(List<Entry> entries, long now) {
+    try {
+      sender.send(entries);
+      return true;
+    } catch (RuntimeException e) {
+      attempts++;
+      if (attempts >= maxAttempts) {
+        logger.warn(
+            "Dry run outbox batch of {} entries failed {} attempts, requeued for a later drain",
+            entries.size(),
+            attempts,
+            e);
+        cache.requeueOutbox(replicaId);
+        inFlight = null;
+      } else {
+        registry.counter(retriesId).increment();
+        retryAt = now + (retryBackoff.toMillis() << Math.min(attempts - 1, 16));
+      }
+      return false;
+    }
+  }
+
+  private void recordBacklog(long now) {
+    registry.gauge(depthId).set(cache.getOutboxDepth());
+
+    String oldest = cache.getOldestOutboxEntry();
+    registry.gauge(ageId).set(oldest == null ? 0 : now - decode(oldest).getTimestamp());
+  }
+
+  // Entries are stored as the timestamp followed by the artifact name, separated by a colon
+  static String encode(Entry entry) {
+    return entry.getTimestamp() + ":" + entry.getArtifactName();
+  }
+
+  static Entry decode(String entry) {
+    int separator = entry.indexOf(':');
+    return new Entry(entry.substring(separator + 1), Long.parseLong(entry.substring(0, separator)));
+  }
+}
@@ -0,0 +1,24 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.util.List;
+
+/** Takes the claimed versions of due artifacts to Keel */
+public interface DryRunPublishPipeline {
+
+  /**
+   * Publishes the versions of the items. Returns the number of versions that were appended to the
+   * outbox, sent, or queued to be sent
+   */
+  int publish(List<DryRunDelta> items, long now);
+
+  // Returns true if the artifact's last version is still on its way to Keel, so it is not polled
+  boolean isPending(String artifactName);
+
+  // Called once every poll cycle, e.g. to send a batch that waited long enough
+  default void afterPoll(long now) {}
+
+  default void start() {}
+
+  default void stop() {}
+}
@@ -0,0 +1,49 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.metrics.DryRunMetrics;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunPublisherGroup;
+import java.util.function.Function;
+
+/**
+ * Records the metrics of published deltas, by the publisher group of their artifact. Artifacts
+ * retired by a reconfiguration since they were polled are not recorded
+ */
+public class DryRunPublishRecorder {
+  private final DryRunMetrics metrics;
+  private final Function<String, DryRunPublisherGroup> groupOf;
+
+  public DryRunPublishRecorder(
+      DryRunMetrics metrics, Function<String, DryRunPublisherGroup> groupOf) {
+    this.metrics = metrics;
+    this.groupOf = groupOf;
+  }
+
+  public void recordCoalesced(DryRunDelta item) {
+    String group = groupName(item);
+    if (item.getCoalescedVersions() > 0 && group != null) {
+      metrics.recordCoalesced(group, item.getCoalescedVersions());
+    }
+  }
+
+  // Publish lag is the time between when a version was due and when it was committed
+  public void recordPublishLag(DryRunDelta item, long now) {
+    String group = groupName(item);
+    if (item.getDueAt() > 0 && group != null) {
+      metrics.recordPublishLag(group, now - item.getDueAt());
+    }
+  }
+
+  // Versions published on demand were never due, so they are not counted as backfilled
+  public void recordBackfilled(DryRunDelta item) {
+    String group = groupName(item);
+    if (!item.getBackfillTimestamps().isEmpty() && item.getDueAt() > 0 && group != null) {
+      metrics.recordBackfilled(group, item.getBackfillTimestamps().size());
+    }
+  }
+
+  private String groupName(DryRunDelta item) {
+    DryRunPublisherGroup group = groupOf.apply(item.getArtifactName());
+    return group == null ? null : group.getName();
+  }
+}
@@ -0,0 +1,116 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunRateLimitConfig;
+import java.time.Duration;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token bucket in front of Keel, whose refill rate adapts to Keel's health with additive increase
+ * and multiplicative decrease. Keel calls are recorded with their latency and outcome, and once per
+ * adjustment interval the rate is halved if Keel was slow or failing, or raised by a twentieth of
+ * the maximum rate otherwise. The rate always stays between the minimum and the maximum rate
+ */
+public class DryRunRateController {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final double INCREASE_STEPS = 20;
+
+  private final double maxRate;
+  private final double minRate;
+  private final double burst;
+  private final boolean adaptive;
+  private final long latencyTargetMillis;
+  private final double maxErrorRate;
+  private final long adjustIntervalMillis;
+
+  private double rate;
+  private double tokens;
+  private long lastRefill;
+
+  private long windowStart;
+  private long windowCalls;
+  private long windowErrors;
+  private long windowLatencyMillis;
+
+  public DryRunRateController(DryRunRateLimitConfig config, long now) {
+    this.maxRate = config.getMaxRate();
+    this.minRate = config.getMinRate() > 0 ? config.getMinRate() : maxRate / 100;
+    this.burst = config.getBurst() > 0 ? config.getBurst() : Math.max(maxRate, 1);
+    this.adaptive = config.isAdaptive();
+    this.latencyTargetMillis =
+        Optional.ofNullable(config.getLatencyTarget()).orElse(Duration.ofSeconds(1)).toMillis();
+    this.maxErrorRate = config.getMaxErrorRate();
+    this.adjustIntervalMillis =
+        Optional.ofNullable(config.getAdjustInterval()).orElse(Duration.ofSeconds(5)).toMillis();
+    this.rate = maxRate;
+    this.tokens = burst;
+    this.lastRefill = now;
+    this.windowStart = now;
+  }
+
+  // Takes the permits if enough tokens are available. Requests larger than the bucket go into debt
+  public synchronized boolean tryAcquire(int permits, long now) {
+    refill(now);
+    if (tokens < Math.min(permits, burst)) {
+      return false;
+    }
+    tokens -= permits;
+    return true;
+  }
+
+  // Returns the number of whole permits that can be taken right away
+  public synchronized int availablePermits(long now) {
+    refill(now);
+    return (int) Math.max(Math.floor(tokens), 0);
+  }
+
+  // Records a Keel call, and adjusts the rate once the adjustment interval has passed
+  public synchronized void record(long latencyMillis, boolean success, long now) {
+    windowCalls++;
+    windowLatencyMillis += latencyMillis;
+    if (!success) {
+      windowErrors++;
+    }
+
+    if (adaptive && now - windowStart >= adjustIntervalMillis) {
+      // Tokens earned so far are refilled at the old rate
+      refill(now);
+      adjust();
+      windowStart = now;
+      windowCalls = 0;
+      windowErrors = 0;
+      windowLatencyMillis = 0;
+    }
+  }
+
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  private void adjust() {
+    boolean failing = windowErrors > maxErrorRate * windowCalls;
+    boolean slow = windowLatencyMillis > latencyTargetMillis * windowCalls;
+    double previousRate = rate;
+    if (failing || slow) {
+      rate = Math.max(rate * DECREASE_FACTOR, minRate);
+      logger.info(
+          "Keel is {}, cutting the dry run publish rate from {} to {} per second",
+          failing ? "failing" : "slow",
+          previousRate,
+          rate);
+    } else {
+      rate = Math.min(rate + maxRate / INCREASE_STEPS, maxRate);
+      logger.debug("Raising the dry run publish rate from {} to {} per second", previousRate, rate);
+    }
+  }
+
+  private void refill(long now) {
+    if (now > lastRefill) {
+      tokens = Math.min(tokens + (now - lastRefill) * rate / 1000, burst);
+      lastRefill = now;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunNearCache;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Claims the due artifacts by atomically moving their publish timestamps from the ones they were
+ * found due with to now. Only the replica whose claim succeeds publishes a version, so replicas
+ * need no lock
+ */
+public class LeaderlessClaimStrategy extends RetryingClaimStrategy {
+  private final DryRunCache cache;
+  private final DryRunNearCache nearCache;
+
+  public LeaderlessClaimStrategy(DryRunCache cache, DryRunNearCache nearCache, Registry registry) {
+    super(registry);
+    if (!cache.supportsClaims()) {
+      throw new IllegalStateException(
+          "Leaderless polling needs a dry run cache that supports publish claims");
+    }
+    this.cache = cache;
+    this.nearCache = nearCache;
+  }
+
+  @Override
+  public boolean isLocked() {
+    return false;
+  }
+
+  // Backfilled artifacts are claimed up to their last missed version, the others up to now
+  @Override
+  protected List<DryRunDelta> claimDue(List<DryRunDelta> items, long now) {
+    Map<String, String> claimedAtNow = new LinkedHashMap<>();
+    Set<String> won = new HashSet<>();
+    for (DryRunDelta item : items) {
+      String artifactName = item.getArtifactName();
+      String expectedTimestamp = String.valueOf(item.getLastPublishTimestamp());
+      if (item.getBackfillTimestamps().isEmpty()) {
+        claimedAtNow.put(artifactName, expectedTimestamp);
+      } else if (cache.claimPublish(
+          artifactName, expectedTimestamp, String.valueOf(item.publishTimestamp(now)))) {
+        won.add(artifactName);
+      }
+    }
+    String timestamp = String.valueOf(now);
+
+    // Per partition deltas hold a single item, claimed in a single round trip
+    if (claimedAtNow.size() == 1) {
+      String artifactName = claimedAtNow.keySet().iterator().next();
+      if (cache.claimPublish(artifactName, claimedAtNow.get(artifactName), timestamp)) {
+        won.add(artifactName);
+      }
+    } else if (!claimedAtNow.isEmpty()) {
+      won.addAll(cache.claimPublishes(claimedAtNow, timestamp));
+    }
+
+    registry.counter(claimsId.withTag("outcome", "won")).increment(won.size());
+    registry.counter(claimsId.withTag("outcome", "lost")).increment(items.size() - won.size());
+    List<DryRunDelta> claimed =
+        items.stream()
+            .filter(item -> won.contains(item.getArtifactName()))
+            .collect(Collectors.toList());
+    claimed.forEach(
+        item ->
+            nearCache.remember(item.getArtifactName(), String.valueOf(item.publishTimestamp(now))));
+    return claimed;
+  }
+
+  // Claims already stored the timestamps
+  @Override
+  public void recordPublished(Map<String, String> published) {
+    published.forEach(nearCache::remember);
+  }
+}
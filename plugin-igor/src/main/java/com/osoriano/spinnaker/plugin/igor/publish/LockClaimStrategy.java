@@ -0,0 +1,41 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunNearCache;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relies on Igor's lock to keep replicas from polling the same artifacts at once. Timestamps are
+ * only recorded once the versions were sent, so unsent artifacts stay due
+ */
+public class LockClaimStrategy implements DryRunClaimStrategy {
+  private final DryRunNearCache nearCache;
+
+  public LockClaimStrategy(DryRunNearCache nearCache) {
+    this.nearCache = nearCache;
+  }
+
+  @Override
+  public boolean isLocked() {
+    return true;
+  }
+
+  @Override
+  public List<DryRunDelta> claim(List<DryRunDelta> items, long now) {
+    return items;
+  }
+
+  // Per partition deltas hold a single item. Bulk deltas are written in one pipelined pass
+  @Override
+  public void recordPublished(Map<String, String> published) {
+    if (published.size() == 1) {
+      published.forEach(nearCache::setCacheValue);
+    } else if (!published.isEmpty()) {
+      nearCache.setCacheValues(published);
+    }
+  }
+
+  @Override
+  public void recordUnsent(List<DryRunDelta> unsent, long now) {}
+}
@@ -0,0 +1,114 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BooleanSupplier;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Appends the versions of due artifacts to the durable outbox, and drains the outbox to Keel in the
+ * background while the replica is in service. The outbox is durable, so the artifacts count as
+ * published once they are appended to it
+ */
+public class OutboxPublishPipeline implements DryRunPublishPipeline {
+  private final DryRunOutbox outbox;
+  private final DryRunKeelSender sender;
+  private final DryRunClaimStrategy claimStrategy;
+  private final DryRunPublishRecorder recorder;
+  private final TaskScheduler scheduler;
+  private final Duration drainInterval;
+  private final BooleanSupplier isInService;
+
+  private ScheduledFuture<?> drain;
+
+  public OutboxPublishPipeline(
+      DryRunPollingConfig config,
+      String replicaId,
+      Duration replicaTimeout,
+      DryRunCache cache,
+      DryRunKeelSender sender,
+      DryRunRateController rateController,
+      DryRunClaimStrategy claimStrategy,
+      DryRunPublishRecorder recorder,
+      Registry registry,
+      TaskScheduler scheduler,
+      BooleanSupplier isInService) {
+    this.outbox =
+        new DryRunOutbox(
+            cache,
+            replicaId,
+            replicaTimeout,
+            config.getOutboxMaxDepth(),
+            config.getMaxBatchSize(),
+            config.getOutboxMaxAttempts() > 0 ? config.getOutboxMaxAttempts() : 3,
+            Optional.ofNullable(config.getOutboxRetryBackoff()).orElse(Duration.ofSeconds(1)),
+            this::send,
+            rateController,
+            registry);
+    this.sender = sender;
+    this.claimStrategy = claimStrategy;
+    this.recorder = recorder;
+    this.scheduler = scheduler;
+    this.drainInterval =
+        Optional.ofNullable(config.getOutboxDrainInterval()).orElse(Duration.ofSeconds(1));
+    this.isInService = isInService;
+  }
+
+  @Override
+  public int publish(List<DryRunDelta> items, long now) {
+    List<DryRunOutbox.Entry> appended = new ArrayList<>();
+    Map<String, String> published = new LinkedHashMap<>();
+    items.forEach(
+        item -> {
+          item.versionTimestamps(now)
+              .forEach(
+                  version -> appended.add(new DryRunOutbox.Entry(item.getArtifactName(), version)));
+          published.put(item.getArtifactName(), String.valueOf(item.publishTimestamp(now)));
+          recorder.recordPublishLag(item, now);
+          recorder.recordBackfilled(item);
+        });
+    outbox.append(appended);
+    claimStrategy.recordPublished(published);
+    return appended.size();
+  }
+
+  @Override
+  public boolean isPending(String artifactName) {
+    return false;
+  }
+
+  @Override
+  public void start() {
+    drain =
+        scheduler.scheduleWithFixedDelay(
+            () -> {
+              if (isInService.getAsBoolean()) {
+                outbox.drain();
+              }
+            },
+            drainInterval);
+  }
+
+  @Override
+  public void stop() {
+    if (drain != null) {
+      drain.cancel(false);
+    }
+  }
+
+  // The outbox only removes entries once Keel accepted them, so it waits for the answer
+  private void send(List<DryRunOutbox.Entry> entries) {
+    DryRunEventTemplate.Payload payload = sender.newPayload(entries.size());
+    entries.forEach(entry -> payload.add(entry.getArtifactName(), entry.getTimestamp()));
+    sender.send(payload);
+  }
+}
@@ -0,0 +1,84 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunNearCache;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Relies on Igor's lock like {@link LockClaimStrategy}, for versions that are sent after the poll
+ * let go of the lock, such as batched versions or events queued on the asynchronous Keel client.
+ * Their artifacts are reserved while the lock is still held, so a replica taking the lock next
+ * leaves them alone, and their timestamps are only recorded once Keel accepted the versions. A
+ * version that could not be sent drops its reservation, so the next poll publishes it again. A
+ * replica that stops holds its reservations until they expire, and the versions are published again
+ * after that
+ */
+public class ReservingClaimStrategy implements DryRunClaimStrategy {
+  private final DryRunCache cache;
+  private final DryRunNearCache nearCache;
+  private final long reservationMillis;
+  private final Registry registry;
+  private final Id claimsId;
+
+  public ReservingClaimStrategy(
+      DryRunCache cache, DryRunNearCache nearCache, Duration reservation, Registry registry) {
+    this.cache = cache;
+    this.nearCache = nearCache;
+    this.reservationMillis = reservation.toMillis();
+    this.registry = registry;
+    this.claimsId = registry.createId("dryrun.publish.claims");
+  }
+
+  @Override
+  public boolean isLocked() {
+    return true;
+  }
+
+  // Artifacts still reserved by a replica are skipped, and the others are reserved in one pass
+  @Override
+  public List<DryRunDelta> claim(List<DryRunDelta> items, long now) {
+    if (items.isEmpty()) {
+      return items;
+    }
+    List<String> names =
+        items.stream().map(DryRunDelta::getArtifactName).collect(Collectors.toList());
+    Set<String> reserved = cache.getReservedPublishes(names, now);
+    if (!reserved.isEmpty()) {
+      registry.counter(claimsId.withTag("outcome", "reserved")).increment(reserved.size());
+      items =
+          items.stream()
+              .filter(item -> !reserved.contains(item.getArtifactName()))
+              .collect(Collectors.toList());
+      names.removeAll(reserved);
+    }
+    if (!names.isEmpty()) {
+      cache.reservePublishes(names, now + reservationMillis);
+    }
+    return items;
+  }
+
+  // Per partition deltas hold a single item. Bulk deltas are written in one pipelined pass
+  @Override
+  public void recordPublished(Map<String, String> published) {
+    if (published.size() == 1) {
+      published.forEach(nearCache::setCacheValue);
+    } else if (!published.isEmpty()) {
+      nearCache.setCacheValues(published);
+    }
+    cache.releasePublishes(published.keySet());
+  }
+
+  // The timestamps were left as they were, so the artifacts are due again on the next poll
+  @Override
+  public void recordUnsent(List<DryRunDelta> unsent, long now) {
+    cache.releasePublishes(
+        unsent.stream().map(DryRunDelta::getArtifactName).collect(Collectors.toList()));
+  }
+}
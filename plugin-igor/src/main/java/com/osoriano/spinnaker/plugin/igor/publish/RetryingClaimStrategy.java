@@ -0,0 +1,80 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunDelta;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Base of the claim strategies that record publish timestamps before the versions are sent. Those
+ * timestamps are never moved back: versions that could not be sent are sent again by the next
+ * claim, under the timestamps they already hold, so timestamps only move forward
+ */
+public abstract class RetryingClaimStrategy implements DryRunClaimStrategy {
+  protected final Registry registry;
+  protected final Id claimsId;
+
+  // Claimed versions that were not sent yet, by artifact name
+  private Map<String, DryRunDelta> unsent = new LinkedHashMap<>();
+
+  protected RetryingClaimStrategy(Registry registry) {
+    this.registry = registry;
+    this.claimsId = registry.createId("dryrun.publish.claims");
+  }
+
+  // Unsent versions go first. Their artifacts are not claimed again until they are sent
+  @Override
+  public List<DryRunDelta> claim(List<DryRunDelta> items, long now) {
+    List<DryRunDelta> claimed = new ArrayList<>(takeUnsent());
+    Set<String> retried =
+        claimed.stream().map(DryRunDelta::getArtifactName).collect(Collectors.toSet());
+    if (!retried.isEmpty()) {
+      registry.counter(claimsId.withTag("outcome", "retried")).increment(retried.size());
+      items =
+          items.stream()
+              .filter(item -> !retried.contains(item.getArtifactName()))
+              .collect(Collectors.toList());
+    }
+    if (!items.isEmpty()) {
+      claimed.addAll(claimDue(items, now));
+    }
+    return claimed;
+  }
+
+  // Returns the due items this replica publishes, once their timestamps are recorded
+  protected abstract List<DryRunDelta> claimDue(List<DryRunDelta> items, long now);
+
+  // The versions keep the timestamps they were claimed with, like versions published on demand
+  @Override
+  public synchronized void recordUnsent(List<DryRunDelta> items, long now) {
+    items.forEach(
+        item ->
+            unsent.put(
+                item.getArtifactName(),
+                new DryRunDelta(
+                    item.getArtifactName(),
+                    0,
+                    item.getLastPublishTimestamp(),
+                    item.versionTimestamps(now),
+                    0)));
+  }
+
+  @Override
+  public synchronized boolean hasUnsent() {
+    return !unsent.isEmpty();
+  }
+
+  private synchronized List<DryRunDelta> takeUnsent() {
+    if (unsent.isEmpty()) {
+      return List.of();
+    }
+    List<DryRunDelta> taken = new ArrayList<>(unsent.values());
+    unsent = new LinkedHashMap<>();
+    return taken;
+  }
+}
@@ -0,0 +1,80 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Dry run artifacts ordered by the time their next version is due, so a poll only looks at the
+ * artifacts that are due instead of every artifact. Rescheduling or removing an artifact leaves its
+ * old entry in the queue, and the old entry is skipped when it reaches the head of the queue
+ */
+public class DryRunDueQueue {
+
+  @Data
+  @AllArgsConstructor
+  public static class DueArtifact {
+    private final String artifactName;
+    private final long dueAt;
+  }
+
+  private final PriorityQueue<DueArtifact> queue =
+      new PriorityQueue<>(Comparator.comparingLong(DueArtifact::getDueAt));
+  private final Map<String, Long> dueAtByArtifactName = new HashMap<>();
+
+  public synchronized void schedule(String artifactName, long dueAt) {
+    dueAtByArtifactName.put(artifactName, dueAt);
+    queue.add(new DueArtifact(artifactName, dueAt));
+  }
+
+  public synchronized void remove(String artifactName) {
+    dueAtByArtifactName.remove(artifactName);
+  }
+
+  public synchronized boolean contains(String artifactName) {
+    return dueAtByArtifactName.containsKey(artifactName);
+  }
+
+  public synchronized boolean containsExactly(Collection<String> artifactNames) {
+    return artifactNames.size() == dueAtByArtifactName.size()
+        && dueAtByArtifactName.keySet().containsAll(artifactNames);
+  }
+
+  public synchronized Collection<String> getArtifactNames() {
+    return List.copyOf(dueAtByArtifactName.keySet());
+  }
+
+  // Removes and returns the artifacts that are due at or before the given time
+  public synchronized List<DueArtifact> pollDue(long now) {
+    List<DueArtifact> due = new ArrayList<>();
+    while (!queue.isEmpty() && queue.peek().getDueAt() <= now) {
+      DueArtifact head = queue.poll();
+      Long dueAt = dueAtByArtifactName.get(head.getArtifactName());
+      if (dueAt != null && dueAt == head.getDueAt()) {
+        dueAtByArtifactName.remove(head.getArtifactName());
+        due.add(head);
+      }
+    }
+    return due;
+  }
+
+  // Returns the time when the next artifact is due, skipping stale entries
+  public synchronized OptionalLong nextDueAt() {
+    while (!queue.isEmpty()) {
+      DueArtifact head = queue.peek();
+      Long dueAt = dueAtByArtifactName.get(head.getArtifactName());
+      if (dueAt != null && dueAt == head.getDueAt()) {
+        return OptionalLong.of(head.getDueAt());
+      }
+      queue.poll();
+    }
+    return OptionalLong.empty();
+  }
+}
@@ -0,0 +1,114 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunArtifactNamespace;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Works out when the versions of the dry run artifacts are due, from their group's publish interval
+ * and load profile, and the stagger when one is set. It only depends on the artifact namespace, so
+ * the Igor monitor and the standalone publisher share the same schedule. The namespace is read on
+ * every call, so the schedule follows reconfigurations
+ */
+public class DryRunSchedule {
+  private final Supplier<DryRunArtifactNamespace> artifactNamespace;
+  private final DryRunStagger stagger;
+
+  public DryRunSchedule(
+      Supplier<DryRunArtifactNamespace> artifactNamespace, DryRunStagger stagger) {
+    this.artifactNamespace = artifactNamespace;
+    this.stagger = stagger;
+  }
+
+  /**
+   * Returns the timestamps the missed versions of the artifact were due at, oldest first, following
+   * its publish interval from the last publish. At most maxVersions are returned, and the rest are
+   * left for the next polls
+   */
+  public List<Long> missedVersionTimestamps(
+      String artifactName, long lastPublishTimestamp, long now, int maxVersions) {
+    List<Long> timestamps = new ArrayList<>();
+    long timestamp = lastPublishTimestamp;
+    while (timestamps.size() < maxVersions) {
+      long publishIntervalMillis = publishIntervalMillis(artifactName, timestamp, now);
+      if (publishIntervalMillis <= 0 || publishIntervalMillis > now - timestamp) {
+        break;
+      }
+      timestamp += publishIntervalMillis;
+      timestamps.add(timestamp);
+    }
+    return timestamps;
+  }
+
+  // Returns true if the artifact's next version is due by now
+  public boolean isDue(String artifactName, long lastPublishTimestamp, long now) {
+    if (stagger == null && artifactNamespace.get().addedAt(artifactName) == 0) {
+      return now - lastPublishTimestamp
+          >= publishIntervalMillis(artifactName, lastPublishTimestamp, now);
+    }
+    return now >= nextDueAt(artifactName, lastPublishTimestamp, now);
+  }
+
+  // Returns when the new version of a due artifact became due, or 0 if it was never published
+  public long dueAt(String artifactName, long lastPublishTimestamp, long now) {
+    if (lastPublishTimestamp == 0) {
+      return 0;
+    }
+    return nextDueAt(artifactName, lastPublishTimestamp, now);
+  }
+
+  // Returns when the artifact's next version is due, or Long.MAX_VALUE if it is not due at all
+  public long nextDueAt(String artifactName, long lastPublishTimestamp, long now) {
+    long publishIntervalMillis = publishIntervalMillis(artifactName, lastPublishTimestamp, now);
+    long phaseIntervalMillis =
+        artifactNamespace.get().getGroup(artifactName).getPublishInterval().toMillis();
+    long addedAt = artifactNamespace.get().addedAt(artifactName);
+    if (stagger != null) {
+      return stagger.nextDueAt(
+          artifactName, lastPublishTimestamp, publishIntervalMillis, phaseIntervalMillis, addedAt);
+    }
+    if (publishIntervalMillis >= Long.MAX_VALUE - lastPublishTimestamp) {
+      return Long.MAX_VALUE;
+    }
+
+    // Artifacts added by a reconfiguration are spread over their publish interval, instead of all
+    // being due at once
+    long dueAt = lastPublishTimestamp + publishIntervalMillis;
+    if (dueAt < addedAt) {
+      return addedAt + DryRunStagger.phaseOffsetMillis(artifactName, phaseIntervalMillis);
+    }
+    return dueAt;
+  }
+
+  /**
+   * Returns how many versions due after dueAt a single version published now stands for, when the
+   * missed versions are coalesced
+   */
+  public long coalescedVersions(String artifactName, long dueAt, long now) {
+    long publishIntervalMillis = publishIntervalMillis(artifactName, dueAt, now);
+    long coalescedVersions =
+        publishIntervalMillis > 0 && publishIntervalMillis < Long.MAX_VALUE
+            ? (now - dueAt) / publishIntervalMillis
+            : 0;
+    return Math.max(coalescedVersions, 0);
+  }
+
+  // Returns the wait between two versions of the artifact, according to its group's load profile
+  public long publishIntervalMillis(String artifactName, long lastPublishTimestamp, long now) {
+    return artifactNamespace
+        .get()
+        .getGroup(artifactName)
+        .getLoadProfile()
+        .publishIntervalMillis(artifactName, lastPublishTimestamp, now);
+  }
+
+  // Returns true if the due version catches up on missed intervals. Only used with a stagger
+  public boolean isCatchUp(String artifactName, long lastPublishTimestamp, long now) {
+    return stagger.isCatchUp(
+        lastPublishTimestamp,
+        nextDueAt(artifactName, lastPublishTimestamp, now),
+        publishIntervalMillis(artifactName, lastPublishTimestamp, now),
+        now);
+  }
+}
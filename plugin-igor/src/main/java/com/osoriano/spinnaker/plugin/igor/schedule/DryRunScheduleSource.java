@@ -0,0 +1,16 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Decides which of the artifacts a replica owns are checked by a poll cycle */
+public interface DryRunScheduleSource {
+
+  /**
+   * Hands the artifacts that may be due to the poller. pollAgain starts another poll cycle, for
+   * sources that know when the next artifact is due
+   */
+  void poll(List<String> artifactNames, Consumer<List<String>> poller, Runnable pollAgain);
+
+  default void stop() {}
+}
@@ -0,0 +1,115 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStaggerConfig;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads dry run publishes over time. Phase offsets and jitter are derived from the artifact name
+ * and its last publish timestamp, so every poll and every replica computes the same due time for an
+ * artifact. Catch-up publishes are limited by a budget that is reset on every poll cycle
+ */
+public class DryRunStagger {
+
+  private final boolean phaseOffsets;
+  private final long jitterMillis;
+  private final int maxCatchUpPerCycle;
+  private final long startedAt;
+  private final AtomicInteger catchUpBudget = new AtomicInteger();
+
+  public DryRunStagger(DryRunStaggerConfig config, long startedAt) {
+    this.phaseOffsets = config.isPhaseOffsets();
+    this.jitterMillis = Optional.ofNullable(config.getJitter()).orElse(Duration.ZERO).toMillis();
+    this.maxCatchUpPerCycle = config.getMaxCatchUpPerCycle();
+    this.startedAt = startedAt;
+  }
+
+  /**
+   * Returns when the artifact's next version is due, given the wait between two versions and the
+   * interval its phase offset is spread over. Returns Long.MAX_VALUE if it is never due
+   */
+  public long nextDueAt(
+      String artifactName,
+      long lastPublishTimestamp,
+      long publishIntervalMillis,
+      long phaseIntervalMillis) {
+    return nextDueAt(
+        artifactName, lastPublishTimestamp, publishIntervalMillis, phaseIntervalMillis, 0);
+  }
+
+  /**
+   * Returns when the artifact's next version is due, like above, for an artifact added by a
+   * reconfiguration at addedAt. Versions due before it was added are spread from addedAt, whether
+   * or not phase offsets are enabled, so adding artifacts does not publish them all at once
+   */
+  public long nextDueAt(
+      String artifactName,
+      long lastPublishTimestamp,
+      long publishIntervalMillis,
+      long phaseIntervalMillis,
+      long addedAt) {
+    if (publishIntervalMillis >= Long.MAX_VALUE - lastPublishTimestamp - jitterMillis) {
+      return Long.MAX_VALUE;
+    }
+
+    long dueAt =
+        lastPublishTimestamp == 0
+            ? 0
+            : lastPublishTimestamp
+                + publishIntervalMillis
+                + jitterMillis(artifactName, lastPublishTimestamp);
+
+    if (addedAt > startedAt && dueAt < addedAt) {
+      return addedAt + phaseOffsetMillis(artifactName, phaseIntervalMillis);
+    }
+
+    // Artifacts that were due before startup would all be published by the first poll
+    if (phaseOffsets && dueAt < startedAt) {
+      return startedAt + phaseOffsetMillis(artifactName, phaseIntervalMillis);
+    }
+    return dueAt;
+  }
+
+  // Returns true for artifacts that were never published, or are a whole publish interval late
+  public boolean isCatchUp(
+      long lastPublishTimestamp, long dueAt, long publishIntervalMillis, long now) {
+    return lastPublishTimestamp == 0 || now - dueAt >= publishIntervalMillis;
+  }
+
+  // Starts a poll cycle, with a full catch-up budget
+  public void startCycle() {
+    catchUpBudget.set(maxCatchUpPerCycle);
+  }
+
+  // Takes one catch-up publish from the budget of the current cycle, if any is left
+  public boolean tryCatchUp() {
+    return maxCatchUpPerCycle <= 0
+        || catchUpBudget.getAndUpdate(budget -> Math.max(budget - 1, 0)) > 0;
+  }
+
+  // Offset in [0, intervalMillis) of the artifact's versions within the interval
+  public static long phaseOffsetMillis(String artifactName, long intervalMillis) {
+    return intervalMillis <= 0 ? 0 : Math.floorMod(mix(artifactName.hashCode()), intervalMillis);
+  }
+
+  // Delay in [0, jitter] added to the due time of the version after the given one
+  long jitterMillis(String artifactName, long lastPublishTimestamp) {
+    if (jitterMillis <= 0) {
+      return 0;
+    }
+    return Math.floorMod(
+        mix(artifactName.hashCode() * 31L + lastPublishTimestamp), jitterMillis + 1);
+  }
+
+  // Spreads similar values, such as hash codes of names that only differ by their index, evenly
+  // over the whole long range
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
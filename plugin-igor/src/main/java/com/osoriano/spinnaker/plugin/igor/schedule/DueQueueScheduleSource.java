@@ -0,0 +1,150 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunNearCache;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunArtifactNamespace;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Only checks the artifacts that are due according to the due queue, and reschedules them from
+ * their new publish timestamps afterwards. A wake up is scheduled for the next due artifact if it
+ * is due before the next regular poll
+ */
+public class DueQueueScheduleSource implements DryRunScheduleSource {
+  private final DryRunDueQueue dueQueue = new DryRunDueQueue();
+  private final DryRunSchedule schedule;
+  private final DryRunNearCache nearCache;
+  private final Supplier<DryRunArtifactNamespace> artifactNamespace;
+  private final LongSupplier pollIntervalMillis;
+  private final TaskScheduler scheduler;
+  private final Registry registry;
+  private final Id dueLatenessId;
+  private final Id overrunId;
+
+  private ScheduledFuture<?> wakeUp;
+  private long wakeUpAt;
+
+  public DueQueueScheduleSource(
+      DryRunSchedule schedule,
+      DryRunNearCache nearCache,
+      Supplier<DryRunArtifactNamespace> artifactNamespace,
+      LongSupplier pollIntervalMillis,
+      TaskScheduler scheduler,
+      Registry registry) {
+    this.schedule = schedule;
+    this.nearCache = nearCache;
+    this.artifactNamespace = artifactNamespace;
+    this.pollIntervalMillis = pollIntervalMillis;
+    this.scheduler = scheduler;
+    this.registry = registry;
+    this.dueLatenessId = registry.createId("dryrun.scheduler.lateness");
+    this.overrunId = registry.createId("dryrun.scheduler.overruns");
+  }
+
+  @Override
+  public void poll(List<String> artifactNames, Consumer<List<String>> poller, Runnable pollAgain) {
+    long now = Instant.now().toEpochMilli();
+    syncDueQueue(artifactNames, now);
+
+    List<String> dueArtifactNames = new ArrayList<>();
+    for (DryRunDueQueue.DueArtifact dueArtifact : dueQueue.pollDue(now)) {
+      dueArtifactNames.add(dueArtifact.getArtifactName());
+      recordLateness(dueArtifact.getArtifactName(), now - dueArtifact.getDueAt());
+    }
+
+    try {
+      poller.accept(dueArtifactNames);
+    } finally {
+      scheduleArtifacts(dueArtifactNames, Instant.now().toEpochMilli());
+      scheduleWakeUp(pollAgain);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (wakeUp != null) {
+      wakeUp.cancel(false);
+    }
+  }
+
+  // Adds new artifacts to the due queue and drops the ones this replica no longer polls
+  private void syncDueQueue(List<String> artifactNames, long now) {
+    if (dueQueue.containsExactly(artifactNames)) {
+      return;
+    }
+
+    Set<String> current = new HashSet<>(artifactNames);
+    dueQueue.getArtifactNames().stream()
+        .filter(artifactName -> !current.contains(artifactName))
+        .forEach(dueQueue::remove);
+
+    List<String> added =
+        artifactNames.stream()
+            .filter(artifactName -> !dueQueue.contains(artifactName))
+            .collect(Collectors.toList());
+    scheduleArtifacts(added, now);
+  }
+
+  private void scheduleArtifacts(List<String> artifactNames, long now) {
+    if (artifactNames.isEmpty()) {
+      return;
+    }
+
+    // Any cached timestamp is good enough here, the artifact is checked again once it is due
+    nearCache
+        .getCacheValues(artifactNames, (name, timestamp) -> false)
+        .forEach(
+            (artifactName, timestamp) -> {
+              long dueAt = schedule.nextDueAt(artifactName, Long.parseLong(timestamp), now);
+              if (dueAt == Long.MAX_VALUE) {
+                dueAt = now + pollIntervalMillis.getAsLong();
+              }
+              dueQueue.schedule(artifactName, Math.max(dueAt, now));
+            });
+  }
+
+  private void scheduleWakeUp(Runnable pollAgain) {
+    OptionalLong nextDueAt = dueQueue.nextDueAt();
+    long now = Instant.now().toEpochMilli();
+    long nextPoll = now + pollIntervalMillis.getAsLong();
+
+    // Artifacts due now or after the next regular poll are picked up by the regular poll
+    if (nextDueAt.isEmpty() || nextDueAt.getAsLong() <= now || nextDueAt.getAsLong() >= nextPoll) {
+      return;
+    }
+    if (wakeUp != null && !wakeUp.isDone() && wakeUpAt <= nextDueAt.getAsLong()) {
+      return;
+    }
+
+    if (wakeUp != null) {
+      wakeUp.cancel(false);
+    }
+    wakeUpAt = nextDueAt.getAsLong();
+    wakeUp = scheduler.schedule(pollAgain, new Date(wakeUpAt));
+  }
+
+  private void recordLateness(String artifactName, long latenessMillis) {
+    registry.timer(dueLatenessId).record(latenessMillis, TimeUnit.MILLISECONDS);
+
+    // Publishing fell behind by a whole interval, so at least one version was skipped
+    Duration publishInterval = artifactNamespace.get().getGroup(artifactName).getPublishInterval();
+    if (latenessMillis >= publishInterval.toMillis()) {
+      registry.counter(overrunId).increment();
+    }
+  }
+}
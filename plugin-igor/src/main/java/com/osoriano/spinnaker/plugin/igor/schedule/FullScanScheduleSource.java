@@ -0,0 +1,13 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Checks every owned artifact on every poll cycle */
+public class FullScanScheduleSource implements DryRunScheduleSource {
+
+  @Override
+  public void poll(List<String> artifactNames, Consumer<List<String>> poller, Runnable pollAgain) {
+    poller.accept(artifactNames);
+  }
+}
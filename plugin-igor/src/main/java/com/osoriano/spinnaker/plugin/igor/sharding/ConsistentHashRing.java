@@ -0,0 +1,60 @@
+package com.osoriano.spinnaker.plugin.igor.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Assigns keys to members with consistent hashing. Each member is placed on the ring several times,
+ * so keys are spread evenly, and only the keys of a removed member move to other members
+ */
+public class ConsistentHashRing {
+  static final int VIRTUAL_NODES_PER_MEMBER = 128;
+
+  // Digests are not thread safe, and getting a new one on every hash is slow
+  private static final ThreadLocal<MessageDigest> MD5 =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+              throw new IllegalStateException("MD5 is required to be supported by every JVM", e);
+            }
+          });
+
+  private final NavigableMap<Long, String> ring = new TreeMap<>();
+  private final List<String> members;
+
+  public ConsistentHashRing(Collection<String> members) {
+    this.members = List.copyOf(members);
+    for (String member : this.members) {
+      for (int i = 0; i < VIRTUAL_NODES_PER_MEMBER; i++) {
+        ring.put(hash(member + "#" + i), member);
+      }
+    }
+  }
+
+  public List<String> getMembers() {
+    return members;
+  }
+
+  // Returns the member that owns the key, or null if the ring has no members
+  public String getOwner(String key) {
+    if (ring.isEmpty()) {
+      return null;
+    }
+    Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+    return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+  }
+
+  private static long hash(String value) {
+    byte[] digest = MD5.get().digest(value.getBytes(StandardCharsets.UTF_8));
+    return ByteBuffer.wrap(digest).getLong();
+  }
+}
@@ -0,0 +1,118 @@
+package com.osoriano.spinnaker.plugin.igor.sharding;
+
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits the dry run artifacts between the Igor replicas that are in service. Replicas announce
+ * themselves with a heartbeat on every poll, and each one only polls the artifacts it owns on a
+ * consistent hash ring of the live replicas. A replica that goes down is removed right away, and a
+ * replica that stops heartbeating is dropped once its heartbeat expires. The rebalance callback
+ * runs whenever the artifacts owned by this replica change. The owned artifacts are only hashed
+ * again when the ring or the artifacts change, not on every poll
+ */
+public class DryRunShardCoordinator {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final DryRunCache cache;
+  private final String replicaId;
+  private final Duration replicaTimeout;
+  private final Runnable onRebalance;
+
+  private volatile ConsistentHashRing ring;
+  private volatile OwnedArtifacts owned;
+
+  public DryRunShardCoordinator(
+      DryRunCache cache, String replicaId, Duration replicaTimeout, Runnable onRebalance) {
+    this.cache = cache;
+    this.replicaId = replicaId;
+    this.replicaTimeout = replicaTimeout;
+    this.onRebalance = onRebalance;
+    this.ring = new ConsistentHashRing(List.of(replicaId));
+  }
+
+  public String getReplicaId() {
+    return replicaId;
+  }
+
+  // Sends a heartbeat for this replica and refreshes the ring from the live replicas
+  public void refresh(long now) {
+    long expiredBefore = now - replicaTimeout.toMillis();
+    cache.setReplicaHeartbeat(replicaId, now, expiredBefore);
+
+    List<String> replicas = cache.getReplicas(expiredBefore);
+    if (!replicas.contains(replicaId)) {
+      // The heartbeat was just written, so only a concurrent removal can get here
+      return;
+    }
+
+    if (!replicas.equals(ring.getMembers())) {
+      logger.info("Dry run replicas changed from {} to {}", ring.getMembers(), replicas);
+      ring = new ConsistentHashRing(replicas);
+      onRebalance.run();
+    }
+  }
+
+  // Removes this replica, so the others take over its artifacts
+  public void leave() {
+    logger.info("Dry run replica {} is leaving", replicaId);
+    cache.removeReplica(replicaId);
+    ring = new ConsistentHashRing(List.of(replicaId));
+    onRebalance.run();
+  }
+
+  public boolean isOwned(String artifactName) {
+    return replicaId.equals(ring.getOwner(artifactName));
+  }
+
+  /**
+   * Returns the artifacts this replica owns, out of the given artifacts. The result is reused until
+   * the ring changes or other artifacts are given, e.g. after a reconfiguration. The artifacts must
+   * not change while they are in use, like the artifact namespace
+   */
+  public List<String> filterOwned(List<String> artifactNames) {
+    ConsistentHashRing currentRing = ring;
+    OwnedArtifacts current = owned;
+    if (current == null || current.ring != currentRing || current.artifactNames != artifactNames) {
+      current = new OwnedArtifacts(currentRing, artifactNames, replicaId);
+      owned = current;
+    }
+    return current;
+  }
+
+  // The artifacts owned by the replica on a ring, kept as their indexes in the given artifacts
+  private static class OwnedArtifacts extends AbstractList<String> implements RandomAccess {
+    private final ConsistentHashRing ring;
+    private final List<String> artifactNames;
+    private final int[] indexes;
+
+    OwnedArtifacts(ConsistentHashRing ring, List<String> artifactNames, String replicaId) {
+      this.ring = ring;
+      this.artifactNames = artifactNames;
+      int[] owned = new int[artifactNames.size()];
+      int count = 0;
+      for (int i = 0; i < owned.length; i++) {
+        if (replicaId.equals(ring.getOwner(artifactNames.get(i)))) {
+          owned[count++] = i;
+        }
+      }
+      this.indexes = Arrays.copyOf(owned, count);
+    }
+
+    @Override
+    public String get(int index) {
+      return artifactNames.get(indexes[index]);
+    }
+
+    @Override
+    public int size() {
+      return indexes.length;
+    }
+  }
+}
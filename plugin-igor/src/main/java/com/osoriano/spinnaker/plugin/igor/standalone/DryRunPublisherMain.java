@@ -0,0 +1,231 @@
+package com.osoriano.spinnaker.plugin.igor.standalone;
+
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunKeelClientConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunLoadProfileConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.ArtifactKind;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.MissedIntervalPolicy;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStaggerConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStandaloneConfig;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunKeelClient;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the dry run publisher on its own, e.g. ./gradlew :plugin-igor:runStandalonePublisher
+ * -PpublisherConfig=publisher.properties. The properties use the keys of the Igor plugin's
+ * artifact.igor settings, without the prefix:
+ *
+ * <pre>
+ * keel-client.base-url=http://keel:8087
+ * max-batch-size=100
+ * state-file=dryrun-state.properties
+ * publisher-groups.images.artifact-prefix=image-
+ * publisher-groups.images.number-of-unique-artifacts=10000
+ * publisher-groups.images.publish-interval=5m
+ * publisher-groups.images.artifact-kind=DOCKER
+ * </pre>
+ *
+ * Durations are either ISO-8601 durations, or a number followed by ms, s, m, h or d. Plain numbers
+ * are milliseconds
+ */
+public class DryRunPublisherMain {
+  private static final Logger logger = LoggerFactory.getLogger(DryRunPublisherMain.class);
+
+  private static final String GROUPS_PREFIX = "publisher-groups.";
+  private static final String DEFAULT_PUBLISHER_GROUP = "default";
+
+  // Time between two progress logs
+  private static final long REPORT_INTERVAL_SECONDS = 60;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: DryRunPublisherMain <publisher.properties>");
+      System.exit(1);
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    DryRunStandaloneConfig config = readConfig(properties);
+    if (config.getKeelClient() == null || config.getKeelClient().getBaseUrl() == null) {
+      throw new IllegalArgumentException("keel-client.base-url is required");
+    }
+
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    DryRunStandalonePublisher publisher =
+        new DryRunStandalonePublisher(
+            config,
+            new DryRunKeelClient(config.getKeelClient()),
+            new InMemoryDryRunCache(),
+            config.getStateFile() == null
+                ? null
+                : new DryRunStateFile(Path.of(config.getStateFile())),
+            executor,
+            System::currentTimeMillis);
+    logger.info("Dry run artifacts by kind: {}", publisher.getArtifactCounts());
+    publisher.start();
+    executor.scheduleAtFixedRate(
+        () ->
+            logger.info(
+                "Keel accepted {} dry run versions, {} failed",
+                publisher.getPublished(),
+                publisher.getFailed()),
+        REPORT_INTERVAL_SECONDS,
+        REPORT_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+
+    // The executor thread keeps the publisher running until the process is stopped
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  try {
+                    publisher.stop();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                }));
+  }
+
+  // Reads the publisher settings from the properties, with the keys of the Igor plugin
+  static DryRunStandaloneConfig readConfig(Properties properties) {
+    Map<String, DryRunPublisherGroupConfig> publisherGroups = new LinkedHashMap<>();
+    TreeSet<String> groupNames = new TreeSet<>();
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(GROUPS_PREFIX) && key.indexOf('.', GROUPS_PREFIX.length()) > 0) {
+        groupNames.add(
+            key.substring(GROUPS_PREFIX.length(), key.indexOf('.', GROUPS_PREFIX.length())));
+      }
+    }
+    for (String groupName : groupNames) {
+      publisherGroups.put(groupName, readGroup(properties, GROUPS_PREFIX + groupName + "."));
+    }
+    if (publisherGroups.isEmpty()) {
+      publisherGroups.put(DEFAULT_PUBLISHER_GROUP, readGroup(properties, ""));
+    }
+
+    return DryRunStandaloneConfig.builder()
+        .publisherGroups(publisherGroups)
+        .keelClient(
+            properties.getProperty("keel-client.base-url") == null
+                ? null
+                : DryRunKeelClientConfig.builder()
+                    .baseUrl(properties.getProperty("keel-client.base-url"))
+                    .maxInFlight(intValue(properties, "keel-client.max-in-flight"))
+                    .maxPending(intValue(properties, "keel-client.max-pending"))
+                    .maxIdleConnections(intValue(properties, "keel-client.max-idle-connections"))
+                    .keepAlive(duration(properties, "keel-client.keep-alive"))
+                    .connectTimeout(duration(properties, "keel-client.connect-timeout"))
+                    .requestTimeout(duration(properties, "keel-client.request-timeout"))
+                    .build())
+        .maxBatchSize(intValue(properties, "max-batch-size"))
+        .stagger(
+            properties.getProperty("stagger.phase-offsets") == null
+                    && properties.getProperty("stagger.jitter") == null
+                ? null
+                : DryRunStaggerConfig.builder()
+                    .phaseOffsets(
+                        Boolean.parseBoolean(properties.getProperty("stagger.phase-offsets")))
+                    .jitter(duration(properties, "stagger.jitter"))
+                    .build())
+        .stateFile(properties.getProperty("state-file"))
+        .stateFlushInterval(duration(properties, "state-flush-interval"))
+        .retryDelay(duration(properties, "retry-delay"))
+        .build();
+  }
+
+  private static DryRunPublisherGroupConfig readGroup(Properties properties, String prefix) {
+    return DryRunPublisherGroupConfig.builder()
+        .publishInterval(duration(properties, prefix + "publish-interval"))
+        .numberOfUniqueArtifacts(intValue(properties, prefix + "number-of-unique-artifacts"))
+        .artifactPrefix(properties.getProperty(prefix + "artifact-prefix"))
+        .indexPadLength(intValue(properties, prefix + "index-pad-length"))
+        .loadProfile(
+            properties.getProperty(prefix + "load-profile.type") == null
+                ? null
+                : DryRunLoadProfileConfig.builder()
+                    .type(
+                        DryRunLoadProfileConfig.Type.valueOf(
+                            enumName(properties.getProperty(prefix + "load-profile.type"))))
+                    .period(duration(properties, prefix + "load-profile.period"))
+                    .burstDuration(duration(properties, prefix + "load-profile.burst-duration"))
+                    .baseRate(doubleValue(properties, prefix + "load-profile.base-rate"))
+                    .peakRate(doubleValue(properties, prefix + "load-profile.peak-rate"))
+                    .seed(intValue(properties, prefix + "load-profile.seed"))
+                    .build())
+        .missedIntervalPolicy(
+            properties.getProperty(prefix + "missed-interval-policy") == null
+                ? null
+                : MissedIntervalPolicy.valueOf(
+                    enumName(properties.getProperty(prefix + "missed-interval-policy"))))
+        .maxBackfillBatchSize(intValue(properties, prefix + "max-backfill-batch-size"))
+        .artifactKind(
+            properties.getProperty(prefix + "artifact-kind") == null
+                ? null
+                : ArtifactKind.valueOf(enumName(properties.getProperty(prefix + "artifact-kind"))))
+        .build();
+  }
+
+  private static int intValue(Properties properties, String key) {
+    String value = properties.getProperty(key);
+    return value == null ? 0 : Integer.parseInt(value.trim());
+  }
+
+  private static Double doubleValue(Properties properties, String key) {
+    String value = properties.getProperty(key);
+    return value == null ? null : Double.valueOf(value.trim());
+  }
+
+  // Accepts the relaxed enum names Spring accepts, e.g. dry-run for DRY_RUN
+  private static String enumName(String value) {
+    return value.trim().replace('-', '_').toUpperCase();
+  }
+
+  // Parses an ISO-8601 duration, a number followed by ms, s, m, h or d, or a plain number of
+  // milliseconds
+  static Duration duration(Properties properties, String key) {
+    String value = properties.getProperty(key);
+    if (value == null) {
+      return null;
+    }
+    value = value.trim();
+    if (value.startsWith("P") || value.startsWith("p")) {
+      return Duration.parse(value);
+    }
+    if (value.isEmpty() || Character.isDigit(value.charAt(value.length() - 1))) {
+      return Duration.ofMillis(Long.parseLong(value));
+    }
+    if (value.endsWith("ms")) {
+      return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+    }
+    long amount = Long.parseLong(value.substring(0, value.length() - 1));
+    switch (value.charAt(value.length() - 1)) {
+      case 's':
+        return Duration.ofSeconds(amount);
+      case 'm':
+        return Duration.ofMinutes(amount);
+      case 'h':
+        return Duration.ofHours(amount);
+      case 'd':
+        return Duration.ofDays(amount);
+      default:
+        throw new IllegalArgumentException("Unknown duration unit for " + key + ": " + value);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.osoriano.spinnaker.plugin.igor.standalone;
+
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.ArtifactKind;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.MissedIntervalPolicy;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStandaloneConfig;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunArtifactNamespace;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunPublisherGroup;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunEventTemplate;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunKeelClient;
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunDueQueue;
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunSchedule;
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunStagger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes dry run artifacts straight to Keel, without Igor. Artifacts wait in a due queue, and
+ * each run publishes the ones that are due in events of up to maxBatchSize versions, through the
+ * asynchronous Keel client. An artifact leaves the queue while its event is in flight, and is
+ * scheduled again from its new timestamp once Keel accepted the event, or after the retry delay if
+ * Keel did not. Versions follow the same schedule and event format as the Igor plugin
+ */
+public class DryRunStandalonePublisher {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  // Longest wait between two runs, so artifacts rescheduled while waiting are not late by much
+  private static final long MAX_WAIT_MILLIS = 100;
+
+  private final DryRunArtifactNamespace artifactNamespace;
+  private final DryRunSchedule schedule;
+  private final DryRunDueQueue dueQueue = new DryRunDueQueue();
+  private final DryRunEventTemplate eventTemplate;
+  private final DryRunKeelClient keelClient;
+  private final DryRunCache cache;
+  private final DryRunStateFile stateFile;
+  private final ScheduledExecutorService executor;
+  private final LongSupplier clock;
+  private final int maxBatchSize;
+  private final long retryDelayMillis;
+  private final long stateFlushIntervalMillis;
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  public DryRunStandalonePublisher(
+      DryRunStandaloneConfig config,
+      DryRunKeelClient keelClient,
+      DryRunCache cache,
+      DryRunStateFile stateFile,
+      ScheduledExecutorService executor,
+      LongSupplier clock) {
+    long now = clock.getAsLong();
+    this.artifactNamespace = new DryRunArtifactNamespace(config.getPublisherGroups(), now);
+    DryRunStagger stagger =
+        config.getStagger() == null ? null : new DryRunStagger(config.getStagger(), now);
+    this.schedule = new DryRunSchedule(() -> artifactNamespace, stagger);
+    this.eventTemplate =
+        new DryRunEventTemplate(
+            DryRunEventTemplate.DRYRUN_ARTIFACT_TYPE, artifactNamespace::getGroup);
+    this.keelClient = keelClient;
+    this.cache = cache;
+    this.stateFile = stateFile;
+    this.executor = executor;
+    this.clock = clock;
+    this.maxBatchSize = Math.max(config.getMaxBatchSize(), 1);
+    this.retryDelayMillis = config.getRetryDelayOrDefault().toMillis();
+    this.stateFlushIntervalMillis = config.getStateFlushIntervalOrDefault().toMillis();
+  }
+
+  // Schedules every artifact from its last recorded timestamp, and starts publishing
+  public void start() {
+    if (stateFile != null) {
+      cache.setCacheValues(stateFile.read());
+      executor.scheduleWithFixedDelay(
+          this::flush, stateFlushIntervalMillis, stateFlushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    long now = clock.getAsLong();
+    cache
+        .getCacheValues(artifactNamespace)
+        .forEach(
+            (artifactName, timestamp) ->
+                dueQueue.schedule(
+                    artifactName, dueAt(artifactName, Long.parseLong(timestamp), now)));
+    logger.info("Publishing {} dry run artifacts to Keel", artifactNamespace.size());
+    executor.execute(this::run);
+  }
+
+  // Stops publishing, and writes the last timestamps of the artifacts that were accepted by Keel
+  public void stop() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+    keelClient.shutdown();
+    flush();
+  }
+
+  private void run() {
+    try {
+      publishDue();
+    } catch (RuntimeException e) {
+      logger.error("Failed to publish dry run artifacts", e);
+    }
+    OptionalLong nextDueAt = dueQueue.nextDueAt();
+    long waitMillis =
+        nextDueAt.isPresent()
+            ? Math.max(Math.min(nextDueAt.getAsLong() - clock.getAsLong(), MAX_WAIT_MILLIS), 0)
+            : MAX_WAIT_MILLIS;
+    if (!executor.isShutdown()) {
+      executor.schedule(this::run, waitMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Sends the versions of the due artifacts to Keel, in events of up to maxBatchSize versions.
+   * Returns the number of versions queued for Keel
+   */
+  public int publishDue() {
+    long now = clock.getAsLong();
+    DryRunEventTemplate.Payload payload = null;
+    Map<String, Long> batch = new LinkedHashMap<>();
+    int queued = 0;
+    for (DryRunDueQueue.DueArtifact due : dueQueue.pollDue(now)) {
+      String artifactName = due.getArtifactName();
+      long lastTimestamp = Long.parseLong(cache.getCacheValue(artifactName));
+      if (!schedule.isDue(artifactName, lastTimestamp, now)) {
+        dueQueue.schedule(artifactName, dueAt(artifactName, lastTimestamp, now));
+        continue;
+      }
+      DryRunPublisherGroup group = artifactNamespace.getGroup(artifactName);
+      List<Long> versions = versionTimestamps(artifactName, group.getConfig(), lastTimestamp, now);
+
+      // Backfilled versions of an artifact go out in a batch of their own
+      if (payload != null && (batch.size() >= maxBatchSize || versions.size() > 1)) {
+        send(payload, batch);
+        payload = null;
+        batch = new LinkedHashMap<>();
+      }
+      if (payload == null) {
+        payload = eventTemplate.newPayload(Math.max(maxBatchSize, versions.size()));
+      }
+      for (long version : versions) {
+        payload.add(artifactName, version);
+      }
+      batch.put(artifactName, versions.get(versions.size() - 1));
+      queued += versions.size();
+      if (versions.size() > 1) {
+        send(payload, batch);
+        payload = null;
+        batch = new LinkedHashMap<>();
+      }
+    }
+    if (payload != null) {
+      send(payload, batch);
+    }
+    return queued;
+  }
+
+  // Returns the timestamps of the versions to publish, oldest first
+  private List<Long> versionTimestamps(
+      String artifactName, DryRunPublisherGroupConfig groupConfig, long lastTimestamp, long now) {
+    if (lastTimestamp > 0
+        && groupConfig.getMissedIntervalPolicyOrDefault() == MissedIntervalPolicy.BACKFILL) {
+      List<Long> missed =
+          schedule.missedVersionTimestamps(
+              artifactName, lastTimestamp, now, groupConfig.getMaxBackfillBatchSizeOrDefault());
+      if (!missed.isEmpty()) {
+        return missed;
+      }
+    }
+    return List.of(now);
+  }
+
+  private void send(DryRunEventTemplate.Payload payload, Map<String, Long> batch) {
+    keelClient
+        .submit(DryRunEventTemplate.event(payload))
+        .whenComplete(
+            (ignored, error) -> {
+              long now = clock.getAsLong();
+              if (error != null) {
+                logger.debug("Keel did not accept {} dry run artifacts", batch.size(), error);
+                failed.addAndGet(payload.size());
+                batch.keySet().forEach(name -> dueQueue.schedule(name, now + retryDelayMillis));
+                return;
+              }
+              published.addAndGet(payload.size());
+              Map<String, String> timestamps = new LinkedHashMap<>();
+              batch.forEach((name, timestamp) -> timestamps.put(name, String.valueOf(timestamp)));
+              cache.setCacheValues(timestamps);
+              batch.forEach(
+                  (name, timestamp) -> dueQueue.schedule(name, dueAt(name, timestamp, now)));
+            });
+  }
+
+  // Artifacts that are not due at all, e.g. paused by their load profile, are checked again later
+  private long dueAt(String artifactName, long lastTimestamp, long now) {
+    long dueAt = schedule.nextDueAt(artifactName, lastTimestamp, now);
+    return dueAt == Long.MAX_VALUE ? now + retryDelayMillis : dueAt;
+  }
+
+  private void flush() {
+    if (stateFile == null) {
+      return;
+    }
+    try {
+      stateFile.write(cache.getCacheValues(artifactNamespace));
+    } catch (RuntimeException e) {
+      logger.error("Failed to write the dry run state", e);
+    }
+  }
+
+  // Returns the number of versions Keel accepted
+  public long getPublished() {
+    return published.get();
+  }
+
+  // Returns the number of versions Keel did not accept, and that are sent again
+  public long getFailed() {
+    return failed.get();
+  }
+
+  // Returns the number of artifacts by kind
+  public Map<ArtifactKind, Integer> getArtifactCounts() {
+    Map<ArtifactKind, Integer> counts = new LinkedHashMap<>();
+    for (DryRunPublisherGroup group : artifactNamespace.getGroups()) {
+      counts.merge(group.getConfig().getArtifactKindOrDefault(), group.size(), Integer::sum);
+    }
+    return counts;
+  }
+
+  List<String> getArtifactNames() {
+    return new ArrayList<>(artifactNamespace);
+  }
+}
@@ -0,0 +1,63 @@
+package com.osoriano.spinnaker.plugin.igor.standalone;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Local file holding the publish timestamp of each artifact, one artifact per line. The file is
+ * replaced in a single move on every write, so a crash leaves either the old or the new timestamps
+ */
+public class DryRunStateFile {
+  private final Path path;
+
+  public DryRunStateFile(Path path) {
+    this.path = path;
+  }
+
+  // Returns the timestamps by artifact name, or no timestamps if the file does not exist yet
+  public Map<String, String> read() {
+    Map<String, String> timestamps = new LinkedHashMap<>();
+    if (!Files.exists(path)) {
+      return timestamps;
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read dry run state from " + path, e);
+    }
+    properties
+        .stringPropertyNames()
+        .forEach(name -> timestamps.put(name, properties.getProperty(name)));
+    return timestamps;
+  }
+
+  public void write(Map<String, String> timestampByArtifactName) {
+    Properties properties = new Properties();
+    properties.putAll(timestampByArtifactName);
+    try {
+      Path directory = path.toAbsolutePath().getParent();
+      Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+      try {
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+          properties.store(writer, null);
+        }
+        Files.move(
+            temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write dry run state to " + path, e);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.osoriano.spinnaker.plugin.igor.web;
+
+import com.netflix.spinnaker.kork.web.exceptions.InvalidRequestException;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunBulkPublishProgress;
+import com.osoriano.spinnaker.plugin.igor.monitor.DryRunPollingMonitor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Publishes versions of a publisher group's artifacts on demand, e.g. to rehearse how Keel handles
+ * a spike, instead of waiting for the publish interval. Only admins may publish. Progress is
+ * streamed back as server sent events, and the publish stops if the client goes away. Only a few
+ * publishes run at once, and further requests are refused with 429 until one of them ends
+ */
+@RestController
+@ConditionalOnProperty(
+    "spinnaker.extensibility.plugins.osoriano.spinnakerdryrunplugin.config.artifact.igor.enabled")
+@RequestMapping("/dryrun/publisher-groups")
+public class DryRunPublishController {
+
+  // Time the stream stays open after the publish should have ended at the requested rate
+  private static final Duration STREAM_TIMEOUT_MARGIN = Duration.ofMinutes(1);
+
+  static final int MAX_CONCURRENT_PUBLISHES = 2;
+
+  private final DryRunPollingMonitor monitor;
+  private final ExecutorService executor;
+
+  @Autowired
+  public DryRunPublishController(DryRunPollingMonitor monitor) {
+    this.monitor = monitor;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dryrun-publish-");
+    threadFactory.setDaemon(true);
+    this.executor =
+        new ThreadPoolExecutor(
+            0,
+            MAX_CONCURRENT_PUBLISHES,
+            60,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            threadFactory);
+  }
+
+  @PreAuthorize("@fiatPermissionEvaluator.isAdmin()")
+  @PostMapping("/{group}/publish")
+  public SseEmitter publish(
+      @PathVariable String group, @RequestParam int count, @RequestParam double rate) {
+    try {
+      monitor.validateBulkPublish(group, count, rate);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException(e.getMessage());
+    }
+
+    long timeoutMillis = (long) (count / rate * 1000) + STREAM_TIMEOUT_MARGIN.toMillis();
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    Future<?> publish;
+    try {
+      publish =
+          executor.submit(
+              () -> {
+                try {
+                  monitor.bulkPublish(group, count, rate, progress -> send(emitter, progress));
+                  emitter.complete();
+                } catch (RuntimeException e) {
+                  emitter.completeWithError(e);
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      throw new TooManyPublishesException();
+    }
+    emitter.onTimeout(() -> publish.cancel(true));
+    emitter.onError(e -> publish.cancel(true));
+    return emitter;
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+  public static class TooManyPublishesException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TooManyPublishesException() {
+      super(
+          "Already running "
+              + MAX_CONCURRENT_PUBLISHES
+              + " dry run publishes, try again once one of them ended");
+    }
+  }
+
+  // Failing to send stops the publish, since nobody is watching it anymore
+  private static void send(SseEmitter emitter, DryRunBulkPublishProgress progress) {
+    try {
+      emitter.send(progress, MediaType.APPLICATION_JSON);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.osoriano.spinnaker.plugin.igor.builds;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.netflix.spinnaker.igor.build.BuildCache;
+import com.netflix.spinnaker.igor.history.EchoService;
+import com.netflix.spinnaker.igor.history.model.GenericBuildEvent;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunBuildConfig;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+
+public class DryRunBuildMonitorTest {
+  private static final Duration BUILD_INTERVAL = Duration.ofSeconds(60);
+
+  private Registry registry = new DefaultRegistry();
+  private BuildCache buildCache = mock(BuildCache.class);
+  private EchoService echoService = mock(EchoService.class);
+  private AtomicLong now = new AtomicLong(Instant.now().toEpochMilli());
+
+  private DryRunBuildConfig config =
+      DryRunBuildConfig.builder()
+          .numberOfJobs(1)
+          .jobPrefix("job")
+          .buildInterval(BUILD_INTERVAL)
+          .buildDuration(Duration.ofSeconds(20))
+          .buildHistory(5)
+          .build();
+  private DryRunBuildService buildService = new DryRunBuildService(config, now::get);
+  private DryRunBuildMonitor monitor =
+      new DryRunBuildMonitor(
+          new IgorConfigurationProperties(),
+          registry,
+          null,
+          null,
+          Optional.empty(),
+          mock(TaskScheduler.class),
+          buildService,
+          buildCache,
+          Optional.of(echoService),
+          config);
+
+  @Test
+  public void poll_OnlyCachesTheLastBuild_OfJobsSeenForTheFirstTime() {
+    when(buildCache.getLastBuild("dryrun-ci", "job1", false)).thenReturn(-1);
+
+    monitor.poll(true);
+
+    verify(buildCache)
+        .setLastBuild(
+            "dryrun-ci",
+            "job1",
+            buildService.getLastCompletedBuildNumber("job1"),
+            false,
+            (int) Duration.ofDays(1).toSeconds());
+    verify(echoService, never()).postEvent(any());
+  }
+
+  @Test
+  public void poll_SendsAnEvent_ForEachBuildCompletedSinceTheCachedBuild() {
+    int cachedBuild = buildService.getLastCompletedBuildNumber("job1");
+    when(buildCache.getLastBuild("dryrun-ci", "job1", false)).thenReturn(cachedBuild);
+    now.addAndGet(BUILD_INTERVAL.multipliedBy(3).toMillis());
+
+    monitor.poll(true);
+
+    ArgumentCaptor<GenericBuildEvent> eventCaptor =
+        ArgumentCaptor.forClass(GenericBuildEvent.class);
+    verify(echoService, times(3)).postEvent(eventCaptor.capture());
+    List<Integer> sentBuilds =
+        eventCaptor.getAllValues().stream()
+            .map(event -> event.getContent().getProject().getLastBuild().getNumber())
+            .collect(Collectors.toList());
+    assertEquals(sentBuilds, List.of(cachedBuild + 1, cachedBuild + 2, cachedBuild + 3));
+    assertEquals(eventCaptor.getValue().getContent().getMaster(), "dryrun-ci");
+    assertEquals(eventCaptor.getValue().getContent().getProject().getName(), "job1");
+    verify(buildCache)
+        .setLastBuild(eq("dryrun-ci"), eq("job1"), eq(cachedBuild + 3), eq(false), anyInt());
+    assertEquals(registry.counter("dryrun.builds.events", "result", "SUCCESS").count(), 3);
+  }
+
+  @Test
+  public void poll_KeepsBuildsAfterAFailedEvent_ForTheNextPoll() {
+    int cachedBuild = buildService.getLastCompletedBuildNumber("job1");
+    when(buildCache.getLastBuild("dryrun-ci", "job1", false)).thenReturn(cachedBuild);
+    now.addAndGet(BUILD_INTERVAL.multipliedBy(3).toMillis());
+    doNothing()
+        .doThrow(new IllegalStateException("Echo is down"))
+        .when(echoService)
+        .postEvent(any());
+
+    monitor.poll(true);
+
+    verify(echoService, times(2)).postEvent(any());
+    verify(buildCache)
+        .setLastBuild(eq("dryrun-ci"), eq("job1"), eq(cachedBuild + 1), eq(false), anyInt());
+    assertEquals(registry.counter("dryrun.builds.events.failures").count(), 1);
+  }
+
+  @Test
+  public void poll_OnlyMovesTheCachedBuild_WhenNotSendingEvents() {
+    int cachedBuild = buildService.getLastCompletedBuildNumber("job1");
+    when(buildCache.getLastBuild("dryrun-ci", "job1", false)).thenReturn(cachedBuild);
+    now.addAndGet(BUILD_INTERVAL.toMillis());
+
+    monitor.poll(false);
+
+    verify(buildCache)
+        .setLastBuild(eq("dryrun-ci"), eq("job1"), eq(cachedBuild + 1), eq(false), anyInt());
+    verify(echoService, never()).postEvent(any());
+  }
+
+  @Test
+  public void poll_DoesNotTouchTheCache_WhenNoBuildCompleted() {
+    when(buildCache.getLastBuild("dryrun-ci", "job1", false))
+        .thenReturn(buildService.getLastCompletedBuildNumber("job1"));
+
+    monitor.poll(true);
+
+    verify(buildCache, never())
+        .setLastBuild(anyString(), anyString(), anyInt(), anyBoolean(), anyInt());
+    verify(echoService, never()).postEvent(any());
+  }
+}
@@ -0,0 +1,128 @@
+package com.osoriano.spinnaker.plugin.igor.builds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.netflix.spinnaker.igor.build.model.GenericBuild;
+import com.netflix.spinnaker.igor.build.model.Result;
+import com.netflix.spinnaker.kork.web.exceptions.NotFoundException;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunBuildConfig;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class DryRunBuildServiceTest {
+  private final AtomicLong now = new AtomicLong(Instant.now().toEpochMilli());
+
+  @Test
+  public void getJobNames_PadsTheJobIndex() {
+    DryRunBuildService buildService = buildService(0);
+
+    assertEquals(buildService.getName(), "dryrun-ci");
+    assertEquals(buildService.getJobNames(), List.of("job01", "job02", "job03"));
+  }
+
+  @Test
+  public void getGenericBuild_RunsEachBuildForTheBuildDuration() {
+    DryRunBuildService buildService = buildService(0);
+    int lastBuild = buildService.getLastBuildNumber("job01");
+    long startedAt =
+        Long.parseLong(buildService.getGenericBuild("job01", lastBuild).getTimestamp());
+
+    now.set(startedAt + Duration.ofSeconds(10).toMillis());
+    GenericBuild running = buildService.getGenericBuild("job01", lastBuild);
+    assertTrue(running.isBuilding());
+    assertEquals(running.getResult(), Result.BUILDING);
+    assertEquals(buildService.getLastCompletedBuildNumber("job01"), lastBuild - 1);
+
+    now.set(startedAt + Duration.ofSeconds(20).toMillis());
+    GenericBuild completed = buildService.getGenericBuild("job01", lastBuild);
+    assertFalse(completed.isBuilding());
+    assertEquals(completed.getResult(), Result.SUCCESS);
+    assertEquals(completed.getDuration(), Integer.valueOf(20000));
+    assertEquals(buildService.getLastCompletedBuildNumber("job01"), lastBuild);
+
+    now.set(startedAt + Duration.ofSeconds(60).toMillis());
+    assertEquals(buildService.getLastBuildNumber("job01"), lastBuild + 1);
+  }
+
+  @Test
+  public void getBuilds_ListsTheBuildHistory_NewestFirst() {
+    DryRunBuildService buildService = buildService(0);
+    int lastBuild = buildService.getLastBuildNumber("job02");
+
+    List<Integer> numbers =
+        buildService.getBuilds("job02").stream()
+            .map(GenericBuild::getNumber)
+            .collect(Collectors.toList());
+
+    assertEquals(numbers, List.of(lastBuild, lastBuild - 1, lastBuild - 2));
+  }
+
+  @Test
+  public void getGenericBuild_FailsBuilds_AtTheFailureRate() {
+    DryRunBuildService buildService = buildService(1);
+    int lastBuild = buildService.getLastCompletedBuildNumber("job03");
+
+    assertEquals(buildService.getGenericBuild("job03", lastBuild).getResult(), Result.FAILURE);
+  }
+
+  @Test
+  public void getGenericBuild_Throws_ForBuildsThatDidNotStart() {
+    DryRunBuildService buildService = buildService(0);
+
+    try {
+      buildService.getGenericBuild("job01", buildService.getLastBuildNumber("job01") + 1);
+      fail("Expected the build not to be found");
+    } catch (NotFoundException e) {
+      // expected
+    }
+    try {
+      buildService.getGenericBuild("unknown", 1);
+      fail("Expected the job not to be found");
+    } catch (NotFoundException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void triggerBuildWithParameters_ReturnsTheNextScheduledBuild() {
+    DryRunBuildService buildService = buildService(0);
+    int lastBuild = buildService.getLastBuildNumber("job01");
+
+    assertEquals(buildService.triggerBuildWithParameters("job01", Map.of()), lastBuild + 1);
+    assertEquals(buildService.getLastBuildNumber("job01"), lastBuild);
+  }
+
+  @Test
+  public void getLastBuildNumber_StopsAtTheLargestInt() {
+    DryRunBuildService buildService =
+        new DryRunBuildService(
+            DryRunBuildConfig.builder().numberOfJobs(1).buildInterval(Duration.ofMillis(1)).build(),
+            () -> Instant.parse("2100-01-01T00:00:00Z").toEpochMilli());
+    String job = buildService.getJobNames().get(0);
+
+    assertEquals(buildService.getLastBuildNumber(job), Integer.MAX_VALUE);
+    assertEquals(buildService.triggerBuildWithParameters(job, Map.of()), Integer.MAX_VALUE);
+  }
+
+  private DryRunBuildService buildService(double failureRate) {
+    return new DryRunBuildService(
+        DryRunBuildConfig.builder()
+            .numberOfJobs(3)
+            .jobPrefix("job")
+            .indexPadLength(2)
+            .buildInterval(Duration.ofSeconds(60))
+            .buildDuration(Duration.ofSeconds(20))
+            .failureRate(failureRate)
+            .buildHistory(3)
+            .build(),
+        now::get);
+  }
+}
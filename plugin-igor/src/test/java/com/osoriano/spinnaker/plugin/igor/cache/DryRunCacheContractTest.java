@@ -0,0 +1,176 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Behavior every dry run cache backend must have, run against each backend by its subclass */
+public abstract class DryRunCacheContractTest {
+  private DryRunCache cache;
+
+  protected abstract DryRunCache newCache();
+
+  @Before
+  public void setUp() {
+    cache = newCache();
+  }
+
+  @Test
+  public void getCacheValue_ReturnsLastTimestamp_OrZeroIfNeverPublished() {
+    assertEquals(cache.getCacheValue("artifact1"), "0");
+
+    cache.setCacheValue("artifact1", "1000");
+    cache.setCacheValue("artifact1", "2000");
+
+    assertEquals(cache.getCacheValue("artifact1"), "2000");
+  }
+
+  @Test
+  public void getCacheValues_ReturnsTimestampsInRequestedOrder() {
+    Map<String, String> timestamps = new LinkedHashMap<>();
+    timestamps.put("artifact1", "1000");
+    timestamps.put("artifact3", "3000");
+    cache.setCacheValues(timestamps);
+    cache.setCacheValues(Map.of("artifact3", "3500"));
+
+    Map<String, String> result =
+        cache.getCacheValues(List.of("artifact3", "artifact2", "artifact1"));
+
+    assertEquals(new ArrayList<>(result.keySet()), List.of("artifact3", "artifact2", "artifact1"));
+    assertEquals(result, Map.of("artifact1", "1000", "artifact2", "0", "artifact3", "3500"));
+  }
+
+  @Test
+  public void claimPublish_OnlySucceeds_FromTheExpectedTimestamp() {
+    assertTrue(cache.claimPublish("artifact1", "0", "1000"));
+    assertFalse(cache.claimPublish("artifact1", "0", "1001"));
+    assertFalse(cache.claimPublish("artifact1", "999", "1001"));
+    assertEquals(cache.getCacheValue("artifact1"), "1000");
+
+    // Releasing a claim moves the timestamp back
+    assertTrue(cache.claimPublish("artifact1", "1000", "0"));
+    assertTrue(cache.claimPublish("artifact1", "0", "2000"));
+    assertEquals(cache.getCacheValue("artifact1"), "2000");
+  }
+
+  @Test
+  public void claimPublishes_ReturnsOnlyClaimedArtifacts() {
+    cache.setCacheValues(Map.of("artifact1", "1000", "artifact2", "1000"));
+
+    Map<String, String> expected = new LinkedHashMap<>();
+    expected.put("artifact1", "1000");
+    expected.put("artifact2", "500");
+    expected.put("artifact3", "0");
+
+    assertEquals(cache.claimPublishes(expected, "3000"), Set.of("artifact1", "artifact3"));
+    assertEquals(
+        cache.getCacheValues(List.of("artifact1", "artifact2", "artifact3")),
+        Map.of("artifact1", "3000", "artifact2", "1000", "artifact3", "3000"));
+  }
+
+  @Test
+  public void sweep_RemovesOnlyTimestampsOfArtifactsNoLongerLive() {
+    cache.setCacheValues(Map.of("artifact1", "1000", "artifact2", "2000", "artifact3", "3000"));
+
+    assertEquals(cache.sweep(Set.of("artifact2")::contains), 2);
+
+    assertEquals(
+        cache.getCacheValues(List.of("artifact1", "artifact2", "artifact3")),
+        Map.of("artifact1", "0", "artifact2", "2000", "artifact3", "0"));
+  }
+
+  @Test
+  public void getReservedPublishes_ReturnsReservations_UntilTheyAreReleasedOrExpire() {
+    cache.setCacheValue("artifact1", "1000");
+    cache.reservePublishes(List.of("artifact1", "artifact2"), 2000);
+    cache.reservePublishes(List.of("artifact3"), 3000);
+
+    List<String> artifactNames = List.of("artifact1", "artifact2", "artifact3", "artifact4");
+    assertEquals(
+        cache.getReservedPublishes(artifactNames, 1500),
+        Set.of("artifact1", "artifact2", "artifact3"));
+    assertEquals(cache.getReservedPublishes(artifactNames, 2000), Set.of("artifact3"));
+
+    // Reservations leave the timestamps alone
+    cache.releasePublishes(List.of("artifact1", "artifact3"));
+    assertEquals(cache.getReservedPublishes(artifactNames, 1500), Set.of("artifact2"));
+    assertEquals(cache.getCacheValue("artifact1"), "1000");
+  }
+
+  @Test
+  public void getReplicas_ReturnsLiveReplicasSortedById() {
+    cache.setReplicaHeartbeat("replica2", 1000, 0);
+    cache.setReplicaHeartbeat("replica1", 1500, 0);
+    cache.setReplicaHeartbeat("replica3", 500, 0);
+    assertEquals(cache.getReplicas(1000), List.of("replica1", "replica2"));
+
+    // replica3's heartbeat is too old, and replica1 left
+    cache.setReplicaHeartbeat("replica2", 2000, 1000);
+    cache.removeReplica("replica1");
+    assertEquals(cache.getReplicas(0), List.of("replica2"));
+  }
+
+  @Test
+  public void claimOutbox_ClaimsOldestEntriesFirst_UntilAcked() {
+    cache.pushOutbox(List.of("1:artifact1", "2:artifact2", "3:artifact3"), 0);
+    assertEquals(cache.getOutboxDepth(), 3);
+    assertEquals(cache.getOldestOutboxEntry(), "1:artifact1");
+
+    assertEquals(cache.claimOutbox("replica1", 2), List.of("1:artifact1", "2:artifact2"));
+    assertEquals(cache.claimOutbox("replica2", 2), List.of("3:artifact3"));
+    assertEquals(cache.claimOutbox("replica2", 2), List.of());
+    assertEquals(cache.getOutboxDepth(), 0);
+    assertNull(cache.getOldestOutboxEntry());
+    assertEquals(cache.getOutboxInFlightReplicas(), List.of("replica1", "replica2"));
+
+    cache.ackOutbox("replica1");
+    assertEquals(cache.requeueOutbox("replica1"), 0);
+    assertEquals(cache.getOutboxInFlightReplicas(), List.of("replica2"));
+  }
+
+  @Test
+  public void requeueOutbox_MakesInFlightEntriesClaimableAgain() {
+    cache.pushOutbox(List.of("1:artifact1", "2:artifact2"), 0);
+    cache.claimOutbox("replica1", 2);
+
+    assertEquals(cache.requeueOutbox("replica1"), 2);
+    assertEquals(cache.getOutboxDepth(), 2);
+
+    List<String> reclaimed = cache.claimOutbox("replica2", 10);
+    assertEquals(reclaimed.size(), 2);
+    assertTrue(reclaimed.containsAll(List.of("1:artifact1", "2:artifact2")));
+  }
+
+  @Test
+  public void requeueOutbox_PutsEntriesBackBeforeNewerEntries_InTheirOrder() {
+    cache.pushOutbox(List.of("1:artifact1", "2:artifact2", "3:artifact3"), 0);
+    cache.claimOutbox("replica1", 2);
+    cache.pushOutbox(List.of("4:artifact4"), 0);
+
+    assertEquals(cache.requeueOutbox("replica1"), 2);
+
+    assertEquals(cache.getOldestOutboxEntry(), "1:artifact1");
+    assertEquals(cache.claimOutbox("replica2", 1), List.of("1:artifact1"));
+    assertEquals(
+        cache.claimOutbox("replica2", 10), List.of("2:artifact2", "3:artifact3", "4:artifact4"));
+  }
+
+  @Test
+  public void pushOutbox_DropsOldestEntries_WhenOutboxIsFull() {
+    cache.pushOutbox(List.of("1:artifact1", "2:artifact2"), 3);
+
+    assertEquals(cache.pushOutbox(List.of("3:artifact3", "4:artifact4"), 3), 1);
+
+    assertEquals(cache.getOutboxDepth(), 3);
+    assertEquals(cache.getOldestOutboxEntry(), "2:artifact2");
+  }
+}
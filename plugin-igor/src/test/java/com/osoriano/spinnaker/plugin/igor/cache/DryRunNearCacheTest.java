@@ -0,0 +1,80 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class DryRunNearCacheTest {
+  private DryRunCache cache = mock(DryRunCache.class);
+  private DryRunNearCache nearCache = new DryRunNearCache(cache, 2);
+
+  @Test
+  public void getCacheValue_SkipsRedis_WhileArtifactIsNotDue() {
+    nearCache.setCacheValue("artifact1", "1000");
+    verify(cache).setCacheValue("artifact1", "1000");
+
+    // Not due until after 1000, so the written timestamp is used
+    assertEquals(nearCache.getCacheValue("artifact1", dueAtOrBefore(999)), "1000");
+    verify(cache, never()).getCacheValue("artifact1");
+
+    // The artifact looks due, so the timestamp is read again from Redis
+    when(cache.getCacheValue("artifact1")).thenReturn("1500");
+    assertEquals(nearCache.getCacheValue("artifact1", dueAtOrBefore(1000)), "1500");
+    assertEquals(nearCache.getCacheValue("artifact1", dueAtOrBefore(1000)), "1500");
+    verify(cache, times(1)).getCacheValue("artifact1");
+  }
+
+  @Test
+  public void getCacheValues_OnlyReadsRedis_ForArtifactsThatMayBeDue() {
+    nearCache.setCacheValues(Map.of("artifact1", "1000"));
+    when(cache.getCacheValues(List.of("artifact2"))).thenReturn(Map.of("artifact2", "0"));
+
+    Map<String, String> result =
+        nearCache.getCacheValues(List.of("artifact1", "artifact2"), dueAtOrBefore(500));
+
+    assertEquals(result, Map.of("artifact1", "1000", "artifact2", "0"));
+    verify(cache).getCacheValues(List.of("artifact2"));
+  }
+
+  @Test
+  public void setCacheValue_EvictsLeastRecentlyUsed_WhenFull() {
+    nearCache.setCacheValue("artifact1", "1000");
+    nearCache.setCacheValue("artifact2", "1000");
+    nearCache.getCacheValue("artifact1", dueAtOrBefore(0));
+    nearCache.setCacheValue("artifact3", "1000");
+    assertEquals(nearCache.size(), 2);
+
+    // artifact2 was evicted, artifact1 was used more recently
+    when(cache.getCacheValue("artifact2")).thenReturn("1000");
+    nearCache.getCacheValue("artifact1", dueAtOrBefore(0));
+    nearCache.getCacheValue("artifact2", dueAtOrBefore(0));
+    verify(cache, never()).getCacheValue("artifact1");
+    verify(cache).getCacheValue("artifact2");
+
+    nearCache.invalidateAll();
+    assertEquals(nearCache.size(), 0);
+  }
+
+  @Test
+  public void getCacheValue_AlwaysReadsRedis_WhenDisabled() {
+    DryRunNearCache disabled = new DryRunNearCache(cache, 0);
+    when(cache.getCacheValue("artifact1")).thenReturn("1000");
+
+    disabled.setCacheValue("artifact1", "1000");
+    disabled.getCacheValue("artifact1", dueAtOrBefore(0));
+    disabled.getCacheValue("artifact1", dueAtOrBefore(0));
+
+    verify(cache, times(2)).getCacheValue("artifact1");
+  }
+
+  private static DryRunNearCache.DueCheck dueAtOrBefore(long dueAtOrBefore) {
+    return (artifactName, lastPublishTimestamp) -> lastPublishTimestamp <= dueAtOrBefore;
+  }
+}
@@ -0,0 +1,8 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+public class InMemoryDryRunCacheTest extends DryRunCacheContractTest {
+  @Override
+  protected DryRunCache newCache() {
+    return new InMemoryDryRunCache();
+  }
+}
@@ -0,0 +1,340 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
+import com.netflix.spinnaker.kork.jedis.RedisScanResult;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.commands.BinaryJedisCommands;
+import redis.clients.jedis.commands.JedisCommands;
+import redis.clients.jedis.commands.MultiKeyCommands;
+import redis.clients.jedis.commands.RedisPipeline;
+import redis.clients.jedis.commands.ScriptingCommands;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+/**
+ * Redis stand-in that keeps its data in memory, used by the cache contract tests and by benchmarks,
+ * which then measure the plugin instead of the network. Only the commands used by the dry run cache
+ * are supported. Pipelined commands run right away, and their responses are already set when the
+ * pipeline is synced. The publish claim is the only script, and it runs in Java
+ */
+@SuppressWarnings("overloads")
+public class InMemoryRedisClientDelegate implements RedisClientDelegate {
+  private static final String CLAIM_SCRIPT_SHA = "claim";
+
+  private final Map<String, Map<String, String>> hashes = new HashMap<>();
+  private final Map<String, Map<String, Double>> sortedSets = new HashMap<>();
+  private final Map<String, Deque<String>> lists = new HashMap<>();
+
+  private final JedisCommands commands = proxy(JedisCommands.class, this::execute);
+  private final MultiKeyCommands multiKeyCommands = proxy(MultiKeyCommands.class, this::execute);
+  private final ScriptingCommands scriptingCommands =
+      proxy(ScriptingCommands.class, this::executeScript);
+  private final RedisPipeline pipeline =
+      proxy(RedisPipeline.class, (name, args) -> new CompletedResponse<>(execute(name, args)));
+
+  @Override
+  public String name() {
+    return "inMemory";
+  }
+
+  @Override
+  public <R> R withCommandsClient(Function<JedisCommands, R> f) {
+    return f.apply(commands);
+  }
+
+  @Override
+  public void withCommandsClient(Consumer<JedisCommands> f) {
+    f.accept(commands);
+  }
+
+  @Override
+  public <R> R withMultiClient(Function<MultiKeyCommands, R> f) {
+    return f.apply(multiKeyCommands);
+  }
+
+  @Override
+  public void withMultiClient(Consumer<MultiKeyCommands> f) {
+    f.accept(multiKeyCommands);
+  }
+
+  @Override
+  public <R> R withBinaryClient(Function<BinaryJedisCommands, R> f) {
+    throw new UnsupportedOperationException("withBinaryClient");
+  }
+
+  @Override
+  public void withBinaryClient(Consumer<BinaryJedisCommands> f) {
+    throw new UnsupportedOperationException("withBinaryClient");
+  }
+
+  @Override
+  public void withPipeline(Consumer<RedisPipeline> f) {
+    f.accept(pipeline);
+  }
+
+  @Override
+  public <R> R withPipeline(Function<RedisPipeline, R> f) {
+    return f.apply(pipeline);
+  }
+
+  @Override
+  public void syncPipeline(RedisPipeline p) {}
+
+  @Override
+  public boolean supportsMultiKeyPipelines() {
+    return false;
+  }
+
+  @Override
+  public void withMultiKeyPipeline(Consumer<Pipeline> f) {
+    throw new UnsupportedOperationException("withMultiKeyPipeline");
+  }
+
+  @Override
+  public <R> R withMultiKeyPipeline(Function<Pipeline, R> f) {
+    throw new UnsupportedOperationException("withMultiKeyPipeline");
+  }
+
+  @Override
+  public boolean supportsTransactions() {
+    return false;
+  }
+
+  @Override
+  public void withTransaction(Consumer<Transaction> f) {
+    throw new UnsupportedOperationException("withTransaction");
+  }
+
+  @Override
+  public <R> R withTransaction(Function<Transaction, R> f) {
+    throw new UnsupportedOperationException("withTransaction");
+  }
+
+  @Override
+  public boolean supportsScripting() {
+    return true;
+  }
+
+  @Override
+  public void withScriptingClient(Consumer<ScriptingCommands> f) {
+    f.accept(scriptingCommands);
+  }
+
+  @Override
+  public <R> R withScriptingClient(Function<ScriptingCommands, R> f) {
+    return f.apply(scriptingCommands);
+  }
+
+  @Override
+  public void withKeyScan(String pattern, int count, Consumer<RedisScanResult> f) {
+    if (!pattern.endsWith("*") || pattern.indexOf('*') != pattern.length() - 1) {
+      throw new UnsupportedOperationException("withKeyScan only supports prefix patterns");
+    }
+    String prefix = pattern.substring(0, pattern.length() - 1);
+    List<String> keys = new ArrayList<>();
+    synchronized (this) {
+      for (Map<String, ?> keyspace : List.of(hashes, sortedSets, lists)) {
+        keyspace.keySet().stream().filter(key -> key.startsWith(prefix)).forEach(keys::add);
+      }
+    }
+    f.accept(() -> keys);
+  }
+
+  // Drops every key, e.g. between benchmark iterations
+  public synchronized void flushAll() {
+    hashes.clear();
+    sortedSets.clear();
+    lists.clear();
+  }
+
+  private synchronized Object execute(String command, Object[] args) {
+    switch (command) {
+      case "hset":
+        return hashes
+                    .computeIfAbsent((String) args[0], key -> new HashMap<>())
+                    .put((String) args[1], (String) args[2])
+                == null
+            ? 1L
+            : 0L;
+      case "hsetnx":
+        return hashes
+                    .computeIfAbsent((String) args[0], key -> new HashMap<>())
+                    .putIfAbsent((String) args[1], (String) args[2])
+                == null
+            ? 1L
+            : 0L;
+      case "hdel":
+        long deleted = 0;
+        for (String field : (String[]) args[1]) {
+          if (hashes.getOrDefault((String) args[0], new HashMap<>()).remove(field) != null) {
+            deleted++;
+          }
+        }
+        return deleted;
+      case "hscan":
+        // The whole hash is returned in a single page
+        return new ScanResult<>(
+            ScanParams.SCAN_POINTER_START,
+            new ArrayList<>(hashes.getOrDefault((String) args[0], Map.of()).entrySet()));
+      case "hget":
+        return hashes.getOrDefault((String) args[0], Map.of()).get((String) args[1]);
+      case "zadd":
+        sortedSets
+            .computeIfAbsent((String) args[0], key -> new HashMap<>())
+            .put((String) args[2], (Double) args[1]);
+        return 1L;
+      case "zrem":
+        long removed = 0;
+        for (String member : (String[]) args[1]) {
+          if (sortedSets.getOrDefault((String) args[0], new HashMap<>()).remove(member) != null) {
+            removed++;
+          }
+        }
+        return removed;
+      case "zrangeByScore":
+        Set<String> members = new LinkedHashSet<>();
+        sortedSets.getOrDefault((String) args[0], Map.of()).entrySet().stream()
+            .filter(e -> e.getValue() >= (Double) args[1] && e.getValue() <= (Double) args[2])
+            .sorted(Map.Entry.comparingByValue())
+            .forEach(e -> members.add(e.getKey()));
+        return members;
+      case "zremrangeByScore":
+        Map<String, Double> sortedSet = sortedSets.getOrDefault((String) args[0], new HashMap<>());
+        int before = sortedSet.size();
+        sortedSet
+            .values()
+            .removeIf(score -> score >= (Double) args[1] && score <= (Double) args[2]);
+        return (long) (before - sortedSet.size());
+      case "lpush":
+        Deque<String> list = lists.computeIfAbsent((String) args[0], key -> new ArrayDeque<>());
+        for (String value : (String[]) args[1]) {
+          list.addFirst(value);
+        }
+        return (long) list.size();
+      case "rpush":
+        Deque<String> tail = lists.computeIfAbsent((String) args[0], key -> new ArrayDeque<>());
+        for (String value : (String[]) args[1]) {
+          tail.addLast(value);
+        }
+        return (long) tail.size();
+      case "lrange":
+        if ((Long) args[1] != 0 || (Long) args[2] != -1) {
+          throw new UnsupportedOperationException("lrange is only supported for the whole list");
+        }
+        return new ArrayList<>(lists.getOrDefault((String) args[0], new ArrayDeque<>()));
+      case "ltrim":
+        return ltrim((String) args[0], (Long) args[1], (Long) args[2]);
+      case "llen":
+        return (long) lists.getOrDefault((String) args[0], new ArrayDeque<>()).size();
+      case "lindex":
+        return lindex((String) args[0], (Long) args[1]);
+      case "rpoplpush":
+        String value = lists.getOrDefault((String) args[0], new ArrayDeque<>()).pollLast();
+        if (value != null) {
+          lists.computeIfAbsent((String) args[1], key -> new ArrayDeque<>()).addFirst(value);
+        }
+        return value;
+      case "del":
+        boolean existed =
+            hashes.remove((String) args[0]) != null
+                | sortedSets.remove((String) args[0]) != null
+                | lists.remove((String) args[0]) != null;
+        return existed ? 1L : 0L;
+      default:
+        throw new UnsupportedOperationException(command);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized Object executeScript(String command, Object[] args) {
+    switch (command) {
+      case "scriptLoad":
+        if (!RedisDryRunCache.CLAIM_SCRIPT.equals(args[0])) {
+          throw new UnsupportedOperationException("Only the claim script is supported");
+        }
+        return CLAIM_SCRIPT_SHA;
+      case "evalsha":
+        if (!CLAIM_SCRIPT_SHA.equals(args[0])) {
+          throw new JedisNoScriptException("NOSCRIPT No matching script");
+        }
+        List<String> keys = (List<String>) args[1];
+        List<String> argv = (List<String>) args[2];
+        Map<String, String> hash = hashes.computeIfAbsent(keys.get(0), key -> new HashMap<>());
+        if (!hash.getOrDefault(argv.get(0), "0").equals(argv.get(1))) {
+          return 0L;
+        }
+        hash.put(argv.get(0), argv.get(2));
+        return 1L;
+      default:
+        throw new UnsupportedOperationException(command);
+    }
+  }
+
+  private String ltrim(String key, long start, long stop) {
+    if (start != 0 || stop < 0) {
+      throw new UnsupportedOperationException("ltrim is only supported from the head of the list");
+    }
+    Deque<String> list = lists.getOrDefault(key, new ArrayDeque<>());
+    while (list.size() > stop + 1) {
+      list.pollLast();
+    }
+    return "OK";
+  }
+
+  private String lindex(String key, long index) {
+    Deque<String> list = lists.getOrDefault(key, new ArrayDeque<>());
+    long position = index < 0 ? list.size() + index : index;
+    if (position < 0 || position >= list.size()) {
+      return null;
+    }
+    return list.stream().skip(position).findFirst().orElse(null);
+  }
+
+  @FunctionalInterface
+  private interface CommandHandler {
+    Object handle(String command, Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, CommandHandler handler) {
+    InvocationHandler invocationHandler =
+        (Object proxy, Method method, Object[] args) -> {
+          if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(handler, args);
+          }
+          return handler.handle(method.getName(), args);
+        };
+    return type.cast(
+        Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler));
+  }
+
+  private static class CompletedResponse<T> extends Response<T> {
+    private final T value;
+
+    @SuppressWarnings("unchecked")
+    CompletedResponse(Object value) {
+      super(null);
+      this.value = (T) value;
+    }
+
+    @Override
+    public T get() {
+      return value;
+    }
+  }
+}
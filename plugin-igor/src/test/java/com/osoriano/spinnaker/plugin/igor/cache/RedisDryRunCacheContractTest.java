@@ -0,0 +1,16 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunCacheConfig;
+
+public class RedisDryRunCacheContractTest extends DryRunCacheContractTest {
+  @Override
+  protected DryRunCache newCache() {
+    return new RedisDryRunCache(
+        new InMemoryRedisClientDelegate(),
+        new IgorConfigurationProperties(),
+        new DefaultRegistry(),
+        DryRunCacheConfig.builder().build());
+  }
+}
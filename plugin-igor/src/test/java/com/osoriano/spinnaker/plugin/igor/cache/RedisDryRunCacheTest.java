@@ -0,0 +1,405 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import static com.osoriano.spinnaker.plugin.igor.cache.RedisDryRunCache.LAST_PUBLISH_TIMESTAMP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.igor.IgorConfigurationProperties;
+import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
+import com.netflix.spinnaker.kork.jedis.RedisScanResult;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunCacheConfig;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.commands.JedisCommands;
+import redis.clients.jedis.commands.MultiKeyCommands;
+import redis.clients.jedis.commands.RedisPipeline;
+import redis.clients.jedis.commands.ScriptingCommands;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+public class RedisDryRunCacheTest {
+  private RedisClientDelegate redisClientDelegate = mock(RedisClientDelegate.class);
+  private IgorConfigurationProperties igorConfigurationProperties =
+      new IgorConfigurationProperties();
+  private Registry registry = new DefaultRegistry();
+  private RedisDryRunCache cache =
+      new RedisDryRunCache(
+          redisClientDelegate,
+          igorConfigurationProperties,
+          registry,
+          DryRunCacheConfig.builder().build());
+
+  private String artifactName = "artifactName";
+  private String timestamp = "12345";
+  private String expectedKey = "igor:dryrun:artifactName";
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void setCacheValue_SetsExpectedValue() {
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    ArgumentCaptor<Consumer<JedisCommands>> captor = ArgumentCaptor.forClass(Consumer.class);
+
+    cache.setCacheValue(artifactName, timestamp);
+    verify(redisClientDelegate).withCommandsClient(captor.capture());
+    captor.getValue().accept(jedisCommandsMock);
+
+    verify(jedisCommandsMock, times(1)).hset(expectedKey, LAST_PUBLISH_TIMESTAMP, timestamp);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getLatestBuildIds_ReturnsExpectedValue() {
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    when(jedisCommandsMock.hget(expectedKey, LAST_PUBLISH_TIMESTAMP)).thenReturn(timestamp);
+
+    cache.getCacheValue(artifactName);
+    ArgumentCaptor<Function<JedisCommands, String>> captor =
+        ArgumentCaptor.forClass(Function.class);
+    verify(redisClientDelegate).withCommandsClient(captor.capture());
+
+    String result = captor.getValue().apply(jedisCommandsMock);
+
+    assertEquals(result, timestamp);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void setCacheValues_SetsExpectedValues_InSinglePipeline() {
+    RedisPipeline pipelineMock = mock(RedisPipeline.class);
+    ArgumentCaptor<Consumer<RedisPipeline>> captor = ArgumentCaptor.forClass(Consumer.class);
+
+    cache.setCacheValues(Map.of(artifactName, timestamp));
+    verify(redisClientDelegate).withPipeline(captor.capture());
+    captor.getValue().accept(pipelineMock);
+
+    verify(pipelineMock, times(1)).hset(expectedKey, LAST_PUBLISH_TIMESTAMP, timestamp);
+    verify(redisClientDelegate, times(1)).syncPipeline(pipelineMock);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getCacheValues_ReturnsExpectedValues_FromSinglePipeline() {
+    RedisPipeline pipelineMock = mock(RedisPipeline.class);
+    Response<String> publishedResponse = mock(Response.class);
+    Response<String> neverPublishedResponse = mock(Response.class);
+    when(publishedResponse.get()).thenReturn(timestamp);
+    when(pipelineMock.hget(expectedKey, LAST_PUBLISH_TIMESTAMP)).thenReturn(publishedResponse);
+    when(pipelineMock.hget("igor:dryrun:otherArtifact", LAST_PUBLISH_TIMESTAMP))
+        .thenReturn(neverPublishedResponse);
+
+    cache.getCacheValues(List.of(artifactName, "otherArtifact"));
+    ArgumentCaptor<Function<RedisPipeline, Map<String, String>>> captor =
+        ArgumentCaptor.forClass(Function.class);
+    verify(redisClientDelegate).withPipeline(captor.capture());
+
+    Map<String, String> result = captor.getValue().apply(pipelineMock);
+
+    verify(redisClientDelegate, times(1)).syncPipeline(pipelineMock);
+    assertEquals(result, Map.of(artifactName, timestamp, "otherArtifact", "0"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getReplicas_ReturnsLiveReplicas_SortedById() {
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    when(jedisCommandsMock.zrangeByScore("igor:dryrun-replicas", 100, Double.POSITIVE_INFINITY))
+        .thenReturn(Set.of("replica2", "replica1"));
+
+    cache.getReplicas(100);
+    ArgumentCaptor<Function<JedisCommands, List<String>>> captor =
+        ArgumentCaptor.forClass(Function.class);
+    verify(redisClientDelegate).withCommandsClient(captor.capture());
+
+    assertEquals(captor.getValue().apply(jedisCommandsMock), List.of("replica1", "replica2"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void setReplicaHeartbeat_RecordsHeartbeat_AndDropsExpiredReplicas() {
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    ArgumentCaptor<Consumer<JedisCommands>> captor = ArgumentCaptor.forClass(Consumer.class);
+
+    cache.setReplicaHeartbeat("replica1", 200, 100);
+    cache.removeReplica("replica2");
+    verify(redisClientDelegate, times(2)).withCommandsClient(captor.capture());
+    captor.getAllValues().forEach(command -> command.accept(jedisCommandsMock));
+
+    verify(jedisCommandsMock).zadd("igor:dryrun-replicas", 200, "replica1");
+    verify(jedisCommandsMock)
+        .zremrangeByScore("igor:dryrun-replicas", Double.NEGATIVE_INFINITY, 99);
+    verify(jedisCommandsMock).zrem("igor:dryrun-replicas", "replica2");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void pushOutbox_TrimsOldestEntries_WhenOutboxIsFull() {
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    when(jedisCommandsMock.lpush("igor:dryrun-outbox", "1000:artifact1", "1000:artifact2"))
+        .thenReturn(5L);
+
+    when(redisClientDelegate.withCommandsClient(isA(Function.class)))
+        .thenAnswer(
+            invocation ->
+                invocation.<Function<JedisCommands, Long>>getArgument(0).apply(jedisCommandsMock));
+
+    assertEquals(cache.pushOutbox(List.of("1000:artifact1", "1000:artifact2"), 3), 2);
+    verify(jedisCommandsMock).ltrim("igor:dryrun-outbox", 0, 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void claimOutbox_MovesEntriesToInFlightList_UntilOutboxIsEmpty() {
+    MultiKeyCommands multiKeyCommandsMock = mock(MultiKeyCommands.class);
+    when(multiKeyCommandsMock.rpoplpush("igor:dryrun-outbox", "igor:dryrun-outbox:in-flight:r1"))
+        .thenReturn("1000:artifact1", (String) null);
+
+    cache.claimOutbox("r1", 10);
+    ArgumentCaptor<Function<MultiKeyCommands, List<String>>> captor =
+        ArgumentCaptor.forClass(Function.class);
+    verify(redisClientDelegate).withMultiClient(captor.capture());
+
+    assertEquals(captor.getValue().apply(multiKeyCommandsMock), List.of("1000:artifact1"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void requeueOutbox_AppendsInFlightEntriesToTheTailOfTheOutbox() {
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    when(jedisCommandsMock.lrange("igor:dryrun-outbox:in-flight:r1", 0, -1))
+        .thenReturn(List.of("1000:artifact2", "1000:artifact1"));
+    when(redisClientDelegate.withCommandsClient(isA(Function.class)))
+        .thenAnswer(
+            invocation ->
+                invocation.<Function<JedisCommands, Long>>getArgument(0).apply(jedisCommandsMock));
+
+    assertEquals(cache.requeueOutbox("r1"), 2);
+
+    // The oldest claimed entry ends up at the tail, where it is claimed first
+    InOrder inOrder = inOrder(jedisCommandsMock);
+    inOrder
+        .verify(jedisCommandsMock)
+        .rpush("igor:dryrun-outbox", "1000:artifact2", "1000:artifact1");
+    inOrder.verify(jedisCommandsMock).del("igor:dryrun-outbox:in-flight:r1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getCacheValue_TimesRedisCalls_ByOutcome() {
+    when(redisClientDelegate.withCommandsClient(isA(Function.class)))
+        .thenReturn(timestamp)
+        .thenThrow(new RuntimeException("Redis is unavailable"));
+
+    cache.getCacheValue(artifactName);
+    try {
+      cache.getCacheValue(artifactName);
+    } catch (RuntimeException e) {
+      assertEquals(e.getMessage(), "Redis is unavailable");
+    }
+
+    assertEquals(
+        registry
+            .timer("dryrun.redis.calls", "operation", "getCacheValue", "outcome", "success")
+            .count(),
+        1);
+    assertEquals(
+        registry
+            .timer("dryrun.redis.calls", "operation", "getCacheValue", "outcome", "failure")
+            .count(),
+        1);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void setCacheValue_UsesSharedHash_WithHashLayout() {
+    RedisDryRunCache hashCache = hashLayoutCache(false);
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    ArgumentCaptor<Consumer<JedisCommands>> captor = ArgumentCaptor.forClass(Consumer.class);
+
+    hashCache.setCacheValue(artifactName, timestamp);
+    verify(redisClientDelegate).withCommandsClient(captor.capture());
+    captor.getValue().accept(jedisCommandsMock);
+
+    verify(jedisCommandsMock).hset("igor:dryrun-timestamps:0", artifactName, timestamp);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getCacheValue_MovesLegacyTimestamp_WhenMigrating() {
+    RedisDryRunCache hashCache = hashLayoutCache(true);
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    when(jedisCommandsMock.hget(expectedKey, LAST_PUBLISH_TIMESTAMP)).thenReturn(timestamp);
+    when(redisClientDelegate.withCommandsClient(isA(Function.class)))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<Function<JedisCommands, String>>getArgument(0)
+                    .apply(jedisCommandsMock));
+
+    assertEquals(hashCache.getCacheValue(artifactName), timestamp);
+    verify(jedisCommandsMock).hsetnx("igor:dryrun-timestamps:0", artifactName, timestamp);
+    verify(jedisCommandsMock).del(expectedKey);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void sweep_RemovesTimestampsOfArtifactsNoLongerLive() {
+    RedisDryRunCache hashCache = hashLayoutCache(false);
+    JedisCommands jedisCommandsMock = mock(JedisCommands.class);
+    doAnswer(
+            invocation -> {
+              invocation.<Consumer<JedisCommands>>getArgument(0).accept(jedisCommandsMock);
+              return null;
+            })
+        .when(redisClientDelegate)
+        .withCommandsClient(isA(Consumer.class));
+    when(redisClientDelegate.withCommandsClient(isA(Function.class)))
+        .thenAnswer(
+            invocation ->
+                invocation.<Function<JedisCommands, Long>>getArgument(0).apply(jedisCommandsMock));
+    stubKeyScan("igor:dryrun:*", List.of(expectedKey));
+    stubKeyScan(
+        "igor:dryrun-timestamps:*",
+        List.of("igor:dryrun-timestamps:0", "igor:dryrun-timestamps:7"));
+    when(jedisCommandsMock.hscan("igor:dryrun-timestamps:0", ScanParams.SCAN_POINTER_START))
+        .thenReturn(
+            new ScanResult<>(
+                ScanParams.SCAN_POINTER_START,
+                List.of(Map.entry(artifactName, timestamp), Map.entry("removedArtifact", "1"))));
+    when(jedisCommandsMock.hdel("igor:dryrun-timestamps:0", "removedArtifact")).thenReturn(1L);
+    when(jedisCommandsMock.del("igor:dryrun-timestamps:7")).thenReturn(1L);
+
+    // The legacy key, the stale field and the out of range shard are removed
+    assertEquals(hashCache.sweep(artifactName::equals), 3);
+    verify(jedisCommandsMock).del(expectedKey);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void claimPublish_ReloadsScript_WhenRedisLostIt() {
+    ScriptingCommands scriptingCommandsMock = mock(ScriptingCommands.class);
+    when(redisClientDelegate.supportsScripting()).thenReturn(true);
+    RedisDryRunCache scriptingCache =
+        new RedisDryRunCache(
+            redisClientDelegate,
+            igorConfigurationProperties,
+            registry,
+            DryRunCacheConfig.builder().build());
+    when(redisClientDelegate.withScriptingClient(isA(Function.class)))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<Function<ScriptingCommands, Boolean>>getArgument(0)
+                    .apply(scriptingCommandsMock));
+    when(scriptingCommandsMock.scriptLoad(RedisDryRunCache.CLAIM_SCRIPT)).thenReturn("sha");
+    List<String> keys = List.of(expectedKey);
+    List<String> args = List.of(LAST_PUBLISH_TIMESTAMP, "1000", "2000");
+    when(scriptingCommandsMock.evalsha("sha", keys, args))
+        .thenThrow(new JedisNoScriptException("NOSCRIPT No matching script"))
+        .thenReturn(1L);
+
+    assertTrue(scriptingCache.supportsClaims());
+    assertTrue(scriptingCache.claimPublish(artifactName, "1000", "2000"));
+    verify(scriptingCommandsMock, times(2)).scriptLoad(RedisDryRunCache.CLAIM_SCRIPT);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void claimPublish_Fails_WithoutScripting() {
+    assertFalse(cache.supportsClaims());
+    cache.claimPublish(artifactName, "1000", "2000");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void constructor_RefusesAnotherNumberOfHashes_WithoutMigrate() {
+    InMemoryRedisClientDelegate redis = new InMemoryRedisClientDelegate();
+    hashLayoutCache(redis, 1, false).setCacheValue(artifactName, timestamp);
+
+    hashLayoutCache(redis, 4, false);
+  }
+
+  @Test
+  public void constructor_MovesTimestampsToTheirNewHash_WhenMigrating() {
+    InMemoryRedisClientDelegate redis = new InMemoryRedisClientDelegate();
+    Map<String, String> timestamps = new LinkedHashMap<>();
+    for (int i = 1; i <= 20; i++) {
+      timestamps.put("artifact" + i, String.valueOf(i));
+    }
+    hashLayoutCache(redis, 1, false).setCacheValues(timestamps);
+
+    RedisDryRunCache resharded = hashLayoutCache(redis, 4, true);
+
+    assertEquals(resharded.getCacheValues(timestamps.keySet()), timestamps);
+    long moved =
+        timestamps.keySet().stream().filter(name -> Math.floorMod(name.hashCode(), 4) != 0).count();
+    assertEquals(registry.counter("dryrun.redis.migrated").count(), moved);
+
+    // The new number of hashes is recorded, so it is accepted without migrate from now on
+    assertEquals(hashLayoutCache(redis, 4, false).getCacheValues(timestamps.keySet()), timestamps);
+  }
+
+  @Test
+  public void sweep_CountsMigratedTimestamps_SeparatelyFromSweptKeys() {
+    InMemoryRedisClientDelegate redis = new InMemoryRedisClientDelegate();
+    new RedisDryRunCache(
+            redis, igorConfigurationProperties, registry, DryRunCacheConfig.builder().build())
+        .setCacheValues(Map.of("artifact1", "1000", "artifact2", "2000"));
+    RedisDryRunCache hashCache = hashLayoutCache(redis, 1, true);
+
+    assertEquals(hashCache.sweep("artifact1"::equals), 1);
+
+    assertEquals(registry.counter("dryrun.redis.migrated").count(), 1);
+    assertEquals(
+        hashCache.getCacheValues(List.of("artifact1", "artifact2")),
+        Map.of("artifact1", "1000", "artifact2", "0"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void stubKeyScan(String pattern, List<String> keys) {
+    doAnswer(
+            invocation -> {
+              RedisScanResult page = mock(RedisScanResult.class);
+              when(page.getResults()).thenReturn(keys);
+              invocation.<Consumer<RedisScanResult>>getArgument(2).accept(page);
+              return null;
+            })
+        .when(redisClientDelegate)
+        .withKeyScan(eq(pattern), anyInt(), isA(Consumer.class));
+  }
+
+  private RedisDryRunCache hashLayoutCache(boolean migrate) {
+    return hashLayoutCache(redisClientDelegate, 1, migrate);
+  }
+
+  private RedisDryRunCache hashLayoutCache(
+      RedisClientDelegate redis, int hashShards, boolean migrate) {
+    return new RedisDryRunCache(
+        redis,
+        igorConfigurationProperties,
+        registry,
+        DryRunCacheConfig.builder()
+            .layout(DryRunCacheConfig.Layout.HASH)
+            .hashShards(hashShards)
+            .migrate(migrate)
+            .build());
+  }
+}
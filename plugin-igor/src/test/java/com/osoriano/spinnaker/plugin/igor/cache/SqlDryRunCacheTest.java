@@ -0,0 +1,57 @@
+package com.osoriano.spinnaker.plugin.igor.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+public class SqlDryRunCacheTest extends DryRunCacheContractTest {
+  @Override
+  protected DryRunCache newCache() {
+    return new SqlDryRunCache(dataSource(""));
+  }
+
+  @Test
+  public void setCacheValues_InsertsMissingRows_InPostgreSqlAndMySqlModes() {
+    for (String mode : List.of("PostgreSQL", "MySQL")) {
+      DryRunCache cache = new SqlDryRunCache(dataSource(";MODE=" + mode));
+      cache.setCacheValues(Map.of("artifact1", "1000"));
+      cache.setCacheValues(Map.of("artifact1", "2000", "artifact2", "1000"));
+
+      // Inserting a claim is a no-op, not a failure, once another replica inserted the row
+      assertFalse(cache.claimPublish("artifact2", "0", "3000"));
+      assertTrue(cache.claimPublish("artifact3", "0", "3000"));
+
+      assertEquals(
+          cache.getCacheValues(List.of("artifact1", "artifact2", "artifact3")),
+          Map.of("artifact1", "2000", "artifact2", "1000", "artifact3", "3000"));
+    }
+  }
+
+  @Test
+  public void sweep_RemovesStaleTimestamps_AcrossSeveralPages() {
+    DryRunCache cache = newCache();
+    Map<String, String> timestamps = new HashMap<>();
+    for (int i = 0; i < 2500; i++) {
+      timestamps.put("artifact" + i, "1000");
+    }
+    cache.setCacheValues(timestamps);
+
+    assertEquals(cache.sweep(artifactName -> artifactName.endsWith("0")), 2250);
+
+    assertEquals(cache.getCacheValue("artifact2490"), "1000");
+    assertEquals(cache.getCacheValue("artifact2499"), "0");
+  }
+
+  private static JdbcDataSource dataSource(String options) {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1" + options);
+    return dataSource;
+  }
+}
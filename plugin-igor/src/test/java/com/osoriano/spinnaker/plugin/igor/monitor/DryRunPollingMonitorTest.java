@@ -1,10 +1,22 @@
 package com.osoriano.spinnaker.plugin.igor.monitor;
 
+import static com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig.DEFAULT_PUBLISHER_GROUP;
 import static com.osoriano.spinnaker.plugin.igor.monitor.DryRunPollingMonitor.DRYRUN_ARTIFACT_TYPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,17 +24,38 @@ import static org.mockito.Mockito.when;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import com.netflix.spinnaker.igor.IgorConfigurationProperties;
 import com.netflix.spinnaker.igor.keel.KeelService;
+import com.netflix.spinnaker.igor.polling.LockService;
 import com.netflix.spinnaker.kork.discovery.DiscoveryStatusListener;
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
 import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunKeelClientConfig;
 import com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.ArtifactKind;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.MissedIntervalPolicy;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunRateLimitConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStaggerConfig;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunBulkPublishProgress;
+import com.osoriano.spinnaker.plugin.igor.sharding.ConsistentHashRing;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.scheduling.TaskScheduler;
@@ -49,8 +82,12 @@ public class DryRunPollingMonitorTest {
     int indexPadLength = 1;
 
     DryRunPollingConfig dryRunPollingConfig =
-        new DryRunPollingConfig(
-            publishInterval, numberOfUniqueArtifacts, artifactPrefix, indexPadLength);
+        DryRunPollingConfig.builder()
+            .publishInterval(publishInterval)
+            .numberOfUniqueArtifacts(numberOfUniqueArtifacts)
+            .artifactPrefix(artifactPrefix)
+            .indexPadLength(indexPadLength)
+            .build();
 
     DryRunPollingMonitor dryRunPollingMonitor =
         new DryRunPollingMonitor(
@@ -92,4 +129,934 @@ public class DryRunPollingMonitorTest {
     // Validate expected value is cached
     verify(cache).setCacheValue(eq(expectedArtifact1), isA(String.class));
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_SubmitsAllDueArtifacts_InBulkMode() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(3)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // artifactPrefix1 and artifactPrefix3 are due, artifactPrefix2 was just published
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2", "artifactPrefix3")))
+        .thenReturn(
+            Map.of(
+                "artifactPrefix1", "0",
+                "artifactPrefix2", String.valueOf(Instant.now().toEpochMilli()),
+                "artifactPrefix3", "0"));
+
+    dryRunPollingMonitor.poll(false);
+
+    // Timestamps are read in a single pass, instead of once per artifact
+    verify(cache, never()).getCacheValue(anyString());
+    verify(keelService, times(2)).sendArtifactEvent(isA(Map.class));
+
+    // Published artifacts are written back together
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().keySet(), Set.of("artifactPrefix1", "artifactPrefix3"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_SubmitsDueArtifactsInOneEvent_WhenBatching() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .maxBatchSize(10)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2")))
+        .thenReturn(Map.of("artifactPrefix1", "0", "artifactPrefix2", "0"));
+
+    dryRunPollingMonitor.poll(false);
+
+    // Both artifacts are sent in a single event, since the partial batch is flushed after the poll
+    ArgumentCaptor<Map<String, Object>> artifactEventCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(keelService, times(1)).sendArtifactEvent(artifactEventCaptor.capture());
+
+    Map<String, Object> payloadMap =
+        objectMapper.convertValue(artifactEventCaptor.getValue().get("payload"), Map.class);
+    List<Map<String, Object>> artifactList =
+        objectMapper.convertValue(payloadMap.get("artifacts"), List.class);
+    assertEquals(artifactList.size(), 2);
+
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().keySet(), Set.of("artifactPrefix1", "artifactPrefix2"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_ReservesBatchedArtifacts_AndPublishesThemAgain_WhenBatchIsRejected() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .maxBatchSize(2)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2")))
+        .thenReturn(Map.of("artifactPrefix1", "0", "artifactPrefix2", "0"));
+    when(keelService.sendArtifactEvent(isA(Map.class)))
+        .thenThrow(new RuntimeException("Keel is unavailable"))
+        .thenReturn(null);
+
+    try {
+      dryRunPollingMonitor.poll(false);
+    } catch (RuntimeException e) {
+      assertEquals(e.getMessage(), "Keel is unavailable");
+    }
+
+    // The artifacts were reserved while batched, and released without a timestamp once rejected
+    Set<String> batched = Set.of("artifactPrefix1", "artifactPrefix2");
+    ArgumentCaptor<Collection<String>> reservedCaptor = ArgumentCaptor.forClass(Collection.class);
+    verify(cache).reservePublishes(reservedCaptor.capture(), anyLong());
+    assertEquals(new HashSet<>(reservedCaptor.getValue()), batched);
+    ArgumentCaptor<Collection<String>> releasedCaptor = ArgumentCaptor.forClass(Collection.class);
+    verify(cache).releasePublishes(releasedCaptor.capture());
+    assertEquals(new HashSet<>(releasedCaptor.getValue()), batched);
+    verify(cache, never()).setCacheValues(anyMap());
+
+    // The artifacts are still due, so the next poll publishes them again and records them
+    dryRunPollingMonitor.poll(false);
+
+    verify(keelService, times(2)).sendArtifactEvent(isA(Map.class));
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().keySet(), batched);
+    verify(cache, times(2)).reservePublishes(anyList(), anyLong());
+    verify(cache, times(2)).releasePublishes(isA(Collection.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_PollsPartitionsInParallel_WhenConcurrencyIsSet() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(8)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .pollConcurrency(4)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+    when(cache.getCacheValue(anyString())).thenReturn("0");
+
+    dryRunPollingMonitor.poll(false);
+    dryRunPollingMonitor.stop();
+
+    verify(keelService, times(8)).sendArtifactEvent(isA(Map.class));
+    verify(cache, times(8)).setCacheValue(anyString(), anyString());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_StopsWaiting_WhenCycleDeadlinePasses() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .pollConcurrency(2)
+            .pollCycleDeadline(Duration.ofMillis(200))
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // artifactPrefix1 is stuck on a slow downstream call, artifactPrefix2 is not due
+    when(cache.getCacheValue("artifactPrefix1"))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(Duration.ofMinutes(1).toMillis());
+              return "0";
+            });
+    when(cache.getCacheValue("artifactPrefix2"))
+        .thenReturn(String.valueOf(Instant.now().toEpochMilli()));
+
+    Instant start = Instant.now();
+    dryRunPollingMonitor.poll(false);
+    dryRunPollingMonitor.stop();
+
+    assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofSeconds(10)) < 0);
+    verify(cache).getCacheValue("artifactPrefix2");
+    verify(keelService, never()).sendArtifactEvent(isA(Map.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_OnlyPollsOwnedArtifacts_WhenSharding() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(20)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(2)
+            .sharding(true)
+            .replicaId("replica1")
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+    when(cache.getReplicas(anyLong())).thenReturn(List.of("replica1", "replica2"));
+    when(cache.getCacheValue(anyString())).thenReturn("0");
+
+    dryRunPollingMonitor.poll(false);
+
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("replica1", "replica2"));
+    for (int i = 1; i <= 20; i++) {
+      String artifactName = String.format("artifactPrefix%02d", i);
+      boolean owned = ring.getOwner(artifactName).equals("replica1");
+      verify(cache, times(owned ? 1 : 0)).getCacheValue(artifactName);
+    }
+    verify(cache).setReplicaHeartbeat(eq("replica1"), anyLong(), anyLong());
+
+    // The replica leaves the ring when it shuts down
+    dryRunPollingMonitor.stop();
+    verify(cache).removeReplica("replica1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_OnlyChecksDueArtifacts_WhenSchedulingByDueTime() throws InterruptedException {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofMillis(100))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .dueTimeScheduling(true)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // artifactPrefix1 is due, artifactPrefix2 is due in a bit less than a publish interval
+    String justPublished = String.valueOf(Instant.now().toEpochMilli());
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2")))
+        .thenReturn(Map.of("artifactPrefix1", "0", "artifactPrefix2", justPublished));
+    when(cache.getCacheValue("artifactPrefix1")).thenReturn("0");
+    when(cache.getCacheValues(List.of("artifactPrefix1")))
+        .thenReturn(Map.of("artifactPrefix1", String.valueOf(Instant.now().toEpochMilli())));
+
+    dryRunPollingMonitor.poll(false);
+
+    // Only the due artifact is checked, and a wake up is scheduled for artifactPrefix2
+    verify(cache).getCacheValue("artifactPrefix1");
+    verify(cache, never()).getCacheValue("artifactPrefix2");
+    verify(keelService, times(1)).sendArtifactEvent(isA(Map.class));
+    verify(scheduler).schedule(isA(Runnable.class), isA(Date.class));
+
+    // Polling again once both artifacts have been due for over an interval counts two overruns
+    when(cache.getCacheValue("artifactPrefix2")).thenReturn(justPublished);
+    Thread.sleep(250);
+    dryRunPollingMonitor.poll(false);
+
+    verify(cache).getCacheValue("artifactPrefix2");
+    assertEquals(registry.counter("dryrun.scheduler.overruns").count(), 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_UsesPublishIntervalOfEachPublisherGroup() {
+    Map<String, DryRunPublisherGroupConfig> publisherGroups = new LinkedHashMap<>();
+    publisherGroups.put(
+        "fast",
+        new DryRunPublisherGroupConfig(Duration.ofSeconds(1), 2, "fast", 1, null, null, 0, null));
+    publisherGroups.put(
+        "slow",
+        new DryRunPublisherGroupConfig(Duration.ofHours(1), 1, "slow", 1, null, null, 0, null));
+
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder().publisherGroups(publisherGroups).bulkPoll(true).build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // Every artifact was published a minute ago, which is only long enough for the fast group
+    String aMinuteAgo = String.valueOf(Instant.now().minusSeconds(60).toEpochMilli());
+    when(cache.getCacheValues(List.of("fast1", "fast2", "slow")))
+        .thenReturn(Map.of("fast1", aMinuteAgo, "fast2", aMinuteAgo, "slow", aMinuteAgo));
+
+    dryRunPollingMonitor.poll(false);
+
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().keySet(), Set.of("fast1", "fast2"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_PublishesTheArtifactKindOfEachPublisherGroup() {
+    Map<String, DryRunPublisherGroupConfig> publisherGroups = new LinkedHashMap<>();
+    publisherGroups.put(
+        "images",
+        DryRunPublisherGroupConfig.builder()
+            .publishInterval(Duration.ofMinutes(1))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("image")
+            .artifactKind(ArtifactKind.DOCKER)
+            .build());
+    publisherGroups.put(
+        "packages",
+        DryRunPublisherGroupConfig.builder()
+            .publishInterval(Duration.ofMinutes(1))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("package")
+            .artifactKind(ArtifactKind.DEBIAN)
+            .build());
+    publisherGroups.put(
+        "dryrun",
+        DryRunPublisherGroupConfig.builder()
+            .publishInterval(Duration.ofMinutes(1))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("dryrun")
+            .build());
+
+    DryRunPollingMonitor dryRunPollingMonitor =
+        newMonitor(
+            DryRunPollingConfig.builder()
+                .publisherGroups(publisherGroups)
+                .bulkPoll(true)
+                .maxBatchSize(10)
+                .build());
+    when(cache.getCacheValues(anyList()))
+        .thenReturn(Map.of("dryrun", "0", "image", "0", "package", "0"));
+
+    dryRunPollingMonitor.poll(false);
+
+    ArgumentCaptor<Map<String, Object>> artifactEventCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(keelService).sendArtifactEvent(artifactEventCaptor.capture());
+    Map<String, Object> payloadMap =
+        objectMapper.convertValue(artifactEventCaptor.getValue().get("payload"), Map.class);
+    List<Map<String, Object>> artifactList =
+        objectMapper.convertValue(payloadMap.get("artifacts"), List.class);
+    assertEquals(
+        artifactList.stream()
+            .collect(
+                Collectors.toMap(
+                    artifact -> artifact.get("name"), artifact -> artifact.get("type"))),
+        Map.of("image", "DOCKER", "package", "DEB", "dryrun", DRYRUN_ARTIFACT_TYPE));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_BackfillsMissedVersions_InBoundedBatches() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publisherGroups(
+                Map.of(
+                    "replay",
+                    DryRunPublisherGroupConfig.builder()
+                        .publishInterval(Duration.ofMinutes(1))
+                        .numberOfUniqueArtifacts(1)
+                        .artifactPrefix("replay")
+                        .missedIntervalPolicy(MissedIntervalPolicy.BACKFILL)
+                        .maxBackfillBatchSize(3)
+                        .build()))
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // Five versions were missed while Igor was down
+    long lastPublishTimestamp =
+        Instant.now().minus(Duration.ofMinutes(5).plusSeconds(30)).toEpochMilli();
+    when(cache.getCacheValue("replay")).thenReturn(String.valueOf(lastPublishTimestamp));
+
+    dryRunPollingMonitor.poll(false);
+
+    // The three oldest versions are sent together, each with the time it was due at
+    ArgumentCaptor<Map<String, Object>> artifactEventCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(keelService, times(1)).sendArtifactEvent(artifactEventCaptor.capture());
+    Map<String, Object> payloadMap =
+        objectMapper.convertValue(artifactEventCaptor.getValue().get("payload"), Map.class);
+    List<Map<String, Object>> artifactList =
+        objectMapper.convertValue(payloadMap.get("artifacts"), List.class);
+    long minute = Duration.ofMinutes(1).toMillis();
+    assertEquals(
+        artifactList.stream().map(artifact -> artifact.get("version")).collect(Collectors.toList()),
+        List.of(
+            String.valueOf(lastPublishTimestamp + minute),
+            String.valueOf(lastPublishTimestamp + 2 * minute),
+            String.valueOf(lastPublishTimestamp + 3 * minute)));
+
+    // The last sent version is recorded, so the remaining ones are still due
+    verify(cache).setCacheValue("replay", String.valueOf(lastPublishTimestamp + 3 * minute));
+    assertEquals(registry.counter("dryrun.versions.backfilled", "group", "replay").count(), 3);
+  }
+
+  @Test
+  public void poll_CountsCoalescedVersions() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofMinutes(1))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("artifactPrefix")
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // Five versions were missed, and only one is published in their place
+    long lastPublishTimestamp =
+        Instant.now().minus(Duration.ofMinutes(5).plusSeconds(30)).toEpochMilli();
+    when(cache.getCacheValue("artifactPrefix")).thenReturn(String.valueOf(lastPublishTimestamp));
+
+    dryRunPollingMonitor.poll(false);
+
+    verify(keelService, times(1)).sendArtifactEvent(anyMap());
+    assertEquals(
+        registry
+            .counter(
+                "dryrun.versions.coalesced", "group", DryRunPollingConfig.DEFAULT_PUBLISHER_GROUP)
+            .count(),
+        4);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_AppendsDueArtifactsToOutbox_InsteadOfCallingKeel() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .outbox(true)
+            .outboxMaxDepth(100)
+            .replicaId("replica1")
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2")))
+        .thenReturn(Map.of("artifactPrefix1", "0", "artifactPrefix2", "0"));
+
+    dryRunPollingMonitor.poll(false);
+
+    // Keel is only called by the drain worker, and the timestamps are recorded right away
+    verify(keelService, never()).sendArtifactEvent(isA(Map.class));
+    ArgumentCaptor<List<String>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(cache).pushOutbox(entriesCaptor.capture(), eq(100L));
+    assertEquals(entriesCaptor.getValue().size(), 2);
+
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().keySet(), Set.of("artifactPrefix1", "artifactPrefix2"));
+
+    // Draining the outbox sends the claimed entries to Keel
+    when(cache.claimOutbox("replica1", 1))
+        .thenReturn(entriesCaptor.getValue().subList(0, 1), List.of());
+    dryRunPollingMonitor.start();
+    ArgumentCaptor<Runnable> drainCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).scheduleWithFixedDelay(drainCaptor.capture(), eq(Duration.ofSeconds(1)));
+    drainCaptor.getValue().run();
+    verify(keelService, times(1)).sendArtifactEvent(isA(Map.class));
+    verify(cache).ackOutbox("replica1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_HoldsBackArtifacts_OverThePublishRateLimit() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(3)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .rateLimit(DryRunRateLimitConfig.builder().maxRate(0.001).burst(2).build())
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2", "artifactPrefix3")))
+        .thenReturn(Map.of("artifactPrefix1", "0", "artifactPrefix2", "0", "artifactPrefix3", "0"));
+
+    dryRunPollingMonitor.poll(false);
+
+    // Only the burst is sent, the last artifact is left due for a later poll
+    verify(keelService, times(2)).sendArtifactEvent(isA(Map.class));
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().size(), 2);
+    assertEquals(registry.counter("dryrun.publish.throttled").count(), 1);
+  }
+
+  @Test
+  public void poll_RecordsPublishLagAndOutcomeMetrics() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // artifactPrefix1 was due 30 seconds ago, artifactPrefix2 was just published
+    long now = Instant.now().toEpochMilli();
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2")))
+        .thenReturn(
+            Map.of(
+                "artifactPrefix1", String.valueOf(now - 90_000),
+                "artifactPrefix2", String.valueOf(now)));
+
+    dryRunPollingMonitor.poll(false);
+
+    assertEquals(registry.counter("dryrun.artifacts.due", "group", "default").count(), 1);
+    assertEquals(registry.counter("dryrun.artifacts.skipped", "group", "default").count(), 1);
+    assertEquals(registry.timer("dryrun.keel.calls", "outcome", "success").count(), 1);
+    assertEquals(registry.timer("dryrun.poll.duration").count(), 1);
+
+    Timer publishLag = registry.timer("dryrun.publish.lag", "group", "default");
+    assertEquals(publishLag.count(), 1);
+    assertTrue(publishLag.totalTime() >= Duration.ofSeconds(30).toNanos());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void sweepStaleKeys_KeepsOnlyConfiguredArtifacts() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .staleKeySweepInterval(Duration.ofMinutes(10))
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+    dryRunPollingMonitor.sweepStaleKeys();
+
+    ArgumentCaptor<Predicate<String>> isLiveCaptor = ArgumentCaptor.forClass(Predicate.class);
+    verify(cache).sweep(isLiveCaptor.capture());
+    assertTrue(isLiveCaptor.getValue().test("artifactPrefix2"));
+    assertFalse(isLiveCaptor.getValue().test("artifactPrefix3"));
+  }
+
+  @Test
+  public void poll_LimitsCatchUpPublishesPerCycle() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(3)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .stagger(DryRunStaggerConfig.builder().maxCatchUpPerCycle(2).build())
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    // None of the artifacts was published yet
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2", "artifactPrefix3")))
+        .thenReturn(Map.of("artifactPrefix1", "0", "artifactPrefix2", "0", "artifactPrefix3", "0"));
+
+    dryRunPollingMonitor.poll(false);
+    verify(keelService, times(2)).sendArtifactEvent(anyMap());
+    assertEquals(registry.counter("dryrun.publish.deferred").count(), 1);
+
+    // The budget is reset on the next cycle
+    dryRunPollingMonitor.poll(false);
+    verify(keelService, times(4)).sendArtifactEvent(anyMap());
+  }
+
+  @Test
+  public void poll_OnlyPublishesClaimedArtifacts_WhenLeaderless() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .leaderless(true)
+            .build();
+    LockService lockService = mock(LockService.class);
+    when(cache.supportsClaims()).thenReturn(true);
+
+    DryRunPollingMonitor dryRunPollingMonitor =
+        new DryRunPollingMonitor(
+            igorConfigurationProperties,
+            registry,
+            dynamicConfigService,
+            discoveryStatusListener,
+            Optional.of(lockService),
+            scheduler,
+            cache,
+            keelService,
+            dryRunPollingConfig);
+
+    // Another replica claimed artifactPrefix2 first
+    when(cache.getCacheValue(anyString())).thenReturn("0");
+    when(cache.claimPublish(eq("artifactPrefix1"), eq("0"), anyString())).thenReturn(true);
+    when(cache.claimPublish(eq("artifactPrefix2"), eq("0"), anyString())).thenReturn(false);
+
+    dryRunPollingMonitor.poll(false);
+
+    verify(keelService, times(1)).sendArtifactEvent(anyMap());
+    verify(lockService, never()).acquire(anyString(), any(Duration.class), any(Runnable.class));
+    verify(cache, never()).setCacheValue(anyString(), anyString());
+    assertEquals(registry.counter("dryrun.publish.claims", "outcome", "won").count(), 1);
+    assertEquals(registry.counter("dryrun.publish.claims", "outcome", "lost").count(), 1);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_SendsUnsentVersionsAgain_UnderTheirClaim_WhenKeelFails() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .leaderless(true)
+            .build();
+
+    when(cache.supportsClaims()).thenReturn(true);
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+
+    when(cache.getCacheValue("artifactPrefix")).thenReturn("1000");
+    when(cache.claimPublish(eq("artifactPrefix"), eq("1000"), anyString())).thenReturn(true);
+    when(keelService.sendArtifactEvent(anyMap()))
+        .thenThrow(new RuntimeException("Keel is unavailable"))
+        .thenReturn(null);
+
+    try {
+      dryRunPollingMonitor.poll(false);
+    } catch (RuntimeException e) {
+      assertEquals(e.getMessage(), "Keel is unavailable");
+    }
+    dryRunPollingMonitor.poll(false);
+
+    // The claim is kept, and the same version is sent again without claiming it twice
+    ArgumentCaptor<Map<String, Object>> artifactEventCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(keelService, times(2)).sendArtifactEvent(artifactEventCaptor.capture());
+    List<Map<String, Object>> events = artifactEventCaptor.getAllValues();
+    assertEquals(events.get(1).get("payload").toString(), events.get(0).get("payload").toString());
+    verify(cache, times(1)).claimPublish(anyString(), anyString(), anyString());
+    assertEquals(registry.counter("dryrun.publish.claims", "outcome", "retried").count(), 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void constructor_RefusesLeaderless_WithoutClaims() {
+    newMonitor(
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .leaderless(true)
+            .build());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_AppliesDynamicConfigChanges_WithoutRestart() {
+    DynamicConfigService dynamicConfig = mock(DynamicConfigService.class);
+    when(dynamicConfig.getConfig(eq(Duration.class), anyString(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(2));
+    when(dynamicConfig.getConfig(
+            eq(Integer.class),
+            eq(DryRunPollingConfig.PREFIX + ".number-of-unique-artifacts"),
+            any()))
+        .thenReturn(2);
+
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .bulkPoll(true)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor =
+        new DryRunPollingMonitor(
+            igorConfigurationProperties,
+            registry,
+            dynamicConfig,
+            discoveryStatusListener,
+            Optional.empty(),
+            scheduler,
+            cache,
+            keelService,
+            dryRunPollingConfig);
+
+    Map<String, String> timestamps = new LinkedHashMap<>();
+    when(cache.getCacheValues(any()))
+        .thenAnswer(
+            invocation -> {
+              Map<String, String> result = new LinkedHashMap<>();
+              ((List<String>) invocation.getArgument(0))
+                  .forEach(name -> result.put(name, timestamps.getOrDefault(name, "0")));
+              return result;
+            });
+
+    dryRunPollingMonitor.poll(false);
+    verify(keelService, times(2)).sendArtifactEvent(isA(Map.class));
+    String now = String.valueOf(Instant.now().toEpochMilli());
+    timestamps.put("artifactPrefix1", now);
+    timestamps.put("artifactPrefix2", now);
+
+    // Added artifacts are polled, but phased over the publish interval instead of all being due
+    when(dynamicConfig.getConfig(
+            eq(Integer.class),
+            eq(DryRunPollingConfig.PREFIX + ".number-of-unique-artifacts"),
+            any()))
+        .thenReturn(4);
+    dryRunPollingMonitor.poll(false);
+    verify(cache)
+        .getCacheValues(
+            List.of("artifactPrefix1", "artifactPrefix2", "artifactPrefix3", "artifactPrefix4"));
+
+    // Unchanged config is not applied again
+    dryRunPollingMonitor.poll(false);
+
+    // Retired artifacts are not polled anymore
+    when(dynamicConfig.getConfig(
+            eq(Integer.class),
+            eq(DryRunPollingConfig.PREFIX + ".number-of-unique-artifacts"),
+            any()))
+        .thenReturn(3);
+    dryRunPollingMonitor.poll(false);
+    verify(cache, times(2))
+        .getCacheValues(
+            List.of("artifactPrefix1", "artifactPrefix2", "artifactPrefix3", "artifactPrefix4"));
+    verify(cache).getCacheValues(List.of("artifactPrefix1", "artifactPrefix2", "artifactPrefix3"));
+
+    verify(keelService, times(2)).sendArtifactEvent(isA(Map.class));
+    assertEquals(registry.counter("dryrun.reconfigurations").count(), 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void bulkPublish_PublishesVersionsOnDemand_AndMovesTheSchedule() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+    long future = Instant.now().plus(Duration.ofDays(1)).toEpochMilli();
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2")))
+        .thenReturn(Map.of("artifactPrefix1", String.valueOf(future), "artifactPrefix2", "0"));
+
+    List<DryRunBulkPublishProgress> progress = new ArrayList<>();
+    DryRunBulkPublishProgress result =
+        dryRunPollingMonitor.bulkPublish(DEFAULT_PUBLISHER_GROUP, 5, 1000, progress::add);
+
+    assertEquals(result.getPublished(), 5);
+    assertEquals(result.getStatus(), DryRunBulkPublishProgress.Status.COMPLETED);
+    assertEquals(progress.get(progress.size() - 1), result);
+    assertEquals(
+        registry.counter("dryrun.versions.ondemand", "group", DEFAULT_PUBLISHER_GROUP).count(), 5);
+
+    // Each artifact's versions are sent in one event, and follow its latest version
+    ArgumentCaptor<Map<String, Object>> artifactEventCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(keelService, times(2)).sendArtifactEvent(artifactEventCaptor.capture());
+    List<Map<String, Object>> artifactList =
+        objectMapper.convertValue(
+            objectMapper
+                .convertValue(artifactEventCaptor.getAllValues().get(0).get("payload"), Map.class)
+                .get("artifacts"),
+            List.class);
+    assertEquals(artifactList.size(), 3);
+    assertEquals(artifactList.get(2).get("version"), String.valueOf(future + 3));
+
+    // The schedule carries on from the last version of each artifact
+    ArgumentCaptor<Map<String, String>> publishedCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(cache).setCacheValues(publishedCaptor.capture());
+    assertEquals(publishedCaptor.getValue().get("artifactPrefix1"), String.valueOf(future + 3));
+    assertTrue(Long.parseLong(publishedCaptor.getValue().get("artifactPrefix2")) > 0);
+  }
+
+  @Test
+  public void bulkPublish_HoldsTheLocksOfThePolls_WhenLocked() {
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .build();
+    LockService lockService = mock(LockService.class);
+    doAnswer(
+            invocation -> {
+              invocation.<Runnable>getArgument(2).run();
+              return null;
+            })
+        .when(lockService)
+        .acquire(anyString(), any(Duration.class), any(Runnable.class));
+
+    DryRunPollingMonitor dryRunPollingMonitor =
+        new DryRunPollingMonitor(
+            igorConfigurationProperties,
+            registry,
+            dynamicConfigService,
+            discoveryStatusListener,
+            Optional.of(lockService),
+            scheduler,
+            cache,
+            keelService,
+            dryRunPollingConfig);
+    when(cache.getCacheValues(List.of("artifactPrefix1", "artifactPrefix2"))).thenReturn(Map.of());
+
+    DryRunBulkPublishProgress result =
+        dryRunPollingMonitor.bulkPublish(DEFAULT_PUBLISHER_GROUP, 2, 1000, progress -> {});
+
+    // The single chunk holds the partition lock of each of its artifacts, like their polls
+    assertEquals(result.getPublished(), 2);
+    verify(lockService)
+        .acquire(eq("dryrunPollingMonitor.artifactPrefix1"), any(Duration.class), any());
+    verify(lockService)
+        .acquire(eq("dryrunPollingMonitor.artifactPrefix2"), any(Duration.class), any());
+    verify(keelService, times(2)).sendArtifactEvent(anyMap());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void bulkPublish_RejectsUnknownGroups() {
+    newMonitor(
+            DryRunPollingConfig.builder()
+                .publishInterval(Duration.ofSeconds(60))
+                .artifactPrefix("artifactPrefix")
+                .build())
+        .validateBulkPublish("other", 5, 10);
+  }
+
+  @Test
+  public void poll_QueuesEventsForKeel_WhenAsyncClientIsSet() throws IOException {
+    HttpServer keel = keelServer(202);
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .keelClient(keelClientConfig(keel))
+            .build();
+
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+    when(cache.getCacheValue("artifactPrefix")).thenReturn("0");
+
+    try {
+      dryRunPollingMonitor.poll(false);
+
+      // The artifact is reserved before the event is queued, since Keel answers after the lock,
+      // and its timestamp is recorded once Keel accepted the event
+      verify(cache).reservePublishes(eq(List.of("artifactPrefix")), anyLong());
+      verify(cache, timeout(5000)).setCacheValue(eq("artifactPrefix"), isA(String.class));
+      verify(cache, timeout(5000)).releasePublishes(Set.of("artifactPrefix"));
+      verify(keelService, never()).sendArtifactEvent(anyMap());
+    } finally {
+      dryRunPollingMonitor.stop();
+      keel.stop(0);
+    }
+  }
+
+  @Test
+  public void poll_SendsUnsentVersionsAgain_WhenKeelRejectsAsyncEvent() throws Exception {
+    List<String> events = new ArrayList<>();
+    HttpServer keel = keelServer(503, events);
+    DryRunPollingConfig dryRunPollingConfig =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofSeconds(60))
+            .numberOfUniqueArtifacts(1)
+            .artifactPrefix("artifactPrefix")
+            .indexPadLength(1)
+            .leaderless(true)
+            .keelClient(keelClientConfig(keel))
+            .build();
+
+    when(cache.supportsClaims()).thenReturn(true);
+    DryRunPollingMonitor dryRunPollingMonitor = newMonitor(dryRunPollingConfig);
+    when(cache.getCacheValue("artifactPrefix")).thenReturn("1000");
+    when(cache.claimPublish(eq("artifactPrefix"), eq("1000"), anyString())).thenReturn(true);
+
+    try {
+      // The artifact is held back while its event is pending, and retried once it is rejected
+      long deadline = System.currentTimeMillis() + 5000;
+      while (eventCount(events) < 2 && System.currentTimeMillis() < deadline) {
+        dryRunPollingMonitor.poll(false);
+        Thread.sleep(10);
+      }
+
+      assertTrue(eventCount(events) >= 2);
+      synchronized (events) {
+        assertEquals(events.get(1), events.get(0));
+      }
+      verify(cache, times(1)).claimPublish(anyString(), anyString(), anyString());
+    } finally {
+      dryRunPollingMonitor.stop();
+      keel.stop(0);
+    }
+  }
+
+  private static int eventCount(List<String> events) {
+    synchronized (events) {
+      return events.size();
+    }
+  }
+
+  private static HttpServer keelServer(int status) throws IOException {
+    return keelServer(status, new ArrayList<>());
+  }
+
+  // Records the body of every artifact event the server receives
+  private static HttpServer keelServer(int status, List<String> events) throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/artifacts/events",
+        exchange -> {
+          String event = new String(exchange.getRequestBody().readAllBytes(), UTF_8);
+          synchronized (events) {
+            events.add(event);
+          }
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        });
+    server.start();
+    return server;
+  }
+
+  private static DryRunKeelClientConfig keelClientConfig(HttpServer keel) {
+    return DryRunKeelClientConfig.builder()
+        .baseUrl("http://127.0.0.1:" + keel.getAddress().getPort())
+        .build();
+  }
+
+  private DryRunPollingMonitor newMonitor(DryRunPollingConfig dryRunPollingConfig) {
+    return new DryRunPollingMonitor(
+        igorConfigurationProperties,
+        registry,
+        dynamicConfigService,
+        discoveryStatusListener,
+        Optional.empty(),
+        scheduler,
+        cache,
+        keelService,
+        dryRunPollingConfig);
+  }
 }
@@ -0,0 +1,139 @@
+package com.osoriano.spinnaker.plugin.igor.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class DryRunArtifactNamespaceTest {
+
+  private DryRunArtifactNamespace namespace =
+      new DryRunArtifactNamespace(
+          orderedMap(
+              "fast",
+                  new DryRunPublisherGroupConfig(
+                      Duration.ofMinutes(1), 3, "fast", 2, null, null, 0, null),
+              "fastest",
+                  new DryRunPublisherGroupConfig(
+                      Duration.ofSeconds(1), 2, "rapid", 1, null, null, 0, null),
+              "slow",
+                  new DryRunPublisherGroupConfig(
+                      Duration.ofHours(1), 1, "slow", 3, null, null, 0, null)),
+          0);
+
+  @Test
+  public void iterator_ListsArtifactsOfEveryGroup() {
+    assertEquals(namespace.size(), 6);
+    assertEquals(
+        new ArrayList<>(namespace),
+        List.of("fast01", "fast02", "fast03", "rapid1", "rapid2", "slow"));
+  }
+
+  @Test
+  public void getGroup_ReturnsGroupOfArtifact() {
+    assertEquals(namespace.getGroup("fast02").getName(), "fast");
+    assertEquals(namespace.getGroup("rapid2").getName(), "fastest");
+    assertEquals(namespace.getGroup("slow").getName(), "slow");
+
+    // Out of range, unpadded or unknown names don't belong to any group
+    assertNull(namespace.getGroup("fast04"));
+    assertNull(namespace.getGroup("fast2"));
+    assertNull(namespace.getGroup("slow1"));
+    assertNull(namespace.getGroup("other"));
+    assertNull(namespace.getGroup("a"));
+    assertNull(namespace.getGroup("zzz"));
+    assertTrue(namespace.contains("rapid1"));
+    assertFalse(namespace.contains("rapid3"));
+  }
+
+  @Test
+  public void reconfigure_OnlyAddsAndRetiresTheArtifactsThatChanged() {
+    DryRunArtifactNamespace reconfigured =
+        namespace.reconfigure(
+            orderedMap(
+                "fast",
+                    new DryRunPublisherGroupConfig(
+                        Duration.ofMinutes(1), 5, "fast", 2, null, null, 0, null),
+                "fastest",
+                    new DryRunPublisherGroupConfig(
+                        Duration.ofSeconds(1), 1, "rapid", 1, null, null, 0, null),
+                "new",
+                    new DryRunPublisherGroupConfig(
+                        Duration.ofHours(1), 1, "new", 1, null, null, 0, null)),
+            1000);
+
+    assertEquals(
+        new ArrayList<>(reconfigured),
+        List.of("fast01", "fast02", "fast03", "fast04", "fast05", "rapid", "new"));
+    assertNull(reconfigured.getGroup("slow"));
+
+    // Artifacts that kept their name were configured at startup, the others were added now
+    assertEquals(reconfigured.addedAt("fast03"), 0);
+    assertEquals(reconfigured.addedAt("fast04"), 1000);
+    assertEquals(reconfigured.addedAt("rapid"), 1000);
+    assertEquals(reconfigured.addedAt("new"), 1000);
+    assertEquals(reconfigured.addedAt("slow"), 0);
+
+    // Shrinking and growing again dates the regrown artifacts from the second change
+    DryRunArtifactNamespace regrown =
+        reconfigured
+            .reconfigure(
+                orderedMap(
+                    "fast",
+                    new DryRunPublisherGroupConfig(
+                        Duration.ofMinutes(1), 2, "fast", 2, null, null, 0, null)),
+                2000)
+            .reconfigure(
+                orderedMap(
+                    "fast",
+                    new DryRunPublisherGroupConfig(
+                        Duration.ofMinutes(5), 4, "fast", 2, null, null, 0, null)),
+                3000);
+    assertEquals(regrown.addedAt("fast02"), 0);
+    assertEquals(regrown.addedAt("fast03"), 3000);
+    assertEquals(regrown.getGroup("fast04").getPublishInterval(), Duration.ofMinutes(5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_RejectsGroupsWithSamePrefix() {
+    new DryRunArtifactNamespace(
+        orderedMap(
+            "a",
+                new DryRunPublisherGroupConfig(
+                    Duration.ofMinutes(1), 3, "prefix", 2, null, null, 0, null),
+            "b",
+                new DryRunPublisherGroupConfig(
+                    Duration.ofMinutes(1), 3, "prefix", 2, null, null, 0, null)),
+        0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_RejectsPrefixStartingWithAnotherPrefix() {
+    // Artifact a101 would be both the 101st artifact of a and the 1st artifact of a1
+    new DryRunArtifactNamespace(
+        orderedMap(
+            "a",
+                new DryRunPublisherGroupConfig(
+                    Duration.ofMinutes(1), 200, "a", 3, null, null, 0, null),
+            "b",
+                new DryRunPublisherGroupConfig(
+                    Duration.ofMinutes(1), 3, "a1", 2, null, null, 0, null)),
+        0);
+  }
+
+  private static Map<String, DryRunPublisherGroupConfig> orderedMap(Object... entries) {
+    Map<String, DryRunPublisherGroupConfig> result = new LinkedHashMap<>();
+    for (int i = 0; i < entries.length; i += 2) {
+      result.put((String) entries[i], (DryRunPublisherGroupConfig) entries[i + 1]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,76 @@
+package com.osoriano.spinnaker.plugin.igor.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPollingConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.Test;
+
+public class DryRunDynamicGroupConfigsTest {
+  private DynamicConfigService dynamicConfigService = mock(DynamicConfigService.class);
+
+  @Test
+  public void getGroupConfigs_ReadsCountAndIntervalOfEachGroup() {
+    DryRunPublisherGroupConfig fast =
+        new DryRunPublisherGroupConfig(Duration.ofMinutes(1), 3, "fast", 2, null, null, 0, null);
+    DryRunPublisherGroupConfig slow =
+        new DryRunPublisherGroupConfig(Duration.ofHours(1), 1, "slow", 1, null, null, 0, null);
+    DryRunPollingConfig config =
+        DryRunPollingConfig.builder().publisherGroups(Map.of("fast", fast, "slow", slow)).build();
+
+    String groupsPrefix = DryRunPollingConfig.PREFIX + ".publisher-groups.";
+    when(dynamicConfigService.getConfig(eq(Integer.class), anyString(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(2));
+    when(dynamicConfigService.getConfig(eq(Duration.class), anyString(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(2));
+    when(dynamicConfigService.getConfig(
+            Integer.class, groupsPrefix + "fast.number-of-unique-artifacts", 3))
+        .thenReturn(10);
+    when(dynamicConfigService.getConfig(
+            Duration.class, groupsPrefix + "slow.publish-interval", Duration.ofHours(1)))
+        .thenReturn(Duration.ofMinutes(30));
+
+    Map<String, DryRunPublisherGroupConfig> groupConfigs =
+        new DryRunDynamicGroupConfigs(dynamicConfigService, config).getGroupConfigs();
+
+    assertEquals(groupConfigs.get("fast"), fast.toBuilder().numberOfUniqueArtifacts(10).build());
+    assertEquals(
+        groupConfigs.get("slow"), slow.toBuilder().publishInterval(Duration.ofMinutes(30)).build());
+  }
+
+  @Test
+  public void getGroupConfigs_ReadsTopLevelSettings_ForTheDefaultGroup() {
+    DryRunPollingConfig config =
+        DryRunPollingConfig.builder()
+            .publishInterval(Duration.ofMinutes(1))
+            .numberOfUniqueArtifacts(2)
+            .artifactPrefix("artifact")
+            .build();
+
+    when(dynamicConfigService.getConfig(
+            Integer.class, DryRunPollingConfig.PREFIX + ".number-of-unique-artifacts", 2))
+        .thenReturn(5);
+    when(dynamicConfigService.getConfig(
+            Duration.class,
+            DryRunPollingConfig.PREFIX + ".publish-interval",
+            Duration.ofMinutes(1)))
+        .thenReturn(Duration.ofSeconds(10));
+
+    DryRunPublisherGroupConfig groupConfig =
+        new DryRunDynamicGroupConfigs(dynamicConfigService, config)
+            .getGroupConfigs()
+            .get(DryRunPollingConfig.DEFAULT_PUBLISHER_GROUP);
+
+    assertEquals(groupConfig.getNumberOfUniqueArtifacts(), 5);
+    assertEquals(groupConfig.getPublishInterval(), Duration.ofSeconds(10));
+    assertEquals(groupConfig.getArtifactPrefix(), "artifact");
+  }
+}
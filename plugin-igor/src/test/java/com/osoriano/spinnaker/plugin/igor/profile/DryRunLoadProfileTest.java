@@ -0,0 +1,152 @@
+package com.osoriano.spinnaker.plugin.igor.profile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunLoadProfileConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunLoadProfileConfig.Type;
+import java.time.Duration;
+import java.util.List;
+import org.junit.Test;
+
+public class DryRunLoadProfileTest {
+  private Duration publishInterval = Duration.ofSeconds(60);
+  private long startedAt = 1_000_000L;
+
+  @Test
+  public void constant_UsesPublishInterval() {
+    DryRunLoadProfile profile = DryRunLoadProfile.create("group", null, publishInterval, startedAt);
+
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt), 60_000);
+  }
+
+  @Test
+  public void ramp_IncreasesRateLinearly_ThenHoldsPeakRate() {
+    DryRunLoadProfile profile =
+        DryRunLoadProfile.create(
+            "group",
+            DryRunLoadProfileConfig.builder()
+                .type(Type.RAMP)
+                .period(Duration.ofMinutes(10))
+                .peakRate(2.0)
+                .build(),
+            publishInterval,
+            startedAt);
+
+    // Nothing is published at the start of a ramp from 0
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt), Long.MAX_VALUE);
+    // Half way through, the rate is 1
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 300_000), 60_000);
+    // After the ramp, the rate stays at 2
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 900_000), 30_000);
+  }
+
+  @Test
+  public void burst_UsesPeakRate_AtStartOfEachPeriod() {
+    DryRunLoadProfile profile =
+        DryRunLoadProfile.create(
+            "group",
+            DryRunLoadProfileConfig.builder()
+                .type(Type.BURST)
+                .period(Duration.ofMinutes(10))
+                .burstDuration(Duration.ofMinutes(1))
+                .baseRate(1.0)
+                .peakRate(10.0)
+                .build(),
+            publishInterval,
+            startedAt);
+
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 30_000), 6_000);
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 120_000), 60_000);
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 630_000), 6_000);
+  }
+
+  @Test
+  public void diurnal_PeaksAtMidday() {
+    DryRunLoadProfile profile =
+        DryRunLoadProfile.create(
+            "group",
+            DryRunLoadProfileConfig.builder()
+                .type(Type.DIURNAL)
+                .period(Duration.ofHours(1))
+                .baseRate(1.0)
+                .peakRate(4.0)
+                .build(),
+            publishInterval,
+            startedAt);
+
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt), 60_000);
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 1_800_000), 15_000);
+    assertEquals(profile.publishIntervalMillis("artifact", 0, startedAt + 3_600_000), 60_000);
+  }
+
+  @Test
+  public void poisson_IsRepeatableForSeed_AndAveragesPublishInterval() {
+    DryRunLoadProfileConfig config =
+        DryRunLoadProfileConfig.builder().type(Type.POISSON).seed(42).build();
+    DryRunLoadProfile profile =
+        DryRunLoadProfile.create("group", config, publishInterval, startedAt);
+    DryRunLoadProfile sameSeed =
+        DryRunLoadProfile.create("group", config, publishInterval, startedAt);
+
+    assertEquals(
+        profile.publishIntervalMillis("artifact", 12345, 0),
+        sameSeed.publishIntervalMillis("artifact", 12345, 0));
+    assertNotEquals(
+        profile.publishIntervalMillis("artifact", 12345, 0),
+        profile.publishIntervalMillis("artifact", 67890, 0));
+
+    long total = 0;
+    int samples = 10_000;
+    for (int i = 0; i < samples; i++) {
+      total += profile.publishIntervalMillis("artifact" + i, i, 0);
+    }
+    long average = total / samples;
+    assertTrue(average > 55_000 && average < 65_000);
+  }
+
+  @Test
+  public void create_RejectsProfiles_WithoutPeriod() {
+    for (Type type : List.of(Type.RAMP, Type.BURST, Type.DIURNAL)) {
+      try {
+        DryRunLoadProfile.create(
+            "group",
+            DryRunLoadProfileConfig.builder()
+                .type(type)
+                .burstDuration(Duration.ofMinutes(1))
+                .build(),
+            publishInterval,
+            startedAt);
+        fail("Expected a " + type + " profile without period to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertEquals(
+            e.getMessage(), "Dry run publisher group group needs a positive load-profile.period");
+      }
+    }
+  }
+
+  @Test
+  public void create_RejectsProfiles_WithZeroPeriodOrBurstDuration() {
+    DryRunLoadProfileConfig zeroPeriod =
+        DryRunLoadProfileConfig.builder()
+            .type(Type.DIURNAL)
+            .period(Duration.ZERO)
+            .burstDuration(Duration.ofMinutes(1))
+            .build();
+    DryRunLoadProfileConfig zeroRamp =
+        DryRunLoadProfileConfig.builder().type(Type.RAMP).period(Duration.ZERO).build();
+    DryRunLoadProfileConfig noBurst =
+        DryRunLoadProfileConfig.builder().type(Type.BURST).period(Duration.ofMinutes(10)).build();
+
+    for (DryRunLoadProfileConfig config : List.of(zeroPeriod, zeroRamp, noBurst)) {
+      try {
+        DryRunLoadProfile.create("group", config, publishInterval, startedAt);
+        fail("Expected " + config + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class DryRunEventBatcherTest {
+  private List<Map<String, Long>> sentBatches = new ArrayList<>();
+
+  @Test
+  public void add_SendsBatch_WhenBatchIsFull() {
+    DryRunEventBatcher batcher = new DryRunEventBatcher(2, Duration.ofMinutes(1), sentBatches::add);
+
+    batcher.add("artifact1", 1L, 100L);
+    assertTrue(sentBatches.isEmpty());
+    assertTrue(batcher.isPending("artifact1"));
+
+    batcher.add("artifact2", 2L, 100L);
+    assertEquals(sentBatches, List.of(Map.of("artifact1", 1L, "artifact2", 2L)));
+    assertFalse(batcher.isPending("artifact1"));
+  }
+
+  @Test
+  public void flushIfLingering_SendsPartialBatch_OnlyAfterLingerTime() {
+    DryRunEventBatcher batcher =
+        new DryRunEventBatcher(10, Duration.ofMillis(50), sentBatches::add);
+
+    batcher.add("artifact1", 1L, 100L);
+    batcher.flushIfLingering(149L);
+    assertTrue(sentBatches.isEmpty());
+
+    batcher.flushIfLingering(150L);
+    assertEquals(sentBatches, List.of(Map.of("artifact1", 1L)));
+
+    // Nothing is pending, so there is nothing else to send
+    batcher.flushIfLingering(1000L);
+    batcher.flush();
+    assertEquals(sentBatches.size(), 1);
+  }
+
+  @Test
+  public void flushIfLingering_SendsPartialBatch_WhenLingerIsNotSet() {
+    DryRunEventBatcher batcher = new DryRunEventBatcher(10, null, sentBatches::add);
+
+    batcher.add("artifact1", 1L, 100L);
+    batcher.flushIfLingering(100L);
+
+    assertEquals(sentBatches, List.of(Map.of("artifact1", 1L)));
+  }
+}
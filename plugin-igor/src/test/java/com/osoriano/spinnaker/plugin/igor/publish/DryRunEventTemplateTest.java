@@ -0,0 +1,198 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.kork.artifacts.model.Artifact;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.ArtifactKind;
+import com.osoriano.spinnaker.plugin.igor.partition.DryRunPublisherGroup;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class DryRunEventTemplateTest {
+  private ObjectMapper objectMapper =
+      new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+  private DryRunEventTemplate eventTemplate = new DryRunEventTemplate("dry-run@v1");
+
+  @Test
+  public void event_SerializesLikeAnEventOfArtifacts() throws Exception {
+    DryRunEventTemplate.Payload payload = eventTemplate.newPayload(3);
+    payload.add("artifact1", 1000L);
+    payload.add("artifact2", 2000L);
+    payload.add("artifact1", 3000L);
+
+    Map<String, Object> expectedEvent =
+        Map.of(
+            "payload",
+            Map.of(
+                "artifacts",
+                List.of(
+                    artifact("artifact1", 1000L),
+                    artifact("artifact2", 2000L),
+                    artifact("artifact1", 3000L)),
+                "details",
+                Map.of()),
+            "eventName",
+            DryRunEventTemplate.EVENT_NAME);
+
+    assertEquals(
+        objectMapper.readTree(objectMapper.writeValueAsString(DryRunEventTemplate.event(payload))),
+        objectMapper.readTree(objectMapper.writeValueAsString(expectedEvent)));
+  }
+
+  @Test
+  public void payload_DescribesItsVersions() {
+    DryRunEventTemplate.Payload payload = eventTemplate.newPayload(2);
+    payload.add("artifact1", 1000L);
+    payload.add("artifact2", 0L);
+
+    assertEquals(payload.size(), 2);
+    assertEquals(payload.toString(), "artifacts=[artifact1@1000, artifact2@0]");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void event_WritesDockerImagesAndDebianPackages_LikeCiPublishesThem() throws Exception {
+    DryRunEventTemplate kindTemplate =
+        new DryRunEventTemplate(
+            "dry-run@v1",
+            artifactName ->
+                artifactName.startsWith("image")
+                    ? group("images", ArtifactKind.DOCKER)
+                    : group("packages", ArtifactKind.DEBIAN));
+    long timestamp = Instant.parse("2021-01-01T00:01:40Z").toEpochMilli();
+    DryRunEventTemplate.Payload payload = kindTemplate.newPayload(2);
+    payload.add("image1", timestamp);
+    payload.add("package1", timestamp);
+
+    Map<String, Object> event =
+        objectMapper.readValue(
+            objectMapper.writeValueAsString(DryRunEventTemplate.event(payload)), Map.class);
+    List<Map<String, Object>> artifacts =
+        (List<Map<String, Object>>) ((Map<String, Object>) event.get("payload")).get("artifacts");
+
+    Map<String, Object> image = artifacts.get(0);
+    Map<String, Object> imageMetadata = (Map<String, Object>) image.get("metadata");
+    String imageCommit = (String) imageMetadata.get("commitId");
+    assertTrue(imageCommit.matches("[0-9a-f]{7}"));
+    String tag = "master-h100." + imageCommit;
+    assertEquals(image.get("type"), "DOCKER");
+    assertEquals(image.get("name"), "image1");
+    assertEquals(image.get("version"), tag);
+    assertEquals(image.get("reference"), "docker.dryrun.local/image1:" + tag);
+    assertEquals(
+        imageMetadata,
+        Map.of(
+            "createdAt",
+            timestamp,
+            "registry",
+            "docker.dryrun.local",
+            "fullname",
+            "docker.dryrun.local/image1:" + tag,
+            "tag",
+            tag,
+            "date",
+            String.valueOf(timestamp),
+            "buildNumber",
+            "100",
+            "commitId",
+            imageCommit,
+            "branch",
+            "master"));
+
+    Map<String, Object> debian = artifacts.get(1);
+    Map<String, Object> debianMetadata = (Map<String, Object>) debian.get("metadata");
+    String debianCommit = (String) debianMetadata.get("commitId");
+    assertEquals(debian.get("type"), "DEB");
+    assertEquals(debian.get("version"), "package1-1.0.100-h100." + debianCommit);
+    assertEquals(debian.get("reference"), "package1_1.0.100-h100." + debianCommit + "_all.deb");
+    assertEquals(
+        debianMetadata,
+        Map.of(
+            "createdAt", timestamp,
+            "releaseStatus", "FINAL",
+            "buildNumber", "100",
+            "commitId", debianCommit,
+            "branch", "master"));
+  }
+
+  @Test
+  public void event_DerivesTheSameCommit_ForTheSameVersion() throws Exception {
+    DryRunEventTemplate dockerTemplate =
+        new DryRunEventTemplate("dry-run@v1", artifactName -> group("images", ArtifactKind.DOCKER));
+    DryRunEventTemplate.Payload payload = dockerTemplate.newPayload(3);
+    payload.add("image1", 1000L);
+    payload.add("image1", 1000L);
+    payload.add("image1", 2000L);
+
+    JsonNode artifacts =
+        objectMapper
+            .readTree(objectMapper.writeValueAsString(DryRunEventTemplate.event(payload)))
+            .path("payload")
+            .path("artifacts");
+
+    assertEquals(artifacts.get(0).path("version"), artifacts.get(1).path("version"));
+    assertNotEquals(artifacts.get(0).path("version"), artifacts.get(2).path("version"));
+  }
+
+  @Test
+  public void payload_PublishesTheKindOfTheCurrentGroupConfig() throws Exception {
+    AtomicReference<DryRunPublisherGroup> group =
+        new AtomicReference<>(group("images", ArtifactKind.DRY_RUN));
+    DryRunEventTemplate groupTemplate =
+        new DryRunEventTemplate("dry-run@v1", artifactName -> group.get());
+    groupTemplate.reconfigure(List.of(group.get()));
+    DryRunEventTemplate.Payload before = groupTemplate.newPayload(1);
+    before.add("image1", 1000L);
+
+    group.set(group("images", ArtifactKind.DOCKER));
+    groupTemplate.reconfigure(List.of(group.get()));
+    DryRunEventTemplate.Payload after = groupTemplate.newPayload(1);
+    after.add("image1", 1000L);
+
+    assertEquals(type(before), "dry-run@v1");
+    assertEquals(type(after), "DOCKER");
+  }
+
+  private String type(DryRunEventTemplate.Payload payload) throws Exception {
+    return objectMapper
+        .readTree(objectMapper.writeValueAsString(DryRunEventTemplate.event(payload)))
+        .path("payload")
+        .path("artifacts")
+        .get(0)
+        .path("type")
+        .asText();
+  }
+
+  private static DryRunPublisherGroup group(String name, ArtifactKind kind) {
+    return new DryRunPublisherGroup(
+        name,
+        DryRunPublisherGroupConfig.builder()
+            .artifactPrefix(name)
+            .numberOfUniqueArtifacts(1)
+            .publishInterval(Duration.ofMinutes(1))
+            .artifactKind(kind)
+            .build(),
+        0);
+  }
+
+  private static Artifact artifact(String artifactName, long timestamp) {
+    return Artifact.builder()
+        .type("dry-run@v1")
+        .customKind(false)
+        .name(artifactName)
+        .version(String.valueOf(timestamp))
+        .reference(artifactName)
+        .metadata(Map.of("createdAt", timestamp))
+        .build();
+  }
+}
@@ -0,0 +1,121 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunKeelClientConfig;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DryRunKeelClientTest {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<String> receivedEvents = new CopyOnWriteArrayList<>();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private HttpServer server;
+  private volatile int status = 202;
+  private volatile boolean blocking;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/artifacts/events",
+        exchange -> {
+          try {
+            if (blocking) {
+              release.await(5, TimeUnit.SECONDS);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          receivedEvents.add(
+              new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        });
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void submit_PostsTheEvent() throws Exception {
+    DryRunKeelClient client = client(0);
+
+    client.submit(Map.of("eventName", "event1", "payload", Map.of())).get(5, TimeUnit.SECONDS);
+    client.shutdown();
+
+    assertEquals(receivedEvents.size(), 1);
+    assertEquals(
+        objectMapper.readTree(receivedEvents.get(0)),
+        objectMapper.readTree("{\"eventName\":\"event1\",\"payload\":{}}"));
+    assertEquals(client.getPending(), 0);
+  }
+
+  @Test
+  public void submit_Fails_WhenKeelRejectsTheEvent() throws Exception {
+    status = 500;
+    DryRunKeelClient client = client(0);
+
+    try {
+      client.submit(Map.of("eventName", "event1")).join();
+      fail("Expected the event to be rejected");
+    } catch (CompletionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    client.shutdown();
+  }
+
+  @Test
+  public void submit_Rejects_WhenTooManyEventsArePending() throws Exception {
+    blocking = true;
+    DryRunKeelClient client = client(2);
+
+    CompletableFuture<Void> first = client.submit(Map.of("eventName", "event1"));
+    CompletableFuture<Void> second = client.submit(Map.of("eventName", "event2"));
+    CompletableFuture<Void> third = client.submit(Map.of("eventName", "event3"));
+
+    assertEquals(client.getPending(), 2);
+    try {
+      third.join();
+      fail("Expected the event to be rejected");
+    } catch (CompletionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertEquals(receivedEvents.size(), 2);
+    assertEquals(client.getPending(), 0);
+    client.shutdown();
+  }
+
+  private DryRunKeelClient client(int maxPending) {
+    return new DryRunKeelClient(
+        DryRunKeelClientConfig.builder()
+            .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+            .maxInFlight(1)
+            .maxPending(maxPending)
+            .build());
+  }
+}
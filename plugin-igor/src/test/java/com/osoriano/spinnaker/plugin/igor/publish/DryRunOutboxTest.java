@@ -0,0 +1,244 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryDryRunCache;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class DryRunOutboxTest {
+  private static final Duration REPLICA_TIMEOUT = Duration.ofMinutes(1);
+
+  private Registry registry = new DefaultRegistry();
+  private DryRunCache cache = mock(DryRunCache.class);
+  private List<List<DryRunOutbox.Entry>> sentBatches = new ArrayList<>();
+
+  @Test
+  public void append_PushesEncodedEntries_AndCountsDroppedEntries() {
+    DryRunOutbox outbox = newOutbox(100, 3, sentBatches::add);
+    List<DryRunOutbox.Entry> versions =
+        List.of(
+            new DryRunOutbox.Entry("artifact1", 1000), new DryRunOutbox.Entry("artifact2", 2000));
+    when(cache.pushOutbox(List.of("1000:artifact1", "2000:artifact2"), 100)).thenReturn(2L);
+
+    outbox.append(versions);
+
+    verify(cache).pushOutbox(List.of("1000:artifact1", "2000:artifact2"), 100);
+    assertEquals(registry.counter("dryrun.outbox.dropped").count(), 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void drain_SendsClaimedBatches_UntilOutboxIsEmpty() {
+    DryRunOutbox outbox = newOutbox(0, 3, sentBatches::add);
+    when(cache.claimOutbox("replica1", 2))
+        .thenReturn(
+            List.of("1000:artifact1", "1000:artifact2"), List.of("2000:artifact1"), List.of());
+    when(cache.getOutboxDepth()).thenReturn(0L);
+
+    outbox.drain();
+
+    assertEquals(
+        sentBatches,
+        List.of(
+            List.of(
+                new DryRunOutbox.Entry("artifact1", 1000),
+                new DryRunOutbox.Entry("artifact2", 1000)),
+            List.of(new DryRunOutbox.Entry("artifact1", 2000))));
+
+    // Entries left in flight by a previous run are requeued once, before the first claim
+    InOrder inOrder = inOrder(cache);
+    inOrder.verify(cache).requeueOutbox("replica1");
+    inOrder.verify(cache).claimOutbox("replica1", 2);
+    verify(cache, times(2)).ackOutbox("replica1");
+    assertEquals(registry.counter("dryrun.outbox.delivered").count(), 3);
+    assertEquals(registry.gauge("dryrun.outbox.depth").value(), 0, 0);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void drain_RequeuesBatch_WhenEveryAttemptFails() {
+    DryRunOutbox outbox =
+        newOutbox(
+            0,
+            3,
+            entries -> {
+              throw new RuntimeException("Keel is unavailable");
+            });
+    when(cache.claimOutbox("replica1", 2)).thenReturn(List.of("1000:artifact1"));
+    when(cache.getOutboxDepth()).thenReturn(1L);
+    when(cache.getOldestOutboxEntry()).thenReturn("1000:artifact1");
+
+    // Each drain makes a single attempt, and the batch stays in flight between attempts
+    outbox.drain();
+    outbox.drain();
+    verify(cache, times(1)).requeueOutbox("replica1");
+    outbox.drain();
+
+    verify(cache, times(1)).claimOutbox("replica1", 2);
+    verify(cache, never()).ackOutbox("replica1");
+    verify(cache, times(2)).requeueOutbox("replica1");
+    assertEquals(registry.counter("dryrun.outbox.retries").count(), 2);
+    assertEquals(registry.gauge("dryrun.outbox.depth").value(), 1, 0);
+
+    // The next drain delivers the batch once Keel is back
+    DryRunOutbox recovered = newOutbox(0, 3, sentBatches::add);
+    when(cache.claimOutbox("replica1", 2)).thenReturn(List.of("1000:artifact1"), List.of());
+    recovered.drain();
+    assertEquals(sentBatches, List.of(List.of(new DryRunOutbox.Entry("artifact1", 1000))));
+  }
+
+  @Test
+  public void drain_LeavesFailedBatchInFlight_UntilItsBackoffPassed() {
+    List<Integer> attempts = new ArrayList<>();
+    DryRunOutbox outbox =
+        new DryRunOutbox(
+            cache,
+            "replica1",
+            REPLICA_TIMEOUT,
+            0,
+            2,
+            3,
+            Duration.ofHours(1),
+            entries -> {
+              attempts.add(entries.size());
+              throw new RuntimeException("Keel is unavailable");
+            },
+            null,
+            registry);
+    when(cache.claimOutbox("replica1", 2)).thenReturn(List.of("1000:artifact1"));
+
+    // The drain returns right away instead of waiting for the retry
+    outbox.drain();
+    outbox.drain();
+
+    assertEquals(attempts, List.of(1));
+    verify(cache, times(1)).claimOutbox("replica1", 2);
+    verify(cache, times(1)).requeueOutbox("replica1");
+  }
+
+  @Test
+  public void drain_StopsClaiming_WhenRateLimiterDeniesThePermits() {
+    DryRunRateController rateController = mock(DryRunRateController.class);
+    when(rateController.availablePermits(anyLong())).thenReturn(2);
+    when(rateController.tryAcquire(eq(1), anyLong())).thenReturn(false);
+    DryRunOutbox outbox =
+        new DryRunOutbox(
+            cache,
+            "replica1",
+            REPLICA_TIMEOUT,
+            0,
+            2,
+            3,
+            Duration.ZERO,
+            sentBatches::add,
+            rateController,
+            registry);
+    when(cache.claimOutbox("replica1", 2)).thenReturn(List.of("1000:artifact1"));
+
+    outbox.drain();
+
+    assertEquals(sentBatches, List.of());
+    verify(cache, times(1)).claimOutbox("replica1", 2);
+    verify(cache, times(2)).requeueOutbox("replica1");
+  }
+
+  @Test
+  public void drain_DeliversEntriesLeftInFlight_ByReplicasThatExpired() throws Exception {
+    DryRunCache sharedCache = new InMemoryDryRunCache();
+    Duration replicaTimeout = Duration.ofMillis(50);
+    DryRunOutbox replicaA =
+        new DryRunOutbox(
+            sharedCache,
+            "replicaA",
+            replicaTimeout,
+            0,
+            2,
+            3,
+            Duration.ofHours(1),
+            entries -> {
+              throw new RuntimeException("Keel is unavailable");
+            },
+            null,
+            registry);
+    DryRunOutbox replicaB =
+        new DryRunOutbox(
+            sharedCache,
+            "replicaB",
+            replicaTimeout,
+            0,
+            2,
+            3,
+            Duration.ZERO,
+            sentBatches::add,
+            null,
+            registry);
+    replicaA.append(
+        List.of(
+            new DryRunOutbox.Entry("artifact1", 1000), new DryRunOutbox.Entry("artifact2", 1000)));
+
+    // Replica A claims the entries, and goes away before Keel accepted them
+    replicaA.drain();
+    assertEquals(sharedCache.getOutboxInFlightReplicas(), List.of("replicaA"));
+
+    Thread.sleep(replicaTimeout.toMillis() * 2);
+    replicaB.drain();
+
+    assertEquals(
+        sentBatches,
+        List.of(
+            List.of(
+                new DryRunOutbox.Entry("artifact1", 1000),
+                new DryRunOutbox.Entry("artifact2", 1000))));
+    assertEquals(sharedCache.getOutboxInFlightReplicas(), List.of());
+    assertEquals(registry.counter("dryrun.outbox.reclaimed").count(), 2);
+  }
+
+  @Test
+  public void drain_LeavesEntriesInFlight_ByLiveReplicas() {
+    DryRunOutbox outbox = newOutbox(0, 3, sentBatches::add);
+    when(cache.getReplicas(anyLong())).thenReturn(List.of("replica1", "replica2"));
+    when(cache.getOutboxInFlightReplicas()).thenReturn(List.of("replica2", "replica3"));
+
+    outbox.drain();
+    outbox.drain();
+
+    verify(cache).setReplicaHeartbeat(eq("replica1"), anyLong(), anyLong());
+    verify(cache, never()).requeueOutbox("replica2");
+    verify(cache, times(1)).requeueOutbox("replica3");
+  }
+
+  @Test
+  public void decode_ReturnsEncodedEntry_WhenArtifactNameHasColons() {
+    DryRunOutbox.Entry entry = new DryRunOutbox.Entry("prefix:artifact1", 1000);
+    assertEquals(DryRunOutbox.decode(DryRunOutbox.encode(entry)), entry);
+  }
+
+  private DryRunOutbox newOutbox(int maxDepth, int maxAttempts, DryRunOutbox.EntrySender sender) {
+    return new DryRunOutbox(
+        cache,
+        "replica1",
+        REPLICA_TIMEOUT,
+        maxDepth,
+        2,
+        maxAttempts,
+        Duration.ZERO,
+        sender,
+        null,
+        registry);
+  }
+}
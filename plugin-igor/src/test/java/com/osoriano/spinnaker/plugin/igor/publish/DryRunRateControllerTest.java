@@ -0,0 +1,74 @@
+package com.osoriano.spinnaker.plugin.igor.publish;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunRateLimitConfig;
+import java.time.Duration;
+import org.junit.Test;
+
+public class DryRunRateControllerTest {
+
+  @Test
+  public void tryAcquire_AllowsBurst_ThenRefillsAtMaxRate() {
+    DryRunRateController controller =
+        new DryRunRateController(DryRunRateLimitConfig.builder().maxRate(10).burst(5).build(), 0);
+
+    assertTrue(controller.tryAcquire(5, 0));
+    assertFalse(controller.tryAcquire(1, 0));
+
+    // 10 per second refills one token every 100ms
+    assertFalse(controller.tryAcquire(1, 99));
+    assertTrue(controller.tryAcquire(1, 100));
+    assertEquals(controller.availablePermits(1000), 5);
+  }
+
+  @Test
+  public void record_HalvesRate_WhenKeelIsSlowOrFailing() {
+    DryRunRateController controller = newAdaptiveController();
+
+    // Slow calls cut the rate at the end of the adjustment window
+    controller.record(2000, true, 0);
+    controller.record(2000, true, 1000);
+    assertEquals(controller.getRate(), 50, 0);
+
+    // Failures cut it again
+    controller.record(10, false, 2000);
+    assertEquals(controller.getRate(), 25, 0);
+
+    // The rate never drops below the minimum rate
+    for (long now = 3000; now < 10000; now += 1000) {
+      controller.record(10, false, now);
+    }
+    assertEquals(controller.getRate(), 10, 0);
+  }
+
+  @Test
+  public void record_RaisesRateStepByStep_WhileKeelIsHealthy() {
+    DryRunRateController controller = newAdaptiveController();
+    controller.record(10, false, 1000);
+    assertEquals(controller.getRate(), 50, 0);
+
+    controller.record(10, true, 2000);
+    assertEquals(controller.getRate(), 55, 0);
+
+    // The rate never goes above the maximum rate
+    for (long now = 3000; now < 20000; now += 1000) {
+      controller.record(10, true, now);
+    }
+    assertEquals(controller.getRate(), 100, 0);
+  }
+
+  private static DryRunRateController newAdaptiveController() {
+    return new DryRunRateController(
+        DryRunRateLimitConfig.builder()
+            .maxRate(100)
+            .minRate(10)
+            .adaptive(true)
+            .latencyTarget(Duration.ofSeconds(1))
+            .adjustInterval(Duration.ofSeconds(1))
+            .build(),
+        0);
+  }
+}
@@ -0,0 +1,43 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.osoriano.spinnaker.plugin.igor.schedule.DryRunDueQueue.DueArtifact;
+import java.util.List;
+import java.util.OptionalLong;
+import org.junit.Test;
+
+public class DryRunDueQueueTest {
+  private DryRunDueQueue queue = new DryRunDueQueue();
+
+  @Test
+  public void pollDue_ReturnsOnlyDueArtifacts_InDueOrder() {
+    queue.schedule("artifact1", 300);
+    queue.schedule("artifact2", 100);
+    queue.schedule("artifact3", 200);
+
+    assertEquals(
+        queue.pollDue(200),
+        List.of(new DueArtifact("artifact2", 100), new DueArtifact("artifact3", 200)));
+    assertEquals(queue.nextDueAt(), OptionalLong.of(300));
+    assertTrue(queue.containsExactly(List.of("artifact1")));
+  }
+
+  @Test
+  public void pollDue_SkipsStaleEntries_OfRescheduledAndRemovedArtifacts() {
+    queue.schedule("artifact1", 100);
+    queue.schedule("artifact2", 100);
+    queue.schedule("artifact1", 500);
+    queue.remove("artifact2");
+
+    assertEquals(queue.pollDue(200), List.of());
+    assertEquals(queue.nextDueAt(), OptionalLong.of(500));
+    assertFalse(queue.contains("artifact2"));
+    assertEquals(queue.getArtifactNames(), List.of("artifact1"));
+
+    assertEquals(queue.pollDue(500), List.of(new DueArtifact("artifact1", 500)));
+    assertEquals(queue.nextDueAt(), OptionalLong.empty());
+  }
+}
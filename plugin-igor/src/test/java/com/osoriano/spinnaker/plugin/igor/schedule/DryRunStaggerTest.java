@@ -0,0 +1,96 @@
+package com.osoriano.spinnaker.plugin.igor.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStaggerConfig;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class DryRunStaggerTest {
+  private static final long STARTED_AT = 1_000_000;
+  private static final long INTERVAL = 60_000;
+
+  @Test
+  public void nextDueAt_SpreadsArtifactsDueBeforeStartup_OverThePublishInterval() {
+    DryRunStagger stagger =
+        new DryRunStagger(DryRunStaggerConfig.builder().phaseOffsets(true).build(), STARTED_AT);
+
+    // 1000 artifacts spread over 10 buckets of 6 seconds each
+    int[] buckets = new int[10];
+    for (int i = 0; i < 1000; i++) {
+      String artifactName = "artifact" + i;
+      long lastPublishTimestamp = i % 2 == 0 ? 0 : STARTED_AT - 2 * INTERVAL;
+      long dueAt = stagger.nextDueAt(artifactName, lastPublishTimestamp, INTERVAL, INTERVAL);
+      assertTrue(dueAt >= STARTED_AT && dueAt < STARTED_AT + INTERVAL);
+      buckets[(int) ((dueAt - STARTED_AT) / (INTERVAL / 10))]++;
+    }
+    for (int bucket : buckets) {
+      assertTrue(bucket > 50 && bucket < 150);
+    }
+
+    // Versions published since startup are due one interval later
+    assertEquals(
+        stagger.nextDueAt("artifact1", STARTED_AT + 10, INTERVAL, INTERVAL),
+        STARTED_AT + 10 + INTERVAL);
+  }
+
+  @Test
+  public void nextDueAt_SpreadsArtifactsAddedByAReconfiguration_FromWhenTheyWereAdded() {
+    DryRunStagger stagger = new DryRunStagger(DryRunStaggerConfig.builder().build(), STARTED_AT);
+    long addedAt = STARTED_AT + 5 * INTERVAL;
+
+    Set<Long> dueTimes = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      long dueAt = stagger.nextDueAt("artifact" + i, 0, INTERVAL, INTERVAL, addedAt);
+      assertTrue(dueAt >= addedAt && dueAt < addedAt + INTERVAL);
+      dueTimes.add(dueAt);
+    }
+    assertTrue(dueTimes.size() > 90);
+
+    // Versions published since the artifact was added are due one interval later
+    assertEquals(
+        stagger.nextDueAt("artifact1", addedAt + 10, INTERVAL, INTERVAL, addedAt),
+        addedAt + 10 + INTERVAL);
+  }
+
+  @Test
+  public void nextDueAt_AddsDeterministicJitter() {
+    DryRunStagger stagger =
+        new DryRunStagger(
+            DryRunStaggerConfig.builder().jitter(Duration.ofSeconds(5)).build(), STARTED_AT);
+
+    Set<Long> dueTimes = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      long dueAt = stagger.nextDueAt("artifact" + i, STARTED_AT, INTERVAL, INTERVAL);
+      assertTrue(dueAt >= STARTED_AT + INTERVAL && dueAt <= STARTED_AT + INTERVAL + 5000);
+      assertEquals(stagger.nextDueAt("artifact" + i, STARTED_AT, INTERVAL, INTERVAL), dueAt);
+      dueTimes.add(dueAt);
+    }
+    assertTrue(dueTimes.size() > 90);
+
+    assertEquals(
+        stagger.nextDueAt("artifact1", STARTED_AT, Long.MAX_VALUE, INTERVAL), Long.MAX_VALUE);
+  }
+
+  @Test
+  public void tryCatchUp_LimitsCatchUpPublishesPerCycle() {
+    DryRunStagger stagger =
+        new DryRunStagger(DryRunStaggerConfig.builder().maxCatchUpPerCycle(2).build(), STARTED_AT);
+
+    stagger.startCycle();
+    assertTrue(stagger.tryCatchUp());
+    assertTrue(stagger.tryCatchUp());
+    assertFalse(stagger.tryCatchUp());
+
+    stagger.startCycle();
+    assertTrue(stagger.tryCatchUp());
+
+    assertTrue(stagger.isCatchUp(0, STARTED_AT, INTERVAL, STARTED_AT));
+    assertTrue(stagger.isCatchUp(STARTED_AT, STARTED_AT, INTERVAL, STARTED_AT + INTERVAL));
+    assertFalse(stagger.isCatchUp(STARTED_AT, STARTED_AT, INTERVAL, STARTED_AT + 1));
+  }
+}
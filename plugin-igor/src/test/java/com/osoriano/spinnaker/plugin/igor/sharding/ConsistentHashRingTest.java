@@ -0,0 +1,45 @@
+package com.osoriano.spinnaker.plugin.igor.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConsistentHashRingTest {
+
+  @Test
+  public void getOwner_SpreadsKeysAcrossMembers() {
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("replica1", "replica2", "replica3"));
+
+    Map<String, Integer> keysPerMember = new HashMap<>();
+    for (int i = 0; i < 3000; i++) {
+      keysPerMember.merge(ring.getOwner("artifact" + i), 1, Integer::sum);
+    }
+
+    assertEquals(keysPerMember.size(), 3);
+    keysPerMember.values().forEach(count -> assertTrue(count > 500));
+  }
+
+  @Test
+  public void getOwner_OnlyMovesKeysOfRemovedMember() {
+    ConsistentHashRing before = new ConsistentHashRing(List.of("replica1", "replica2", "replica3"));
+    ConsistentHashRing after = new ConsistentHashRing(List.of("replica1", "replica3"));
+
+    for (int i = 0; i < 1000; i++) {
+      String key = "artifact" + i;
+      String owner = before.getOwner(key);
+      if (!owner.equals("replica2")) {
+        assertEquals(after.getOwner(key), owner);
+      }
+    }
+  }
+
+  @Test
+  public void getOwner_ReturnsNull_WhenRingIsEmpty() {
+    assertNull(new ConsistentHashRing(List.of()).getOwner("artifact"));
+  }
+}
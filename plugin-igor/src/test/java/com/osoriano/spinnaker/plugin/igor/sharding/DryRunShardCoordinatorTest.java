@@ -0,0 +1,56 @@
+package com.osoriano.spinnaker.plugin.igor.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryDryRunCache;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class DryRunShardCoordinatorTest {
+  private final DryRunCache cache = new InMemoryDryRunCache();
+  private final List<String> artifactNames = artifactNames(1000);
+
+  @Test
+  public void filterOwned_ReusesTheOwnedArtifacts_UntilTheRingChanges() {
+    DryRunShardCoordinator coordinator =
+        new DryRunShardCoordinator(cache, "replica1", Duration.ofMinutes(1), () -> {});
+    cache.setReplicaHeartbeat("replica2", 1000, 0);
+    coordinator.refresh(1000);
+
+    List<String> owned = coordinator.filterOwned(artifactNames);
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("replica1", "replica2"));
+    assertEquals(
+        new ArrayList<>(owned),
+        artifactNames.stream()
+            .filter(name -> ring.getOwner(name).equals("replica1"))
+            .collect(Collectors.toList()));
+
+    // Polls with the same replicas and artifacts don't hash the artifacts again
+    coordinator.refresh(2000);
+    assertSame(coordinator.filterOwned(artifactNames), owned);
+
+    // Replica2 expired, so this replica owns every artifact
+    coordinator.refresh(Duration.ofMinutes(2).toMillis());
+    List<String> ownedAlone = coordinator.filterOwned(artifactNames);
+    assertNotSame(ownedAlone, owned);
+    assertEquals(new ArrayList<>(ownedAlone), artifactNames);
+
+    // Other artifacts, e.g. after a reconfiguration, are hashed again
+    List<String> reconfigured = artifactNames(10);
+    assertEquals(new ArrayList<>(coordinator.filterOwned(reconfigured)), reconfigured);
+  }
+
+  private static List<String> artifactNames(int count) {
+    List<String> artifactNames = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      artifactNames.add("artifact" + i);
+    }
+    return artifactNames;
+  }
+}
@@ -0,0 +1,85 @@
+package com.osoriano.spinnaker.plugin.igor.standalone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.ArtifactKind;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStandaloneConfig;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import org.junit.Test;
+
+public class DryRunPublisherMainTest {
+
+  @Test
+  public void readConfig_ReadsThePublisherGroups_WithThePluginKeys() {
+    Properties properties = new Properties();
+    properties.setProperty("keel-client.base-url", "http://keel:8087");
+    properties.setProperty("max-batch-size", "100");
+    properties.setProperty("state-file", "state.properties");
+    properties.setProperty("retry-delay", "PT5S");
+    properties.setProperty("publisher-groups.images.artifact-prefix", "image-");
+    properties.setProperty("publisher-groups.images.number-of-unique-artifacts", "10");
+    properties.setProperty("publisher-groups.images.publish-interval", "5m");
+    properties.setProperty("publisher-groups.images.artifact-kind", "docker");
+    properties.setProperty("publisher-groups.packages.artifact-prefix", "package-");
+    properties.setProperty("publisher-groups.packages.publish-interval", "1500");
+
+    DryRunStandaloneConfig config = DryRunPublisherMain.readConfig(properties);
+
+    assertEquals(config.getKeelClient().getBaseUrl(), "http://keel:8087");
+    assertEquals(config.getMaxBatchSize(), 100);
+    assertEquals(config.getStateFile(), "state.properties");
+    assertEquals(config.getRetryDelayOrDefault(), Duration.ofSeconds(5));
+    assertNull(config.getStagger());
+    assertEquals(List.copyOf(config.getPublisherGroups().keySet()), List.of("images", "packages"));
+    DryRunPublisherGroupConfig images = config.getPublisherGroups().get("images");
+    assertEquals(images.getArtifactPrefix(), "image-");
+    assertEquals(images.getNumberOfUniqueArtifacts(), 10);
+    assertEquals(images.getPublishInterval(), Duration.ofMinutes(5));
+    assertEquals(images.getArtifactKindOrDefault(), ArtifactKind.DOCKER);
+    assertEquals(
+        config.getPublisherGroups().get("packages").getPublishInterval(), Duration.ofMillis(1500));
+  }
+
+  @Test
+  public void readConfig_UsesTheTopLevelSettings_WithoutPublisherGroups() {
+    Properties properties = new Properties();
+    properties.setProperty("artifact-prefix", "artifact-");
+    properties.setProperty("number-of-unique-artifacts", "3");
+    properties.setProperty("publish-interval", "2h");
+
+    DryRunStandaloneConfig config = DryRunPublisherMain.readConfig(properties);
+
+    assertNull(config.getKeelClient());
+    DryRunPublisherGroupConfig group = config.getPublisherGroups().get("default");
+    assertEquals(group.getArtifactPrefix(), "artifact-");
+    assertEquals(group.getNumberOfUniqueArtifacts(), 3);
+    assertEquals(group.getPublishInterval(), Duration.ofHours(2));
+  }
+
+  @Test
+  public void duration_ReadsPlainNumbers_AsMilliseconds() {
+    Properties properties = new Properties();
+    properties.setProperty("single-digit", "5");
+    properties.setProperty("plain", "1500");
+    properties.setProperty("millis", "7ms");
+    properties.setProperty("seconds", "7s");
+
+    assertEquals(DryRunPublisherMain.duration(properties, "single-digit"), Duration.ofMillis(5));
+    assertEquals(DryRunPublisherMain.duration(properties, "plain"), Duration.ofMillis(1500));
+    assertEquals(DryRunPublisherMain.duration(properties, "millis"), Duration.ofMillis(7));
+    assertEquals(DryRunPublisherMain.duration(properties, "seconds"), Duration.ofSeconds(7));
+    assertNull(DryRunPublisherMain.duration(properties, "missing"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void duration_RejectsUnknownUnits() {
+    Properties properties = new Properties();
+    properties.setProperty("retry-delay", "5w");
+
+    DryRunPublisherMain.duration(properties, "retry-delay");
+  }
+}
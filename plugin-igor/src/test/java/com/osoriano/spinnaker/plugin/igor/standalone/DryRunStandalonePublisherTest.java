@@ -0,0 +1,209 @@
+package com.osoriano.spinnaker.plugin.igor.standalone;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.osoriano.spinnaker.plugin.igor.cache.DryRunCache;
+import com.osoriano.spinnaker.plugin.igor.cache.InMemoryDryRunCache;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunPublisherGroupConfig.MissedIntervalPolicy;
+import com.osoriano.spinnaker.plugin.igor.config.DryRunStandaloneConfig;
+import com.osoriano.spinnaker.plugin.igor.publish.DryRunKeelClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DryRunStandalonePublisherTest {
+  private static final long START = 1_000_000_000L;
+  private static final long INTERVAL = Duration.ofMinutes(1).toMillis();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final DryRunKeelClient keelClient = mock(DryRunKeelClient.class);
+  private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+  private final DryRunCache cache = new InMemoryDryRunCache();
+  private final List<String> submittedPayloads = new ArrayList<>();
+  private long now = START;
+  private boolean keelAccepts = true;
+
+  @Before
+  public void setUp() {
+    when(keelClient.submit(any()))
+        .thenAnswer(
+            invocation -> {
+              Map<?, ?> event = invocation.getArgument(0);
+              submittedPayloads.add(event.get("payload").toString());
+              CompletableFuture<Void> result = new CompletableFuture<>();
+              if (keelAccepts) {
+                result.complete(null);
+              } else {
+                result.completeExceptionally(new RejectedExecutionException("Too many events"));
+              }
+              return result;
+            });
+  }
+
+  @Test
+  public void publishDue_SendsTheDueArtifacts_InBatches() {
+    DryRunStandalonePublisher publisher = publisher(3, 2, MissedIntervalPolicy.COALESCE, null);
+    publisher.start();
+
+    assertEquals(publisher.publishDue(), 3);
+
+    assertEquals(submittedPayloads.size(), 2);
+    assertEquals(publisher.getPublished(), 3);
+    assertEquals(publisher.getFailed(), 0);
+    assertEquals(
+        new ArrayList<>(cache.getCacheValues(publisher.getArtifactNames()).values()),
+        timestamps(3, now));
+  }
+
+  @Test
+  public void publishDue_SendsTheNextVersions_OncePublishIntervalPassed() {
+    DryRunStandalonePublisher publisher = publisher(3, 10, MissedIntervalPolicy.COALESCE, null);
+    publisher.start();
+    publisher.publishDue();
+
+    now += INTERVAL - 1;
+    assertEquals(publisher.publishDue(), 0);
+
+    now += 1;
+    assertEquals(publisher.publishDue(), 3);
+    assertEquals(submittedPayloads.size(), 2);
+    assertEquals(
+        new ArrayList<>(cache.getCacheValues(publisher.getArtifactNames()).values()),
+        timestamps(3, now));
+  }
+
+  @Test
+  public void publishDue_SendsRejectedVersionsAgain_AfterRetryDelay() {
+    keelAccepts = false;
+    DryRunStandalonePublisher publisher = publisher(3, 10, MissedIntervalPolicy.COALESCE, null);
+    publisher.start();
+
+    assertEquals(publisher.publishDue(), 3);
+    assertEquals(publisher.getFailed(), 3);
+    assertEquals(
+        new ArrayList<>(cache.getCacheValues(publisher.getArtifactNames()).values()),
+        timestamps(3, 0));
+
+    now += Duration.ofSeconds(1).toMillis() - 1;
+    assertEquals(publisher.publishDue(), 0);
+
+    keelAccepts = true;
+    now += 1;
+    assertEquals(publisher.publishDue(), 3);
+    assertEquals(publisher.getPublished(), 3);
+    assertEquals(
+        new ArrayList<>(cache.getCacheValues(publisher.getArtifactNames()).values()),
+        timestamps(3, now));
+  }
+
+  @Test
+  public void publishDue_BackfillsMissedVersions_InTheirOwnEvent() {
+    cache.setCacheValue("artifact1", String.valueOf(START - 3 * INTERVAL));
+    cache.setCacheValue("artifact2", String.valueOf(START - INTERVAL / 2));
+    DryRunStandalonePublisher publisher = publisher(2, 10, MissedIntervalPolicy.BACKFILL, null);
+    publisher.start();
+
+    assertEquals(publisher.publishDue(), 3);
+
+    assertEquals(
+        submittedPayloads,
+        List.of(
+            "artifacts=[artifact1@"
+                + (START - 2 * INTERVAL)
+                + ", artifact1@"
+                + (START - INTERVAL)
+                + ", artifact1@"
+                + START
+                + "]"));
+    assertEquals(cache.getCacheValue("artifact1"), String.valueOf(START));
+    assertEquals(cache.getCacheValue("artifact2"), String.valueOf(START - INTERVAL / 2));
+  }
+
+  @Test
+  public void stop_WritesTheTimestamps_ThatTheNextStartCarriesOnFrom() throws Exception {
+    DryRunStateFile stateFile = new DryRunStateFile(folder.getRoot().toPath().resolve("state"));
+    DryRunStandalonePublisher publisher =
+        publisher(2, 10, MissedIntervalPolicy.COALESCE, stateFile);
+    publisher.start();
+    publisher.publishDue();
+    publisher.stop();
+
+    verify(keelClient).shutdown();
+    assertEquals(
+        stateFile.read(),
+        Map.of("artifact1", String.valueOf(START), "artifact2", String.valueOf(START)));
+
+    DryRunCache restartedCache = new InMemoryDryRunCache();
+    DryRunStandalonePublisher restarted =
+        new DryRunStandalonePublisher(
+            config(2, 10, MissedIntervalPolicy.COALESCE),
+            keelClient,
+            restartedCache,
+            stateFile,
+            executor,
+            () -> now);
+    restarted.start();
+
+    assertEquals(restarted.publishDue(), 0);
+    assertEquals(restartedCache.getCacheValue("artifact2"), String.valueOf(START));
+  }
+
+  @Test
+  public void stateFile_ReadsNoTimestamps_WhenTheFileDoesNotExist() {
+    DryRunStateFile stateFile = new DryRunStateFile(folder.getRoot().toPath().resolve("missing"));
+
+    assertEquals(stateFile.read(), Map.of());
+  }
+
+  private DryRunStandalonePublisher publisher(
+      int numberOfArtifacts,
+      int maxBatchSize,
+      MissedIntervalPolicy missedIntervalPolicy,
+      DryRunStateFile stateFile) {
+    return new DryRunStandalonePublisher(
+        config(numberOfArtifacts, maxBatchSize, missedIntervalPolicy),
+        keelClient,
+        cache,
+        stateFile,
+        executor,
+        () -> now);
+  }
+
+  private static DryRunStandaloneConfig config(
+      int numberOfArtifacts, int maxBatchSize, MissedIntervalPolicy missedIntervalPolicy) {
+    return DryRunStandaloneConfig.builder()
+        .publisherGroups(
+            Map.of(
+                "default",
+                DryRunPublisherGroupConfig.builder()
+                    .publishInterval(Duration.ofMillis(INTERVAL))
+                    .numberOfUniqueArtifacts(numberOfArtifacts)
+                    .artifactPrefix("artifact")
+                    .missedIntervalPolicy(missedIntervalPolicy)
+                    .build()))
+        .maxBatchSize(maxBatchSize)
+        .build();
+  }
+
+  private static List<String> timestamps(int count, long timestamp) {
+    List<String> timestamps = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      timestamps.add(String.valueOf(timestamp));
+    }
+    return timestamps;
+  }
+}
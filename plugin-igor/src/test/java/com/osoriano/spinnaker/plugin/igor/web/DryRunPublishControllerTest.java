@@ -0,0 +1,90 @@
+package com.osoriano.spinnaker.plugin.igor.web;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spinnaker.kork.web.exceptions.InvalidRequestException;
+import com.osoriano.spinnaker.plugin.igor.model.DryRunBulkPublishProgress;
+import com.osoriano.spinnaker.plugin.igor.monitor.DryRunPollingMonitor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.After;
+import org.junit.Test;
+
+public class DryRunPublishControllerTest {
+  private DryRunPollingMonitor monitor = mock(DryRunPollingMonitor.class);
+  private DryRunPublishController controller = new DryRunPublishController(monitor);
+
+  @After
+  public void tearDown() {
+    controller.stop();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void publish_StreamsProgressOfTheBulkPublish() {
+    DryRunBulkPublishProgress progress =
+        new DryRunBulkPublishProgress(
+            "group", 5, 5, 10, DryRunBulkPublishProgress.Status.COMPLETED);
+    when(monitor.bulkPublish(eq("group"), eq(5), eq(10.0), any()))
+        .thenAnswer(
+            invocation -> {
+              invocation.<Consumer<DryRunBulkPublishProgress>>getArgument(3).accept(progress);
+              return progress;
+            });
+
+    controller.publish("group", 5, 10.0);
+
+    verify(monitor).validateBulkPublish("group", 5, 10.0);
+    verify(monitor, timeout(5000)).bulkPublish(eq("group"), eq(5), eq(10.0), any(Consumer.class));
+  }
+
+  @Test
+  public void publish_RefusesRequests_WhileTheMaximumOfPublishesRun() throws Exception {
+    CountDownLatch started = new CountDownLatch(DryRunPublishController.MAX_CONCURRENT_PUBLISHES);
+    CountDownLatch release = new CountDownLatch(1);
+    when(monitor.bulkPublish(eq("group"), eq(5), eq(10.0), any()))
+        .thenAnswer(
+            invocation -> {
+              started.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return null;
+            });
+
+    for (int i = 0; i < DryRunPublishController.MAX_CONCURRENT_PUBLISHES; i++) {
+      controller.publish("group", 5, 10.0);
+    }
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    try {
+      controller.publish("group", 5, 10.0);
+      fail("Expected the publish to be refused");
+    } catch (DryRunPublishController.TooManyPublishesException e) {
+      // expected
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test(expected = InvalidRequestException.class)
+  public void publish_RejectsInvalidRequests() {
+    doThrow(new IllegalArgumentException("Unknown dry run publisher group: other"))
+        .when(monitor)
+        .validateBulkPublish("other", 5, 10.0);
+
+    try {
+      controller.publish("other", 5, 10.0);
+    } finally {
+      verify(monitor, never()).bulkPublish(any(), eq(5), eq(10.0), any());
+    }
+  }
+}
@@ -3,10 +3,12 @@ package com.osoriano.spinnaker.plugin.stage.dryrun;
 import com.netflix.spinnaker.kork.plugins.api.spring.ExposeToApp;
 import com.netflix.spinnaker.orca.api.pipeline.RetryableTask;
 import com.netflix.spinnaker.orca.api.pipeline.TaskResult;
+import com.netflix.spinnaker.orca.api.pipeline.models.ExecutionStatus;
 import com.netflix.spinnaker.orca.api.pipeline.models.StageExecution;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +22,12 @@ import org.springframework.stereotype.Component;
 public class DryRunTask implements RetryableTask {
   private static final Logger log = LoggerFactory.getLogger(DryRunTask.class);
 
+  /** Stage output holding when the wait time has elapsed, in epoch millis */
+  static final String COMPLETION_DEADLINE = "dryRunCompletionDeadline";
+
+  /** Stage output holding the start time the stored deadline was computed from, in epoch millis */
+  static final String COMPLETION_DEADLINE_START_TIME = "dryRunCompletionDeadlineStartTime";
+
   private DryRunPluginConfig config;
   private final Clock clock;
 
@@ -30,13 +38,25 @@ public class DryRunTask implements RetryableTask {
 
   @Override
   public @Nonnull TaskResult execute(@Nonnull StageExecution stage) {
-    DryRunContext context = stage.mapTo(DryRunContext.class);
+    if (stage.getStartTime() == null) {
+      return TaskResult.RUNNING;
+    }
 
-    Instant now = clock.instant();
+    Long storedDeadline = storedCompletionDeadline(stage);
+    long deadline = storedDeadline != null ? storedDeadline : completionDeadline(stage);
 
-    if (stage.getStartTime() != null
-        && Instant.ofEpochMilli(stage.getStartTime()).plus(context.getWaitTime()).isBefore(now)) {
+    if (deadline < clock.instant().toEpochMilli()) {
       return TaskResult.SUCCEEDED;
+    } else if (storedDeadline == null) {
+      // Store the deadline, so later executions don't map the stage context again
+      return TaskResult.builder(ExecutionStatus.RUNNING)
+          .outputs(
+              Map.of(
+                  COMPLETION_DEADLINE,
+                  deadline,
+                  COMPLETION_DEADLINE_START_TIME,
+                  stage.getStartTime()))
+          .build();
     } else {
       return TaskResult.RUNNING;
     }
@@ -44,21 +64,39 @@ public class DryRunTask implements RetryableTask {
 
   @Override
   public long getDynamicBackoffPeriod(StageExecution stage, Duration taskDuration) {
-    DryRunContext context = stage.mapTo(DryRunContext.class);
-
     // Return a backoff time that reflects the requested waitTime
     if (stage.getStartTime() != null) {
-      Instant now = clock.instant();
-      Instant completion = Instant.ofEpochMilli(stage.getStartTime()).plus(context.getWaitTime());
+      Long storedDeadline = storedCompletionDeadline(stage);
+      long deadline = storedDeadline != null ? storedDeadline : completionDeadline(stage);
+      long now = clock.instant().toEpochMilli();
 
-      if (completion.isAfter(now)) {
-        return completion.toEpochMilli() - now.toEpochMilli();
+      if (deadline > now) {
+        return deadline - now;
       }
     }
 
     return getBackoffPeriod();
   }
 
+  // Returns the deadline stored by a previous execution, or null if it was not stored yet. A
+  // deadline stored for another start time, e.g. before the stage was restarted, is ignored
+  private static Long storedCompletionDeadline(StageExecution stage) {
+    Object deadline = stage.getOutputs().get(COMPLETION_DEADLINE);
+    Object startTime = stage.getOutputs().get(COMPLETION_DEADLINE_START_TIME);
+    if (!(deadline instanceof Number)
+        || !(startTime instanceof Number)
+        || ((Number) startTime).longValue() != stage.getStartTime()) {
+      return null;
+    }
+    return ((Number) deadline).longValue();
+  }
+
+  // Returns when the requested waitTime has elapsed since the stage started, in epoch millis
+  private static long completionDeadline(StageExecution stage) {
+    DryRunContext context = stage.mapTo(DryRunContext.class);
+    return Instant.ofEpochMilli(stage.getStartTime()).plus(context.getWaitTime()).toEpochMilli();
+  }
+
   @Override
   public long getBackoffPeriod() {
     return config.getBackoffPeriod().toMillis();
@@ -4,12 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.netflix.spinnaker.orca.api.pipeline.TaskResult;
 import com.netflix.spinnaker.orca.api.pipeline.models.ExecutionStatus;
 import com.netflix.spinnaker.orca.api.pipeline.models.StageExecution;
 import com.netflix.spinnaker.orca.pipeline.model.StageExecutionImpl;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
@@ -92,4 +94,49 @@ public class DryRunTaskTest {
     when(clock.instant()).thenReturn(t2);
     assertEquals(ExecutionStatus.SUCCEEDED, task.execute(stage).getStatus());
   }
+
+  @Test
+  public void testExecuteTaskStoresCompletionDeadline() {
+    // The first execution stores when the wait time elapses
+    stage.setStartTime(t1.toEpochMilli());
+    when(clock.instant()).thenReturn(t1);
+    TaskResult result = task.execute(stage);
+    assertEquals(ExecutionStatus.RUNNING, result.getStatus());
+    assertEquals(
+        t1.plus(waitTime).toEpochMilli(), result.getOutputs().get(DryRunTask.COMPLETION_DEADLINE));
+
+    // Later executions only read the stored deadline, not the wait time of the context
+    stage.setContext(new HashMap<>());
+    stage.getOutputs().putAll(result.getOutputs());
+    assertEquals(ExecutionStatus.RUNNING, task.execute(stage).getStatus());
+    assertEquals(
+        Duration.ofSeconds(3).toMillis(), task.getDynamicBackoffPeriod(stage, null /* unused */));
+
+    when(clock.instant()).thenReturn(t2);
+    assertEquals(ExecutionStatus.SUCCEEDED, task.execute(stage).getStatus());
+    assertEquals(
+        Duration.ofSeconds(1).toMillis(), task.getDynamicBackoffPeriod(stage, null /* unused */));
+  }
+
+  @Test
+  public void testExecuteTaskIgnoresDeadlineOfAnotherStartTime() {
+    // A deadline stored before the stage was restarted does not apply to the new start time
+    stage.setStartTime(t1.toEpochMilli());
+    when(clock.instant()).thenReturn(t1);
+    stage.getOutputs().putAll(task.execute(stage).getOutputs());
+
+    Instant restartTime = t2;
+    stage.setStartTime(restartTime.toEpochMilli());
+    when(clock.instant()).thenReturn(restartTime);
+    TaskResult result = task.execute(stage);
+    assertEquals(ExecutionStatus.RUNNING, result.getStatus());
+    assertEquals(
+        restartTime.plus(waitTime).toEpochMilli(),
+        result.getOutputs().get(DryRunTask.COMPLETION_DEADLINE));
+    assertEquals(
+        restartTime.toEpochMilli(),
+        result.getOutputs().get(DryRunTask.COMPLETION_DEADLINE_START_TIME));
+    assertEquals(
+        Duration.ofSeconds(3).toMillis(), task.getDynamicBackoffPeriod(stage, null /* unused */));
+  }
 }